@@ -0,0 +1,76 @@
+package br.com.azalim.mcserverping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds and reads the RakNet unconnected ping used by Bedrock Edition.
+ * See https://wiki.vg/Raknet_Protocol#Unconnected_Ping
+ */
+final class BedrockPing {
+
+    private static final byte UNCONNECTED_PING = 0x01;
+    private static final byte UNCONNECTED_PONG = 0x1C;
+    static final byte[] MAGIC = {
+            0x00, (byte) 0xFF, (byte) 0xFF, 0x00, (byte) 0xFE, (byte) 0xFE, (byte) 0xFE, (byte) 0xFE,
+            (byte) 0xFD, (byte) 0xFD, (byte) 0xFD, (byte) 0xFD, 0x12, 0x34, 0x56, 0x78
+    };
+    // ID, time, server GUID, magic, string length
+    private static final int PONG_HEADER_SIZE = 1 + 8 + 8 + MAGIC.length + 2;
+
+    private BedrockPing() {}
+
+    /**
+     * @param time the current time in milliseconds
+     * @param guid a random ID identifying the client
+     * @return the unconnected ping packet
+     */
+    static byte[] buildRequest(long time, long guid) {
+        return ByteBuffer.allocate(1 + 8 + MAGIC.length + 8)
+                .put(UNCONNECTED_PING)
+                .putLong(time)
+                .put(MAGIC)
+                .putLong(guid)
+                .array();
+    }
+
+    /**
+     * Reads the unconnected pong the server answers with.
+     *
+     * @param packet the whole datagram
+     * @return the status as JSON
+     * @throws IOException if the server sent something else
+     */
+    static String read(ByteBuffer packet) throws IOException {
+        MCPingUtil.io(packet.remaining() < PONG_HEADER_SIZE, "Server returned unexpected value.");
+        MCPingUtil.io(packet.get() != UNCONNECTED_PONG, "Server returned invalid packet.");
+        packet.getLong(); // Time
+        packet.getLong(); // Server GUID
+        byte[] magic = new byte[MAGIC.length];
+        packet.get(magic);
+        MCPingUtil.io(!Arrays.equals(magic, MAGIC), "Server returned invalid packet.");
+        int length = packet.getShort() & 0xFFFF;
+        MCPingUtil.io(length > packet.remaining(), "Server prematurely ended stream.");
+        byte[] data = new byte[length];
+        packet.get(data);
+        return parse(new String(data, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the server ID string sent in the pong.
+     *
+     * @param id the server ID, such as {@code MCPE;Dedicated Server;422;1.16.201;0;10;...}
+     * @return the status as JSON
+     * @throws IOException if the ID is not a status
+     */
+    static String parse(String id) throws IOException {
+        // Edition, MOTD, protocol, version, online, max, then optional fields
+        String[] parts = id.split(";", -1);
+        MCPingUtil.io(parts.length < 6, "Server returned unexpected value.");
+        return MCPingUtil.toStatusJson(parts[1], MCPingUtil.parseInt(parts[4]), MCPingUtil.parseInt(parts[5]),
+                parts[3], MCPingUtil.parseInt(parts[2]));
+    }
+
+}
@@ -0,0 +1,74 @@
+package br.com.azalim.mcserverping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds and reads the 0xFE server list ping used by Java Edition 1.6 and older.
+ * <br>Newer servers still answer it, but without the favicon or player sample.
+ * See https://wiki.vg/Server_List_Ping#1.6
+ */
+final class LegacyPing {
+
+    /**
+     * The ping sent by 1.4 to 1.6 clients, which 1.3 and older servers also understand
+     */
+    static final byte[] REQUEST = {(byte) 0xFE, 0x01};
+    /**
+     * Used as the version name of servers too old to send one
+     */
+    static final String UNKNOWN_VERSION = "1.3 or older";
+    private static final int PACKET_KICK = 0xFF;
+    private static final String PREFIX = MCPingUtil.COLOR_CHAR + "1\0";
+
+    private LegacyPing() {}
+
+    /**
+     * Reads the kick packet the server answers with.
+     *
+     * @param in the bytes received so far in read mode, the position is only moved if the whole packet is there
+     * @return the status as JSON, or null if the packet is not all there yet
+     * @throws IOException if the server sent something else
+     */
+    static String read(ByteBuffer in) throws IOException {
+        if (in.remaining() < 3) {
+            return null;
+        }
+        int start = in.position();
+        MCPingUtil.io((in.get(start) & 0xFF) != PACKET_KICK, "Server returned invalid packet.");
+        int length = in.getShort(start + 1) & 0xFFFF; // In UTF-16 chars
+        if (in.remaining() < 3 + 2 * length) {
+            return null;
+        }
+        byte[] data = new byte[2 * length];
+        in.position(start + 3);
+        in.get(data);
+        return parse(new String(data, StandardCharsets.UTF_16BE));
+    }
+
+    /**
+     * Parses the reason of the kick packet.
+     *
+     * @param kick the kick reason
+     * @return the status as JSON
+     * @throws IOException if the reason is not a status
+     */
+    static String parse(String kick) throws IOException {
+        if (kick.startsWith(PREFIX)) {
+            // §1, protocol, version, MOTD, online, max
+            String[] parts = kick.split("\0", -1);
+            MCPingUtil.io(parts.length < 6, "Server returned unexpected value.");
+            return MCPingUtil.toStatusJson(parts[3], MCPingUtil.parseInt(parts[4]), MCPingUtil.parseInt(parts[5]),
+                    parts[2], MCPingUtil.parseInt(parts[1]));
+        }
+        // Before 1.4, MOTD§online§max
+        int maxStart = kick.lastIndexOf(MCPingUtil.COLOR_CHAR);
+        int onlineStart = maxStart == -1 ? -1 : kick.lastIndexOf(MCPingUtil.COLOR_CHAR, maxStart - 1);
+        MCPingUtil.io(onlineStart == -1, "Server returned unexpected value.");
+        int online = MCPingUtil.parseInt(kick.substring(onlineStart + 1, maxStart));
+        int max = MCPingUtil.parseInt(kick.substring(maxStart + 1));
+        return MCPingUtil.toStatusJson(kick.substring(0, onlineStart), online, max, UNKNOWN_VERSION, -1);
+    }
+
+}
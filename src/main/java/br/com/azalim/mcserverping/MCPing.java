@@ -28,29 +28,24 @@
  */
 package br.com.azalim.mcserverping;
 
-import com.google.common.base.Preconditions;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.io.InterruptedIOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.chat.ComponentSerializer;
-import org.xbill.DNS.Lookup;
-import org.xbill.DNS.Record;
-import org.xbill.DNS.SRVRecord;
-import org.xbill.DNS.TextParseException;
-import org.xbill.DNS.Type;
 
 public class MCPing {
 
     private static final Gson GSON = new Gson();
-    private static final String SRV_QUERY_PREFIX = "_minecraft._tcp.%s";
+
+    private static PingEngine engine;
 
     /**
      * Fetches a {@link MCPingResponse} for the supplied hostname.
@@ -72,89 +67,64 @@ public class MCPing {
      * @throws IOException
      */
     public static MCPingResponse getPing(final MCPingOptions options) throws IOException {
-
-        Preconditions.checkNotNull(options.getHostname(), "Hostname cannot be null.");
-
-        String hostname = options.getHostname();
-        int port = options.getPort();
-
         try {
-
-            Record[] records = new Lookup(String.format(SRV_QUERY_PREFIX, hostname), Type.SRV).run();
-
-            if (records != null) {
-
-                for (Record record : records) {
-                    SRVRecord srv = (SRVRecord) record;
-
-                    hostname = srv.getTarget().toString().replaceFirst("\\.$", "");
-                    port = srv.getPort();
-                }
-
+            return getPingAsync(options).get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-        } catch (TextParseException e) {
-            e.printStackTrace();
+            throw new IOException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while pinging server.");
         }
+    }
 
-        String json;
-        long ping = -1;
-
-        try (final Socket socket = new Socket()) {
-
-            long start = System.currentTimeMillis();
-            socket.connect(new InetSocketAddress(hostname, port), options.getTimeout());
-            ping = System.currentTimeMillis() - start;
-
-            try (DataInputStream in = new DataInputStream(socket.getInputStream());
-                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
-                    //> Handshake
-                    ByteArrayOutputStream handshake_bytes = new ByteArrayOutputStream();
-                    DataOutputStream handshake = new DataOutputStream(handshake_bytes)) {
-
-                handshake.writeByte(MCPingUtil.PACKET_HANDSHAKE);
-                MCPingUtil.writeVarInt(handshake, MCPingUtil.PROTOCOL_VERSION);
-                MCPingUtil.writeVarInt(handshake, options.getHostname().length());
-                handshake.writeBytes(options.getHostname());
-                handshake.writeShort(options.getPort());
-                MCPingUtil.writeVarInt(handshake, MCPingUtil.STATUS_HANDSHAKE);
-
-                MCPingUtil.writeVarInt(out, handshake_bytes.size());
-                out.write(handshake_bytes.toByteArray());
-
-                //> Status request
-                out.writeByte(0x01); // Size of packet
-                out.writeByte(MCPingUtil.PACKET_STATUSREQUEST);
-
-                //< Status response
-                MCPingUtil.readVarInt(in); // Size
-                int id = MCPingUtil.readVarInt(in);
-
-                MCPingUtil.io(id == -1, "Server prematurely ended stream.");
-                MCPingUtil.io(id != MCPingUtil.PACKET_STATUSREQUEST, "Server returned invalid packet.");
-
-                int length = MCPingUtil.readVarInt(in);
-                MCPingUtil.io(length == -1, "Server prematurely ended stream.");
-                MCPingUtil.io(length == 0, "Server returned unexpected value.");
-
-                byte[] data = new byte[length];
-                in.readFully(data);
-                json = new String(data, options.getCharset());
-
-                //> Ping
-                out.writeByte(0x09); // Size of packet
-                out.writeByte(MCPingUtil.PACKET_PING);
-                out.writeLong(System.currentTimeMillis());
+    /**
+     * Starts fetching a {@link MCPingResponse} for the supplied options without blocking.
+     * All pings share the single thread of a {@link PingEngine}.
+     *
+     * @param options - a filled instance of {@link MCPingOptions}
+     * @return a future completing with the {@link MCPingResponse}, or exceptionally with an {@link IOException}
+     */
+    public static CompletableFuture<MCPingResponse> getPingAsync(final MCPingOptions options) {
+        try {
+            return getEngine().ping(options);
+        } catch (IOException ex) {
+            CompletableFuture<MCPingResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
+    }
 
-                //< Ping
-                MCPingUtil.readVarInt(in); // Size
-                id = MCPingUtil.readVarInt(in);
-                MCPingUtil.io(id == -1, "Server prematurely ended stream.");
-                MCPingUtil.io(id != MCPingUtil.PACKET_PING, "Server returned invalid packet.");
+    private static synchronized PingEngine getEngine() throws IOException {
+        if (engine == null) {
+            engine = new PingEngine();
+        }
+        return engine;
+    }
 
-            }
+    /**
+     * @return the stats of the SRV record cache, or empty if nothing has been pinged yet
+     */
+    public static synchronized Optional<CacheStats> getSrvCacheStats() {
+        return Optional.ofNullable(engine).map(PingEngine::getSrvCacheStats);
+    }
 
+    /**
+     * Stops the ping thread, failing every ping in progress. The next ping starts a new one.
+     */
+    public static synchronized void shutdown() {
+        if (engine != null) {
+            engine.close();
+            engine = null;
         }
+    }
 
+    static MCPingResponse parse(final String json, final long ping) {
         JsonObject jsonObject = new JsonParser().parse(json).getAsJsonObject();
         // Modification from tis
         // Sometimes a server may set description as a string, rather than a JsonObject
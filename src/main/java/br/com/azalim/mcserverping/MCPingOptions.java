@@ -29,6 +29,8 @@
 package br.com.azalim.mcserverping;
 
 import com.google.common.base.Charsets;
+import java.util.EnumSet;
+import java.util.Set;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -47,8 +49,25 @@ public class MCPingOptions {
 
     @Getter
     @Builder.Default
-    private int port = 25565;
+    private int port = MCPingUtil.DEFAULT_PORT;
 
+    /**
+     * The UDP port to send the Bedrock ping to
+     */
+    @Getter
+    @Builder.Default
+    private int bedrockPort = MCPingUtil.DEFAULT_BEDROCK_PORT;
+
+    /**
+     * The protocols to try at once, the first one that answers in order of preference is used
+     */
+    @Getter
+    @Builder.Default
+    private Set<PingProtocol> protocols = EnumSet.allOf(PingProtocol.class);
+
+    /**
+     * The deadline for each phase of the ping in milliseconds, see {@link PingEngine}
+     */
     @Getter
     @Builder.Default
     private int timeout = 5000;
@@ -67,6 +67,12 @@ public class MCPingResponse {
     @Setter
     private long ping;
 
+    /**
+     * @return The protocol the server answered with
+     */
+    @Setter
+    private transient PingProtocol pingProtocol;
+
     @Getter
     @ToString
     public class Description {
@@ -28,9 +28,11 @@
  */
 package br.com.azalim.mcserverping;
 
+import com.google.gson.JsonObject;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.regex.Pattern;
 
 public class MCPingUtil {
@@ -40,6 +42,9 @@ public class MCPingUtil {
             PACKET_PING = 0x01;
     public static final int PROTOCOL_VERSION = 4;
     public static final int STATUS_HANDSHAKE = 1;
+    public static final int DEFAULT_PORT = 25565;
+    public static final int DEFAULT_BEDROCK_PORT = 19132;
+    public static final int MAX_PORT = 65535;
 
     public static final char COLOR_CHAR = '\u00A7';
     private static final Pattern STRIP_COLOR_PATTERN = Pattern.compile("(?i)" + String.valueOf(COLOR_CHAR) + "[0-9A-FK-OR]");
@@ -101,4 +106,69 @@ public class MCPingUtil {
         }
     }
 
+    /**
+     * Reads a VarInt from a buffer, advancing its position.
+     *
+     * @param in the buffer to read from
+     * @return the VarInt
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the VarInt does
+     * @throws IOException if the VarInt is longer than 5 bytes
+     */
+    public static int readVarInt(ByteBuffer in) throws IOException {
+        int i = 0;
+        int j = 0;
+        while (true) {
+            int k = in.get();
+
+            i |= (k & 0x7F) << j++ * 7;
+
+            io(j > 5, "VarInt too big");
+
+            if ((k & 0x80) != 128) {
+                break;
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Parses a number sent by a server.
+     *
+     * @param s the number as text
+     * @return the number
+     * @throws IOException if the text is not a number
+     */
+    public static int parseInt(final String s) throws IOException {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Server returned unexpected value.", ex);
+        }
+    }
+
+    /**
+     * Builds the JSON a modern server would send, so other protocols can be parsed into a {@link MCPingResponse}.
+     *
+     * @param motd the MOTD, which may contain color codes
+     * @param online the online player count
+     * @param max the maximum player count
+     * @param version the version name
+     * @param protocol the protocol version, or -1 if unknown
+     * @return the status JSON
+     */
+    public static String toStatusJson(String motd, int online, int max, String version, int protocol) {
+        JsonObject players = new JsonObject();
+        players.addProperty("max", max);
+        players.addProperty("online", online);
+        JsonObject versionObject = new JsonObject();
+        versionObject.addProperty("name", version);
+        versionObject.addProperty("protocol", protocol);
+        JsonObject json = new JsonObject();
+        json.addProperty("description", motd);
+        json.add("players", players);
+        json.add("version", versionObject);
+        return json.toString();
+    }
+
 }
@@ -0,0 +1,998 @@
+package br.com.azalim.mcserverping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.base.Preconditions;
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.ResolverConfig;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pings many servers at once from a single thread using non-blocking sockets.
+ * <br>Every protocol in {@link MCPingOptions#getProtocols()} is tried at once: the modern and legacy pings
+ * over TCP to the Java address, and the Bedrock ping over UDP to the Bedrock port.
+ * The most preferred {@link PingProtocol} that answers is used. Once a less preferred protocol answers,
+ * the more preferred ones that are still resolving or connecting get {@link #GRACE} more milliseconds
+ * instead of the rest of their deadline, so a server that only speaks one protocol doesn't wait on the others
+ * to time out. More preferred ones that already reached the server run until the deadline of their current phase,
+ * since a Java server behind a Bedrock proxy answers Bedrock pings first.
+ * <br>Java pings go through these phases, each with its own deadline of {@link MCPingOptions#getTimeout()}:
+ * <ol>
+ *     <li>SRV lookup, sent over UDP from the ping thread. A failed or slow lookup falls back to the given address.</li>
+ *     <li>Resolving the hostname, with the A and AAAA lookups also sent over UDP from the ping thread.
+ *     Hostnames the nameserver doesn't know, such as ones only in the hosts file, fall back to the JVM resolver
+ *     on a small thread pool, as does every hostname if there is no nameserver.</li>
+ *     <li>Connecting, which is also the reported ping.</li>
+ *     <li>Waiting for the status.</li>
+ *     <li>Waiting for the pong, for the modern ping only.</li>
+ * </ol>
+ * Bedrock pings resolve the hostname, then wait for the pong, and the round trip is the reported ping.
+ * <br>A server that stops responding fails the ping with a {@link SocketTimeoutException}
+ * once the deadline of the current phase passes, without holding up any thread.
+ * <br>SRV answers are cached for their TTL, and hostnames without an SRV record for a few minutes.
+ */
+public class PingEngine implements Closeable {
+
+    /**
+     * How long more preferred protocols that haven't reached the server are waited for
+     * once a protocol answers, in milliseconds
+     */
+    public static final long GRACE = 1000;
+    private static final String SRV_QUERY_PREFIX = "_minecraft._tcp.%s";
+    private static final long SRV_TIMEOUT = 2000;
+    private static final int DNS_PORT = 53;
+    private static final int DATAGRAM_SIZE = 8192;
+    private static final int BUFFER_SIZE = 1024;
+    private static final int MAX_PACKET_SIZE = 1 << 21;
+    private static final int MAX_ACTIVE = 1024;
+    private static final int RESOLVER_THREADS = 4;
+    private static final long MIN_SRV_TTL = TimeUnit.MINUTES.toNanos(1);
+    private static final long MAX_SRV_TTL = TimeUnit.HOURS.toNanos(1);
+    private static final long MISSING_SRV_TTL = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_SRV_CACHE_SIZE = 10_000;
+
+    private final Selector selector;
+    private final ExecutorService resolver;
+    private final InetSocketAddress dnsServer;
+    // Sent in Bedrock pings so the server can tell clients apart
+    private final long guid = ThreadLocalRandom.current().nextLong();
+    // Work for the ping thread, including new pings and finished hostname lookups
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Only touched by the ping thread
+    private final Set<Detection> detections = new HashSet<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    // Lowercase hostname --> SRV target
+    private final Cache<String, SrvTarget> srvCache = Caffeine.newBuilder()
+            .maximumSize(MAX_SRV_CACHE_SIZE)
+            .expireAfter(new SrvExpiry())
+            .recordStats()
+            .build();
+    private volatile boolean closed;
+
+    /**
+     * Opens a selector and starts the ping thread.
+     * <br>DNS lookups are sent to the first nameserver in the system configuration.
+     *
+     * @throws IOException if the selector could not be opened
+     */
+    public PingEngine() throws IOException {
+        this(findNameserver());
+    }
+
+    /**
+     * Opens a selector and starts the ping thread.
+     *
+     * @param dnsServer the nameserver to send DNS lookups to, or null to skip SRV lookups and resolve with the JVM
+     * @throws IOException if the selector could not be opened
+     */
+    PingEngine(InetSocketAddress dnsServer) throws IOException {
+        this.dnsServer = dnsServer;
+        selector = Selector.open();
+        // Only used for hostnames the nameserver doesn't know, so a few threads are plenty
+        resolver = new ThreadPoolExecutor(RESOLVER_THREADS, RESOLVER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(2 * MAX_ACTIVE),
+                new ThreadFactoryBuilder().setNameFormat("ping-resolver-%d").setDaemon(true).build());
+        Thread thread = new Thread(this::loop, "ping-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static InetSocketAddress findNameserver() {
+        String[] servers = ResolverConfig.getCurrentConfig().servers();
+        if (servers == null || servers.length == 0) {
+            return null;
+        }
+        // Nameservers are IP literals, so this doesn't block
+        return new InetSocketAddress(servers[0], DNS_PORT);
+    }
+
+    /**
+     * Starts pinging a server.
+     *
+     * @param options a filled instance of {@link MCPingOptions}
+     * @return a future completing with the {@link MCPingResponse},
+     * or exceptionally with an {@link IOException} if the server could not be pinged with any protocol
+     */
+    public CompletableFuture<MCPingResponse> ping(MCPingOptions options) {
+        Preconditions.checkNotNull(options.getHostname(), "Hostname cannot be null.");
+        Preconditions.checkArgument(!options.getProtocols().isEmpty(), "At least one protocol is needed.");
+        Detection detection = new Detection(options);
+        if (closed) {
+            detection.future.completeExceptionally(new IOException("The ping engine is closed."));
+        } else {
+            execute(detection::start);
+        }
+        // Parsing runs off the ping thread, along with anything the caller chains on
+        return detection.future.thenApplyAsync(status -> {
+            MCPingResponse response = MCPing.parse(status.json, status.ping);
+            response.setPingProtocol(status.protocol);
+            return response;
+        });
+    }
+
+    /**
+     * @return the stats of the SRV record cache
+     */
+    public CacheStats getSrvCacheStats() {
+        return srvCache.stats();
+    }
+
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Stops the ping thread, failing every ping in progress.
+     */
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        resolver.shutdownNow();
+    }
+
+    private void loop() {
+        while (!closed) {
+            try {
+                selector.select(nextTimeout());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                break;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runSafely(task);
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+                runSafely(() -> ((Connection<?>) key.attachment()).handle(key));
+            }
+            selector.selectedKeys().clear();
+            runTimers();
+        }
+        closed = true;
+        IOException ex = new IOException("The ping engine is closed.");
+        new ArrayList<>(detections).forEach(detection -> detection.fail(ex));
+        // SRV lookups outlive the pings that started them
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            ((Connection<?>) key.attachment()).close();
+        }
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        try {
+            selector.close();
+        } catch (IOException ex2) {
+            ex2.printStackTrace();
+        }
+    }
+
+    private Timer schedule(long delay, Runnable action) {
+        Timer timer = new Timer(System.nanoTime() + delay, action);
+        timers.add(timer);
+        return timer;
+    }
+    private void runTimers() {
+        long now = System.nanoTime();
+        while (!timers.isEmpty() && now - timers.peek().deadline >= 0) {
+            Timer timer = timers.poll();
+            if (!timer.cancelled) {
+                runSafely(timer.action);
+            }
+        }
+    }
+    // Pings and connections fail themselves on errors, this only keeps a bug from stopping the ping thread
+    private static void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+    // Milliseconds until the earliest timer, where 0 waits forever
+    private long nextTimeout() {
+        // Cancelled timers are dropped lazily, they never outlive their deadline
+        while (!timers.isEmpty() && timers.peek().cancelled) {
+            timers.poll();
+        }
+        if (timers.isEmpty()) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(timers.peek().deadline - System.nanoTime()) + 1);
+    }
+
+    private static SocketTimeoutException timedOut(long timeout, String description) {
+        return new SocketTimeoutException(String.format("Timed out after %dms %s.",
+                TimeUnit.NANOSECONDS.toMillis(timeout), description));
+    }
+
+    // Completes on the ping thread
+    private CompletableFuture<InetSocketAddress> resolve(String hostname, int port, long timeout) {
+        if (InetAddresses.isInetAddress(hostname)) {
+            return CompletableFuture.completedFuture(new InetSocketAddress(InetAddresses.forString(hostname), port));
+        }
+        if (dnsServer == null) {
+            return resolveBlocking(hostname, port, timeout);
+        }
+        AddressLookup lookup = new AddressLookup(hostname, timeout);
+        lookup.start();
+        return lookup.result.handle((address, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.completedFuture(new InetSocketAddress(address, port));
+            }
+            if (ex instanceof UnknownHostException) {
+                // Unknown to the nameserver, but the hosts file might have it
+                return resolveBlocking(hostname, port, timeout);
+            }
+            CompletableFuture<InetSocketAddress> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }).thenCompose(future -> future);
+    }
+    // Completes on the ping thread
+    private CompletableFuture<InetSocketAddress> resolveBlocking(String hostname, int port, long timeout) {
+        CompletableFuture<InetSocketAddress> future = new CompletableFuture<>();
+        Timer timer = schedule(timeout,
+                () -> future.completeExceptionally(timedOut(timeout, "resolving the hostname")));
+        try {
+            resolver.execute(() -> {
+                InetSocketAddress address = new InetSocketAddress(hostname, port);
+                execute(() -> {
+                    // The deadline may have passed while the lookup was running
+                    timer.cancelled = true;
+                    if (address.isUnresolved()) {
+                        future.completeExceptionally(new UnknownHostException(hostname));
+                    } else {
+                        future.complete(address);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException ex) {
+            timer.cancelled = true;
+            future.completeExceptionally(new IOException("Too many pings in progress.", ex));
+        }
+        return future;
+    }
+    // Completes on the ping thread
+    private CompletableFuture<InetSocketAddress> resolveJava(String hostname, int port, long timeout) {
+        if (dnsServer == null || InetAddresses.isInetAddress(hostname)) {
+            return resolve(hostname, port, timeout);
+        }
+        SrvTarget cached = srvCache.getIfPresent(hostname.toLowerCase());
+        CompletableFuture<SrvTarget> srv;
+        if (cached == null) {
+            SrvLookup lookup = new SrvLookup(hostname, Math.min(timeout, TimeUnit.MILLISECONDS.toNanos(SRV_TIMEOUT)));
+            lookup.start();
+            srv = lookup.result;
+        } else {
+            srv = CompletableFuture.completedFuture(cached);
+        }
+        // A failed lookup is the same as a hostname without an SRV record
+        return srv.handle((target, ex) -> target).thenCompose(target -> {
+            if (target == null || target.hostname == null) {
+                return resolve(hostname, port, timeout);
+            }
+            return resolve(target.hostname, target.port, timeout);
+        });
+    }
+
+    private static byte[] buildStatusRequest(MCPingOptions options) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        //> Handshake
+        ByteArrayOutputStream handshakeBytes = new ByteArrayOutputStream();
+        DataOutputStream handshake = new DataOutputStream(handshakeBytes);
+        byte[] hostname = options.getHostname().getBytes(StandardCharsets.UTF_8);
+        handshake.writeByte(MCPingUtil.PACKET_HANDSHAKE);
+        MCPingUtil.writeVarInt(handshake, MCPingUtil.PROTOCOL_VERSION);
+        MCPingUtil.writeVarInt(handshake, hostname.length);
+        handshake.write(hostname);
+        handshake.writeShort(options.getPort());
+        MCPingUtil.writeVarInt(handshake, MCPingUtil.STATUS_HANDSHAKE);
+
+        MCPingUtil.writeVarInt(out, handshakeBytes.size());
+        out.write(handshakeBytes.toByteArray());
+
+        //> Status request
+        out.writeByte(0x01); // Size of packet
+        out.writeByte(MCPingUtil.PACKET_STATUSREQUEST);
+        return bytes.toByteArray();
+    }
+    private static byte[] buildPing() {
+        return ByteBuffer.allocate(10)
+                .put((byte) 0x09) // Size of packet
+                .put(MCPingUtil.PACKET_PING)
+                .putLong(System.currentTimeMillis())
+                .array();
+    }
+
+    private static class Timer implements Comparable<Timer> {
+        private final long deadline;
+        private final Runnable action;
+        private boolean cancelled;
+        private Timer(long deadline, Runnable action) {
+            this.deadline = deadline;
+            this.action = action;
+        }
+        public int compareTo(Timer other) {
+            return Long.signum(deadline - other.deadline);
+        }
+    }
+
+    private static class SrvTarget {
+        /**
+         * The target of the SRV record, or null if the hostname has none
+         */
+        private final String hostname;
+        private final int port;
+        private final long ttl;
+        private SrvTarget(String hostname, int port, long ttl) {
+            this.hostname = hostname;
+            this.port = port;
+            this.ttl = ttl;
+        }
+    }
+    private static class SrvExpiry implements Expiry<String, SrvTarget> {
+        public long expireAfterCreate(String key, SrvTarget target, long currentTime) {
+            return target.ttl;
+        }
+        public long expireAfterUpdate(String key, SrvTarget target, long currentTime, long currentDuration) {
+            return target.ttl;
+        }
+        public long expireAfterRead(String key, SrvTarget target, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static class Status {
+        private final PingProtocol protocol;
+        private final String json;
+        private final long ping;
+        private Status(PingProtocol protocol, String json, long ping) {
+            this.protocol = protocol;
+            this.json = json;
+            this.ping = ping;
+        }
+    }
+
+    private static class Probe {
+        private Connection<Status> connection;
+        private Status status;
+        private Throwable error;
+        private boolean isConnected() {
+            return connection != null && connection.connected;
+        }
+    }
+
+    /**
+     * Tries every requested protocol for a single ping and picks the answer, only touched by the ping thread.
+     */
+    private class Detection {
+
+        private final MCPingOptions options;
+        private final CompletableFuture<Status> future = new CompletableFuture<>();
+        private final long timeout;
+        // Iterates in order of preference
+        private final Map<PingProtocol, Probe> probes = new EnumMap<>(PingProtocol.class);
+        private final List<Connection<?>> connections = new ArrayList<>();
+        private Timer grace;
+        private boolean graceOver;
+
+        private Detection(MCPingOptions options) {
+            this.options = options;
+            timeout = TimeUnit.MILLISECONDS.toNanos(options.getTimeout());
+        }
+
+        private void start() {
+            if (closed) {
+                future.completeExceptionally(new IOException("The ping engine is closed."));
+                return;
+            }
+            if (detections.size() >= MAX_ACTIVE) {
+                future.completeExceptionally(new IOException("Too many pings in progress."));
+                return;
+            }
+            detections.add(this);
+            try {
+                probe();
+            } catch (RuntimeException ex) {
+                // Such as a port out of range
+                fail(ex);
+            }
+        }
+        private void probe() {
+            for (PingProtocol protocol : options.getProtocols()) {
+                probes.put(protocol, new Probe());
+            }
+            String hostname = options.getHostname();
+            if (probes.containsKey(PingProtocol.MODERN) || probes.containsKey(PingProtocol.LEGACY)) {
+                // Both TCP pings share the SRV lookup and the resolved address
+                resolveJava(hostname, options.getPort(), timeout).whenComplete((address, ex) -> {
+                    if (ex != null) {
+                        finished(PingProtocol.MODERN, null, ex);
+                        finished(PingProtocol.LEGACY, null, ex);
+                    } else if (!future.isDone()) {
+                        if (probes.containsKey(PingProtocol.MODERN)) {
+                            open(PingProtocol.MODERN, new ModernStatus(options, timeout)).connect(address);
+                        }
+                        if (probes.containsKey(PingProtocol.LEGACY)) {
+                            open(PingProtocol.LEGACY, new LegacyStatus(timeout)).connect(address);
+                        }
+                    }
+                });
+            }
+            if (probes.containsKey(PingProtocol.BEDROCK)) {
+                resolve(hostname, options.getBedrockPort(), timeout).whenComplete((address, ex) -> {
+                    if (ex != null) {
+                        finished(PingProtocol.BEDROCK, null, ex);
+                    } else if (!future.isDone()) {
+                        open(PingProtocol.BEDROCK, new BedrockStatus(timeout)).start(address);
+                    }
+                });
+            }
+        }
+        private <T extends Connection<Status>> T open(PingProtocol protocol, T connection) {
+            probes.get(protocol).connection = connection;
+            connections.add(connection);
+            connection.result.whenComplete((status, ex) -> finished(protocol, status, ex));
+            return connection;
+        }
+
+        private void finished(PingProtocol protocol, Status status, Throwable ex) {
+            Probe probe = probes.get(protocol);
+            if (probe == null || future.isDone()) {
+                return;
+            }
+            if (ex == null) {
+                probe.status = status;
+            } else {
+                probe.error = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            }
+            decide();
+        }
+        private void decide() {
+            boolean waiting = false;
+            // Whether a more preferred probe that hasn't reached the server is being waited on
+            boolean connecting = false;
+            for (Probe probe : probes.values()) {
+                if (probe.status != null) {
+                    if (!waiting) {
+                        succeed(probe.status);
+                    } else if (connecting && grace == null) {
+                        grace = schedule(TimeUnit.MILLISECONDS.toNanos(GRACE), this::endGrace);
+                    }
+                    return;
+                }
+                if (probe.error == null) {
+                    if (probe.isConnected()) {
+                        waiting = true;
+                    } else if (!graceOver) {
+                        waiting = true;
+                        connecting = true;
+                    }
+                }
+            }
+            if (!waiting) {
+                // Every protocol failed, and the most preferred one has the most useful error
+                fail(probes.values().iterator().next().error);
+            }
+        }
+        private void endGrace() {
+            // Probes that connected during the grace period are still waited on
+            graceOver = true;
+            decide();
+        }
+
+        private void succeed(Status status) {
+            finish();
+            future.complete(status);
+        }
+        private void fail(Throwable ex) {
+            finish();
+            future.completeExceptionally(ex);
+        }
+        private void finish() {
+            detections.remove(this);
+            if (grace != null) {
+                grace.cancelled = true;
+            }
+            connections.forEach(Connection::close);
+        }
+
+    }
+
+    /**
+     * A single channel with a deadline for its current phase, only touched by the ping thread.
+     *
+     * @param <T> the type of the result
+     */
+    private abstract class Connection<T> {
+
+        protected final CompletableFuture<T> result = new CompletableFuture<>();
+        protected final long timeout;
+        protected SelectableChannel channel;
+        /**
+         * Whether the server was reached, after which the connection is not cut short by the grace period
+         */
+        protected boolean connected;
+        private Timer timer;
+
+        private Connection(long timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * Starts a new phase, failing the connection with a {@link SocketTimeoutException}
+         * if it doesn't finish in time.
+         *
+         * @param description what the connection is waiting for, used in the timeout message
+         */
+        protected void enter(String description) {
+            if (timer != null) {
+                timer.cancelled = true;
+            }
+            timer = schedule(timeout, () -> fail(timedOut(timeout, description)));
+        }
+
+        private void handle(SelectionKey key) {
+            try {
+                if (key.isValid()) {
+                    onReady(key);
+                }
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+        protected abstract void onReady(SelectionKey key) throws IOException;
+
+        protected void succeed(T value) {
+            close();
+            result.complete(value);
+        }
+        protected void fail(Throwable ex) {
+            close();
+            result.completeExceptionally(ex);
+        }
+        protected void close() {
+            if (timer != null) {
+                timer.cancelled = true;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            channel = null;
+        }
+
+    }
+
+    private class SrvLookup extends Connection<SrvTarget> {
+
+        private final String hostname;
+        private int queryId;
+
+        private SrvLookup(String hostname, long timeout) {
+            super(timeout);
+            this.hostname = hostname;
+        }
+
+        private void start() {
+            enter("looking up the SRV record");
+            try {
+                Name name = Name.fromString(String.format(SRV_QUERY_PREFIX, hostname), Name.root);
+                Message query = Message.newQuery(Record.newRecord(name, Type.SRV, DClass.IN));
+                queryId = query.getHeader().getID();
+                DatagramChannel dc = DatagramChannel.open();
+                channel = dc;
+                dc.configureBlocking(false);
+                dc.connect(dnsServer);
+                dc.write(ByteBuffer.wrap(query.toWire()));
+                dc.register(selector, SelectionKey.OP_READ, this);
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        protected void onReady(SelectionKey key) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(DATAGRAM_SIZE);
+            int read = ((DatagramChannel) channel).read(buf);
+            if (read <= 0) {
+                return;
+            }
+            Message response = new Message(Arrays.copyOf(buf.array(), read));
+            if (response.getHeader().getID() != queryId) {
+                return; // Stray answer to an earlier query, keep waiting
+            }
+            SRVRecord best = null;
+            for (Record record : response.getSectionArray(Section.ANSWER)) {
+                if (record instanceof SRVRecord) {
+                    SRVRecord srv = (SRVRecord) record;
+                    if (best == null || srv.getPriority() < best.getPriority()) {
+                        best = srv;
+                    }
+                }
+            }
+            SrvTarget target;
+            if (best == null) {
+                target = new SrvTarget(null, 0, MISSING_SRV_TTL);
+            } else {
+                long ttl = Math.max(MIN_SRV_TTL, Math.min(MAX_SRV_TTL, TimeUnit.SECONDS.toNanos(best.getTTL())));
+                target = new SrvTarget(best.getTarget().toString().replaceFirst("\\.$", ""), best.getPort(), ttl);
+            }
+            // Server failures and refusals might be fixed by the next lookup
+            int rcode = response.getRcode();
+            if (rcode == Rcode.NOERROR || rcode == Rcode.NXDOMAIN) {
+                srvCache.put(hostname.toLowerCase(), target);
+            }
+            succeed(target);
+        }
+
+    }
+
+    /**
+     * Sends the A and AAAA queries for a hostname at once, preferring IPv4 like the JVM resolver.
+     * <br>Fails with an {@link UnknownHostException} if the nameserver answers both without an address,
+     * or an {@link IOException} if it couldn't look the hostname up at all.
+     */
+    private class AddressLookup extends Connection<InetAddress> {
+
+        private final String hostname;
+        private int ipv4Id;
+        private int ipv6Id;
+        private boolean ipv4Answered;
+        private boolean ipv6Answered;
+        private boolean serverFailed;
+        private InetAddress ipv6;
+
+        private AddressLookup(String hostname, long timeout) {
+            super(timeout);
+            this.hostname = hostname;
+        }
+
+        private void start() {
+            enter("resolving the hostname");
+            try {
+                Name name = Name.fromString(hostname, Name.root);
+                Message ipv4Query = Message.newQuery(Record.newRecord(name, Type.A, DClass.IN));
+                Message ipv6Query = Message.newQuery(Record.newRecord(name, Type.AAAA, DClass.IN));
+                ipv4Id = ipv4Query.getHeader().getID();
+                ipv6Id = ipv6Query.getHeader().getID();
+                DatagramChannel dc = DatagramChannel.open();
+                channel = dc;
+                dc.configureBlocking(false);
+                dc.connect(dnsServer);
+                dc.write(ByteBuffer.wrap(ipv4Query.toWire()));
+                dc.write(ByteBuffer.wrap(ipv6Query.toWire()));
+                dc.register(selector, SelectionKey.OP_READ, this);
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        protected void onReady(SelectionKey key) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(DATAGRAM_SIZE);
+            int read = ((DatagramChannel) channel).read(buf);
+            if (read <= 0) {
+                return;
+            }
+            Message response = new Message(Arrays.copyOf(buf.array(), read));
+            int id = response.getHeader().getID();
+            Record question = response.getQuestion();
+            if (question == null || (id != ipv4Id && id != ipv6Id)) {
+                return; // Stray answer to an earlier query, keep waiting
+            }
+            // Both queries may have the same ID, so the question tells them apart
+            if (question.getType() == Type.A) {
+                ipv4Answered = true;
+            } else if (question.getType() == Type.AAAA) {
+                ipv6Answered = true;
+            }
+            int rcode = response.getRcode();
+            serverFailed |= rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN;
+            // CNAMEs are followed by the nameserver, so the addresses are in the same answer
+            for (Record record : response.getSectionArray(Section.ANSWER)) {
+                if (record instanceof ARecord && ((ARecord) record).getAddress() != null) {
+                    succeed(((ARecord) record).getAddress());
+                    return;
+                } else if (record instanceof AAAARecord && ipv6 == null) {
+                    ipv6 = ((AAAARecord) record).getAddress();
+                }
+            }
+            if (!ipv4Answered || !ipv6Answered) {
+                return;
+            }
+            if (ipv6 != null) {
+                succeed(ipv6);
+            } else if (serverFailed) {
+                // Asking the JVM resolver would only wait on the same nameserver
+                fail(new IOException("The nameserver could not resolve " + hostname + "."));
+            } else {
+                fail(new UnknownHostException(hostname));
+            }
+        }
+
+    }
+
+    /**
+     * Exchanges packets over TCP, where the connect time is the reported ping.
+     */
+    private abstract class TcpStatus extends Connection<Status> {
+
+        protected long ping;
+        private long connectStart;
+        private ByteBuffer out;
+        private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private TcpStatus(long timeout) {
+            super(timeout);
+        }
+
+        protected void connect(InetSocketAddress address) {
+            enter("connecting");
+            try {
+                SocketChannel sc = SocketChannel.open();
+                channel = sc;
+                sc.configureBlocking(false);
+                connectStart = System.nanoTime();
+                if (sc.connect(address)) {
+                    connected();
+                } else {
+                    sc.register(selector, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+        private void connected() throws IOException {
+            connected = true;
+            ping = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+            onConnected();
+        }
+        /**
+         * Starts the next phase and sends the first request.
+         */
+        protected abstract void onConnected() throws IOException;
+        /**
+         * Reads as much as possible from the bytes received so far.
+         *
+         * @param in the bytes in read mode, anything left unread is kept for the next call
+         */
+        protected abstract void onData(ByteBuffer in) throws IOException;
+
+        protected void send(byte[] data) throws IOException {
+            out = ByteBuffer.wrap(data);
+            channel.register(selector, SelectionKey.OP_WRITE, this);
+        }
+
+        protected void onReady(SelectionKey key) throws IOException {
+            if (key.isConnectable()) {
+                ((SocketChannel) channel).finishConnect();
+                connected();
+            } else if (key.isWritable()) {
+                ((SocketChannel) channel).write(out);
+                if (!out.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } else if (key.isReadable()) {
+                read();
+            }
+        }
+        private void read() throws IOException {
+            if (!in.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                in = bigger.put(in);
+            }
+            int read = ((SocketChannel) channel).read(in);
+            in.flip();
+            try {
+                onData(in);
+            } finally {
+                in.compact();
+            }
+            MCPingUtil.io(read == -1 && !result.isDone(), "Server prematurely ended stream.");
+        }
+
+    }
+
+    private class ModernStatus extends TcpStatus {
+
+        private final MCPingOptions options;
+        private String json;
+
+        private ModernStatus(MCPingOptions options, long timeout) {
+            super(timeout);
+            this.options = options;
+        }
+
+        protected void onConnected() throws IOException {
+            enter("waiting for the status");
+            send(buildStatusRequest(options));
+        }
+
+        protected void onData(ByteBuffer in) throws IOException {
+            // Old servers kick with 0xFF and a short length, which a VarInt packet length never starts with
+            boolean kicked = json == null && in.remaining() >= 2
+                    && (in.get(in.position()) & 0xFF) == 0xFF && in.get(in.position() + 1) == 0x00;
+            MCPingUtil.io(kicked, "Server only supports the legacy ping.");
+            ByteBuffer packet = readPacket(in);
+            if (packet == null) {
+                return;
+            }
+            int id = MCPingUtil.readVarInt(packet);
+            if (json == null) {
+                //< Status response
+                MCPingUtil.io(id != MCPingUtil.PACKET_STATUSREQUEST, "Server returned invalid packet.");
+                int length = MCPingUtil.readVarInt(packet);
+                MCPingUtil.io(length <= 0, "Server returned unexpected value.");
+                MCPingUtil.io(length > packet.remaining(), "Server prematurely ended stream.");
+                byte[] data = new byte[length];
+                packet.get(data);
+                json = new String(data, Charset.forName(options.getCharset()));
+
+                //> Ping
+                enter("waiting for the pong");
+                send(buildPing());
+            } else {
+                //< Ping
+                MCPingUtil.io(id != MCPingUtil.PACKET_PING, "Server returned invalid packet.");
+                succeed(new Status(PingProtocol.MODERN, json, ping));
+            }
+        }
+        // Reads a whole length-prefixed packet, or returns null and leaves the buffer alone if it isn't all here
+        private ByteBuffer readPacket(ByteBuffer in) throws IOException {
+            in.mark();
+            try {
+                int length = MCPingUtil.readVarInt(in);
+                MCPingUtil.io(length <= 0, "Server returned unexpected value.");
+                MCPingUtil.io(length > MAX_PACKET_SIZE, "Server returned a packet that is too large.");
+                if (in.remaining() < length) {
+                    in.reset();
+                    return null;
+                }
+                byte[] data = new byte[length];
+                in.get(data);
+                return ByteBuffer.wrap(data);
+            } catch (BufferUnderflowException ex) {
+                in.reset();
+                return null;
+            }
+        }
+
+    }
+
+    private class LegacyStatus extends TcpStatus {
+
+        private LegacyStatus(long timeout) {
+            super(timeout);
+        }
+
+        protected void onConnected() throws IOException {
+            enter("waiting for the legacy status");
+            send(LegacyPing.REQUEST);
+        }
+
+        protected void onData(ByteBuffer in) throws IOException {
+            String json = LegacyPing.read(in);
+            if (json != null) {
+                succeed(new Status(PingProtocol.LEGACY, json, ping));
+            }
+        }
+
+    }
+
+    /**
+     * Sends a single unconnected ping over UDP, where the round trip is the reported ping.
+     */
+    private class BedrockStatus extends Connection<Status> {
+
+        private long sent;
+
+        private BedrockStatus(long timeout) {
+            super(timeout);
+        }
+
+        private void start(InetSocketAddress address) {
+            enter("waiting for the Bedrock status");
+            try {
+                DatagramChannel dc = DatagramChannel.open();
+                channel = dc;
+                dc.configureBlocking(false);
+                dc.connect(address);
+                sent = System.nanoTime();
+                dc.write(ByteBuffer.wrap(BedrockPing.buildRequest(System.currentTimeMillis(), guid)));
+                dc.register(selector, SelectionKey.OP_READ, this);
+                // There is no handshake over UDP, so the ping counts as reaching the server once it is sent
+                connected = true;
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        protected void onReady(SelectionKey key) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(DATAGRAM_SIZE);
+            int read = ((DatagramChannel) channel).read(buf);
+            if (read <= 0) {
+                return;
+            }
+            long ping = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+            buf.flip();
+            succeed(new Status(PingProtocol.BEDROCK, BedrockPing.read(buf), ping));
+        }
+
+    }
+
+}
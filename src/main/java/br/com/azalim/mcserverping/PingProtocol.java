@@ -0,0 +1,19 @@
+package br.com.azalim.mcserverping;
+
+/**
+ * The protocols {@link PingEngine} can ping a server with, in order of preference.
+ */
+public enum PingProtocol {
+    /**
+     * The server list ping used by Java Edition 1.7 and newer, which includes the favicon and player sample
+     */
+    MODERN,
+    /**
+     * The 0xFE server list ping used by Java Edition 1.6 and older
+     */
+    LEGACY,
+    /**
+     * The RakNet unconnected ping used by Bedrock Edition, sent over UDP
+     */
+    BEDROCK
+}
@@ -1,8 +1,13 @@
 package com.tisawesomeness.minecord;
 
+import com.tisawesomeness.minecord.config.ConfigReader;
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.Migrator;
+import com.tisawesomeness.minecord.database.store.StorageType;
 import com.tisawesomeness.minecord.util.RequestUtils;
 
 import lombok.Getter;
+import org.sqlite.SQLiteConfig;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
@@ -11,6 +16,8 @@ import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.concurrent.Callable;
 
 /**
@@ -36,6 +43,9 @@ public class ArgsHandler implements Callable<Integer>, Serializable {
     @Option(names = {"-a", "-announce", "--announcements"}, description = "The path to the announcements file.")
     @Getter private Path announcePath;
 
+    @Option(names = {"--dry-run"}, description = "Prints the database migrations that would run, then exits without starting the bot.")
+    @Getter private boolean dryRun;
+
     /**
      * Whether the bot should be started
      */
@@ -80,6 +90,10 @@ public class ArgsHandler implements Callable<Integer>, Serializable {
             return createConfig(configPath);
         }
 
+        if (dryRun) {
+            return planMigrations(configPath);
+        }
+
         ready = true;
         return 0;
 
@@ -96,6 +110,30 @@ public class ArgsHandler implements Callable<Integer>, Serializable {
         return 0;
     }
 
+    private static int planMigrations(Path configPath) {
+        DatabaseConfig dbConfig = ConfigReader.read(configPath).getDatabaseConfig();
+        if (dbConfig.getStorage() != StorageType.SQLITE) {
+            System.out.println("Only SQLite storage has migrations.");
+            return 0;
+        }
+        Path dbPath = Paths.get(dbConfig.getPath());
+        if (!dbPath.toFile().exists()) {
+            System.out.println("No database found at " + dbPath + ", it will be created when the bot starts.");
+            return 0;
+        }
+        // A plain read-only connection, since the pool would set pragmas that change the database file
+        SQLiteConfig readOnly = new SQLiteConfig();
+        readOnly.setReadOnly(true);
+        try (Connection connect = readOnly.createConnection("jdbc:sqlite:" + dbPath)) {
+            Migrator.Plan plan = new Migrator().plan(connect);
+            System.out.println(plan.describe());
+            return plan.isValid() ? 0 : 1;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return 2;
+        }
+    }
+
     private static void createAnnounce(Path announcePath) {
         try {
             Files.write(announcePath, RequestUtils.loadResource("announce.json").getBytes());
@@ -1,24 +1,35 @@
 package com.tisawesomeness.minecord;
 
+import br.com.azalim.mcserverping.MCPing;
+import com.tisawesomeness.minecord.cape.CapeResolver;
+import com.tisawesomeness.minecord.command.CommandExecutor;
 import com.tisawesomeness.minecord.command.CommandRegistry;
 import com.tisawesomeness.minecord.config.AnnounceRegistry;
 import com.tisawesomeness.minecord.config.ConfigReader;
 import com.tisawesomeness.minecord.config.serial.BotListConfig;
 import com.tisawesomeness.minecord.config.serial.Config;
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
 import com.tisawesomeness.minecord.database.Database;
 import com.tisawesomeness.minecord.database.DatabaseCache;
+import com.tisawesomeness.minecord.database.ProfileCache;
 import com.tisawesomeness.minecord.database.VoteHandler;
+import com.tisawesomeness.minecord.database.store.StorageType;
 import com.tisawesomeness.minecord.listen.CommandListener;
 import com.tisawesomeness.minecord.listen.GuildCountListener;
 import com.tisawesomeness.minecord.listen.ReactListener;
 import com.tisawesomeness.minecord.listen.ReadyListener;
+import com.tisawesomeness.minecord.server.BlockedServerIndex;
+import com.tisawesomeness.minecord.server.ServerStatusCache;
+import com.tisawesomeness.minecord.service.BlockedServerService;
 import com.tisawesomeness.minecord.service.BotListService;
 import com.tisawesomeness.minecord.service.CommandStatsService;
 import com.tisawesomeness.minecord.service.MenuService;
 import com.tisawesomeness.minecord.service.PresenceService;
 import com.tisawesomeness.minecord.service.Service;
+import com.tisawesomeness.minecord.service.WriteBehindService;
 import com.tisawesomeness.minecord.setting.SettingRegistry;
 import com.tisawesomeness.minecord.util.DateUtils;
+import com.tisawesomeness.minecord.util.RequestUtils;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -49,6 +60,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>The entry point and central point for Minecord.</p>
@@ -77,12 +89,18 @@ public class Bot {
     private BotListService botListService;
     private Service menuService;
     private Service commandStatsService;
+    private Service writeBehindService;
+    private Service blockedServerService;
 
     private Config config;
     private CommandRegistry registry;
     private CommandListener commandListener;
     private EventListener guildCountListener;
     private Database database;
+    // Kept across reloads, since capes and server statuses don't depend on the config
+    @Getter private final CapeResolver capeResolver = new CapeResolver();
+    @Getter private final ServerStatusCache serverStatusCache = new ServerStatusCache();
+    @Getter private final BlockedServerIndex blockedServers = new BlockedServerIndex();
     @Getter private ArgsHandler args;
     @Getter private ShardManager shardManager;
     @Getter private SettingRegistry settings;
@@ -128,7 +146,7 @@ public class Bot {
 
         // Connect to database
         ExecutorService exe = Executors.newSingleThreadExecutor();
-        Future<Database> futureDB = exe.submit(() -> new Database(config));
+        Future<Database> futureDB = exe.submit(() -> openDatabase(config, true));
 
         try {
             // Initialize JDA
@@ -160,6 +178,8 @@ public class Bot {
         // Wait for database
         try {
             database = futureDB.get();
+            writeBehindService = new WriteBehindService(database.getWriteQueue(), config.getDatabaseConfig());
+            writeBehindService.start();
         } catch (ExecutionException ex) {
             ex.printStackTrace();
             return 12;
@@ -201,6 +221,9 @@ public class Bot {
         menuService = new MenuService();
         menuService.start();
         commandStatsService.start();
+        // Not restarted on reload, since the blocked servers don't depend on the config
+        blockedServerService = new BlockedServerService(blockedServers);
+        blockedServerService.start();
 
         // Make sure vote handler finishes
         if (futureVH != null) {
@@ -229,6 +252,8 @@ public class Bot {
      *     <li>The internal item and recipe resource files (open the JAR as archive and replace them to reload these).</li>
      * </ul>
      * The config is loaded before everything else, so options like login details can change.
+     * <br>Cooldowns and command stats carry over, and so does the database cache if the database path is the same.
+     * <br>Commands that were already queued or running get up to the command timeout to finish on the old database.
      * @throws IOException If a file wasn't found, or there was an error starting the vote server.
      * @throws ExecutionException If the database couldn't open, the initial read failed, or creating a missing table failed.
      * If there is an exception, shut down the bot with &shutdown or do a hard reset.
@@ -244,11 +269,24 @@ public class Bot {
         menuService.shutdown();
         commandStatsService.shutdown();
         shardManager.removeEventListener(commandListener, guildCountListener);
+        CommandExecutor oldExecutor = commandListener.getCommandExecutor();
+        oldExecutor.shutdown();
+        // Commands still running would write to the old database and record uses after they are moved over
+        int timeout = config.getExecutorConfig().getTimeout();
+        if (!oldExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+            System.err.printf("Commands were still running %sms after the reload started, their changes may be lost.%n",
+                    timeout);
+        }
+        writeBehindService.shutdown();
+        // The new database must see every update made so far
+        database.getWriteQueue().flush();
+        Config oldConfig = config;
         config = ConfigReader.read(args.getConfigPath());
+        boolean keepCache = canKeepCache(oldConfig, config);
 
         // Database and vote handler need separate threads
         ExecutorService exe = Executors.newSingleThreadExecutor();
-        Future<Database> futureDB = exe.submit(() -> new Database(config));
+        Future<Database> futureDB = exe.submit(() -> openDatabase(config, !keepCache));
         Future<VoteHandler> futureVH = null;
         BotListConfig blc = config.getBotListConfig();
         if (blc.isReceiveVotes()) {
@@ -269,9 +307,19 @@ public class Bot {
         menuService.start();
 
         // Start everything up again
+        Database oldDatabase = database;
         database = futureDB.get();
+        if (keepCache) {
+            database.getCache().inherit(oldDatabase.getCache());
+        }
+        // Mojang profiles don't depend on the database, so they are always kept
+        database.getProfileCache().inherit(oldDatabase.getProfileCache());
+        oldDatabase.close();
+        writeBehindService = new WriteBehindService(database.getWriteQueue(), config.getDatabaseConfig());
+        writeBehindService.start();
         registry = new CommandRegistry(config.getCommandConfig());
         commandListener = new CommandListener(this, config, registry, database.getCommandStats());
+        commandListener.getCommandExecutor().inherit(oldExecutor);
         commandStatsService = new CommandStatsService(commandListener.getCommandExecutor(), config.getCommandConfig());
         commandStatsService.start();
         shardManager.addEventListener(commandListener, guildCountListener);
@@ -282,6 +330,42 @@ public class Bot {
 
     }
 
+    /**
+     * Connects to the database and warms up its cache.
+     * <br>This runs while the shards are logging in, and finishes before commands are accepted.
+     * @param config The config with the database settings
+     * @param warmUp Whether to warm up the cache, false if it will be copied from the old cache instead
+     * @return The database, which may have a partially warm cache if the warm-up failed
+     * @throws SQLException If the database could not be opened
+     */
+    private static Database openDatabase(Config config, boolean warmUp) throws SQLException {
+        Database db = new Database(config);
+        int limit = config.getDatabaseConfig().getWarmUpLimit();
+        if (warmUp && limit > 0) {
+            long start = System.currentTimeMillis();
+            try {
+                int loaded = db.getCache().warmUp(limit);
+                long time = System.currentTimeMillis() - start;
+                System.out.printf("Cache warmed up with %s rows in %sms.%n", loaded, time);
+            } catch (SQLException ex) {
+                // The bot still works with a cold cache
+                ex.printStackTrace();
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Cached rows can only be carried over a reload if the new database reads the same data.
+     */
+    private static boolean canKeepCache(Config oldConfig, Config newConfig) {
+        DatabaseConfig oldDbConfig = oldConfig.getDatabaseConfig();
+        DatabaseConfig newDbConfig = newConfig.getDatabaseConfig();
+        // Memory storage starts empty every time
+        return oldDbConfig.getStorage() == StorageType.SQLITE && newDbConfig.getStorage() == StorageType.SQLITE &&
+                oldDbConfig.getPath().equals(newDbConfig.getPath());
+    }
+
     /**
      * Gracefully shuts down the bot.
      * <br>Use this method instead of {@link System#exit(int)} except for emergencies.
@@ -292,10 +376,17 @@ public class Bot {
         menuService.shutdown();
         botListService.shutdown();
         commandStatsService.shutdown();
+        blockedServerService.shutdown();
+        commandListener.getCommandExecutor().shutdown();
         shardManager.shutdown();
         if (config.getBotListConfig().isReceiveVotes()) {
             voteHandler.close();
         }
+        writeBehindService.shutdown();
+        database.close();
+        capeResolver.close();
+        RequestUtils.shutdown();
+        MCPing.shutdown();
         for (JDA jda : shardManager.getShards()) {
             OkHttpClient client = jda.getHttpClient();
             client.connectionPool().evictAll();
@@ -312,6 +403,14 @@ public class Bot {
         return database.getCache();
     }
 
+    /**
+     * The access point for Mojang profile lookups.
+     * @return The profile cache
+     */
+    public ProfileCache getProfileCache() {
+        return database.getProfileCache();
+    }
+
     /**
      * Logs a message to the logging channel.
      */
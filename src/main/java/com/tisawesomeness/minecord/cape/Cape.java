@@ -0,0 +1,40 @@
+package com.tisawesomeness.minecord.cape;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * A cape that a player has from one provider.
+ */
+@Value
+public class Cape {
+    @NonNull CapeProvider provider;
+    /**
+     * The URL of the cape image
+     */
+    @NonNull String url;
+    /**
+     * The image as a PNG, for capes that Discord can't show by URL
+     */
+    @Getter(AccessLevel.NONE) @Nullable byte[] image;
+
+    /**
+     * @return Whether the image has to be uploaded instead of linked
+     */
+    public boolean requiresUpload() {
+        return image != null;
+    }
+    /**
+     * @return A new stream of the PNG image, or empty if the cape can be shown by URL
+     */
+    public Optional<InputStream> openImage() {
+        return Optional.ofNullable(image).map(ByteArrayInputStream::new);
+    }
+}
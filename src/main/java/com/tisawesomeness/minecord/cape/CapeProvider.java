@@ -0,0 +1,21 @@
+package com.tisawesomeness.minecord.cape;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A source of player capes, in the order capes are shown.
+ */
+@RequiredArgsConstructor
+public enum CapeProvider {
+    MINECRAFT("Minecraft"),
+    OPTIFINE("Optifine"),
+    LABYMOD("LabyMod"),
+    MINECRAFTCAPES("MinecraftCapes.co.uk");
+
+    /**
+     * The name shown to users
+     */
+    @Getter private final @NonNull String displayName;
+}
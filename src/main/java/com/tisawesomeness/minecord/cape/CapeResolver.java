@@ -0,0 +1,191 @@
+package com.tisawesomeness.minecord.cape;
+
+import com.tisawesomeness.minecord.util.NameUtils;
+import com.tisawesomeness.minecord.util.RequestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.io.ByteStreams;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Finds the capes a player has by asking every {@link CapeProvider} at once.
+ * <br>All providers share one deadline, so a lookup takes as long as the slowest provider, up to the deadline.
+ * <br>Results are cached for each player, including players with no capes.
+ * A result where a provider missed the deadline is not cached, so the next lookup asks again.
+ */
+public class CapeResolver {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(30);
+    private static final long DEFAULT_DEADLINE = TimeUnit.SECONDS.toMillis(5);
+    private static final int MAX_SIZE = 10_000;
+    private static final int DOWNLOAD_THREADS = 4;
+
+    private final Prober prober;
+    private final long deadline;
+    private final ExecutorService exe = Executors.newFixedThreadPool(DOWNLOAD_THREADS);
+    private final Cache<Key, Result> results = Caffeine.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .expireAfter(new ResultExpiry())
+            .build();
+
+    /**
+     * Creates a resolver that asks the real cape providers.
+     */
+    public CapeResolver() {
+        prober = this::probe;
+        deadline = DEFAULT_DEADLINE;
+    }
+    /**
+     * Creates a resolver.
+     * @param prober Asks a single provider for a cape
+     * @param deadline How long to wait for every provider, in milliseconds
+     */
+    CapeResolver(@NonNull Prober prober, long deadline) {
+        this.prober = prober;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Finds every cape a player has, blocking until all providers answer or the deadline passes.
+     * <br>Concurrent lookups for the same player wait for the same result.
+     * @param uuid The UUID of the player, with or without dashes
+     * @param name The name of the player, used by the providers that look up capes by name
+     * @return The capes in {@link CapeProvider} order, empty if the player has none
+     */
+    public @NonNull List<Cape> resolve(@NonNull String uuid, @NonNull String name) {
+        String id = uuid.replace("-", "").toLowerCase();
+        // Names are case-insensitive, but the providers get the name as it was typed
+        return results.get(new Key(id, name.toLowerCase()), ignore -> load(id, name)).getCapes();
+    }
+
+    private Result load(String uuid, String name) {
+        Map<CapeProvider, CompletableFuture<Optional<Cape>>> probes = new EnumMap<>(CapeProvider.class);
+        for (CapeProvider provider : CapeProvider.values()) {
+            probes.put(provider, prober.probe(provider, uuid, name));
+        }
+        CompletableFuture<?> all = CompletableFuture.allOf(probes.values().toArray(new CompletableFuture[0]));
+        try {
+            all.get(deadline, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignore) {
+            // Providers that finished in time are still shown
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Cape> capes = new ArrayList<>();
+        boolean complete = true;
+        for (CompletableFuture<Optional<Cape>> probe : probes.values()) {
+            if (probe.isDone() && !probe.isCompletedExceptionally()) {
+                probe.join().ifPresent(capes::add);
+            } else {
+                complete = false;
+                probe.cancel(false);
+            }
+        }
+        return new Result(Collections.unmodifiableList(capes), complete);
+    }
+
+    private CompletableFuture<Optional<Cape>> probe(CapeProvider provider, String uuid, String name) {
+        switch (provider) {
+            case MINECRAFT:
+                // Mojang capes don't show up on Crafatar
+                if (NameUtils.mojangUUIDs.contains(uuid)) {
+                    String mojangUrl = "https://minecord.github.io/capes/mojang.png";
+                    return CompletableFuture.completedFuture(Optional.of(new Cape(provider, mojangUrl, null)));
+                }
+                return check(provider, "https://crafatar.com/capes/" + uuid, false);
+            case OPTIFINE:
+                return check(provider, String.format("http://s.optifine.net/capes/%s.png", name), false);
+            case LABYMOD:
+                // LabyMod capes don't show in embeds, so the image is downloaded and uploaded instead
+                String url = String.format("http://capes.labymod.net/capes/%s", NameUtils.formatUUID(uuid));
+                return CompletableFuture.supplyAsync(() -> download(provider, url), exe);
+            case MINECRAFTCAPES:
+                String capesUrl = "https://www.minecraftcapes.co.uk/gallery/grab-player-capes/" + name;
+                return check(provider, capesUrl, true);
+            default:
+                throw new AssertionError("Unknown cape provider " + provider);
+        }
+    }
+    private static CompletableFuture<Optional<Cape>> check(CapeProvider provider, String url, boolean fakeUserAgent) {
+        return RequestUtils.checkURLAsync(url, fakeUserAgent)
+                .thenApply(exists -> exists ? Optional.of(new Cape(provider, url, null)) : Optional.empty());
+    }
+    private static Optional<Cape> download(CapeProvider provider, String url) {
+        try (InputStream is = RequestUtils.downloadImage(url)) {
+            return Optional.of(new Cape(provider, url, ByteStreams.toByteArray(is)));
+        } catch (IOException ignore) {
+            // A player without a LabyMod cape gets a 404
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stops the download threads.
+     */
+    public void close() {
+        exe.shutdown();
+    }
+
+    /**
+     * Asks a single cape provider for a player's cape.
+     */
+    @FunctionalInterface
+    interface Prober {
+        /**
+         * @param provider The provider to ask
+         * @param uuid The UUID of the player without dashes
+         * @param name The name of the player
+         * @return A future with the cape, or empty if the player doesn't have one from this provider
+         */
+        CompletableFuture<Optional<Cape>> probe(CapeProvider provider, String uuid, String name);
+    }
+
+    @Value
+    private static class Key {
+        @NonNull String uuid;
+        @NonNull String name;
+    }
+    @Value
+    private static class Result {
+        @NonNull List<Cape> capes;
+        /**
+         * Whether every provider answered before the deadline
+         */
+        boolean complete;
+    }
+
+    /**
+     * Expires incomplete results right away, so only the lookups waiting on them share them.
+     */
+    private static class ResultExpiry implements Expiry<Key, Result> {
+        public long expireAfterCreate(Key key, Result result, long currentTime) {
+            return result.isComplete() ? TTL : 0;
+        }
+        public long expireAfterUpdate(Key key, Result result, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, result, currentTime);
+        }
+        public long expireAfterRead(Key key, Result result, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
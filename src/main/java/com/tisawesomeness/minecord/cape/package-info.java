@@ -0,0 +1,5 @@
+/**
+ * This package finds the capes a player has across every cape provider.
+ * <br>Use {@link com.tisawesomeness.minecord.cape.CapeResolver} to look up capes.
+ */
+package com.tisawesomeness.minecord.cape;
@@ -0,0 +1,188 @@
+package com.tisawesomeness.minecord.command;
+
+import com.tisawesomeness.minecord.util.MessageUtils;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A view of the arguments in a message, backed by the raw message content.
+ * <br>Arguments are separated by any amount of whitespace, and an argument starting with {@code "}
+ * continues until the next {@code "}, so {@code "golden apple"} is a single argument.
+ * <br>The content is only tokenized once an argument is first requested.
+ * Slices are taken directly from the original content, keeping the original spacing and quotes,
+ * while joins put the arguments back together without quotes.
+ * <br>This class is not thread-safe.
+ */
+public final class ArgumentView {
+
+    private static final int[] EMPTY = new int[0];
+    // Each token takes 4 slots: raw start, raw end, value start, value end
+    private static final int SLOTS = 4;
+
+    private final @NonNull String content;
+    private final int start;
+    private int[] bounds;
+    private int size = -1;
+
+    /**
+     * Creates a view over the arguments of a message.
+     * @param content The raw message content
+     * @param start The index where the arguments start, usually right after the command name
+     */
+    public ArgumentView(@NonNull String content, int start) {
+        this.content = content;
+        this.start = Math.min(start, content.length());
+    }
+
+    /**
+     * @return The number of arguments
+     */
+    public int size() {
+        tokenize();
+        return size;
+    }
+    /**
+     * @return True if there are no arguments
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets a single argument, with surrounding quotes removed.
+     * @param index The index of the argument
+     * @return The argument
+     * @throws IndexOutOfBoundsException If the index is negative or at least {@link #size()}
+     */
+    public @NonNull String get(int index) {
+        checkIndex(index);
+        return content.substring(bounds[index * SLOTS + 2], bounds[index * SLOTS + 3]);
+    }
+
+    /**
+     * Gets the original text from the argument at {@code beginIndex} to the end of the message.
+     * @param beginIndex The positive starting index
+     * @return The original text, or empty if {@code beginIndex >= size()}
+     */
+    public @NonNull String slice(int beginIndex) {
+        return slice(beginIndex, size());
+    }
+    /**
+     * Gets the original text from the argument at {@code beginIndex} to the argument at {@code endIndex - 1}.
+     * @param beginIndex The positive starting index
+     * @param endIndex The ending index, must be greater than or equal to {@code beginIndex}, may be out of bounds
+     * @return The original text, or empty if {@code beginIndex >= size()}
+     */
+    public @NonNull String slice(int beginIndex, int endIndex) {
+        int end = clampEnd(beginIndex, endIndex);
+        if (beginIndex >= end) {
+            return "";
+        }
+        return content.substring(bounds[beginIndex * SLOTS], bounds[(end - 1) * SLOTS + 1]);
+    }
+
+    /**
+     * Joins the arguments from {@code beginIndex} to the end of the message with single spaces.
+     * @param beginIndex The positive starting index
+     * @return The arguments with surrounding quotes removed, or empty if {@code beginIndex >= size()}
+     */
+    public @NonNull String join(int beginIndex) {
+        return join(beginIndex, size());
+    }
+    /**
+     * Joins the arguments from {@code beginIndex} to {@code endIndex - 1} with single spaces.
+     * @param beginIndex The positive starting index
+     * @param endIndex The ending index, must be greater than or equal to {@code beginIndex}, may be out of bounds
+     * @return The arguments with surrounding quotes removed, or empty if {@code beginIndex >= size()}
+     */
+    public @NonNull String join(int beginIndex, int endIndex) {
+        int end = clampEnd(beginIndex, endIndex);
+        if (beginIndex >= end) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(bounds[(end - 1) * SLOTS + 1] - bounds[beginIndex * SLOTS]);
+        for (int i = beginIndex; i < end; i++) {
+            if (i > beginIndex) {
+                sb.append(' ');
+            }
+            sb.append(content, bounds[i * SLOTS + 2], bounds[i * SLOTS + 3]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copies every argument into a new array.
+     * @return An array of arguments with surrounding quotes removed, possibly length 0
+     */
+    public @NonNull String[] toArray() {
+        String[] args = new String[size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = get(i);
+        }
+        return args;
+    }
+
+    private int clampEnd(int beginIndex, int endIndex) {
+        if (beginIndex < 0 || endIndex < beginIndex) {
+            throw new IndexOutOfBoundsException(String.format("Invalid slice [%d, %d)", beginIndex, endIndex));
+        }
+        return Math.min(endIndex, size());
+    }
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for %d arguments", index, size));
+        }
+    }
+
+    private void tokenize() {
+        if (size != -1) {
+            return;
+        }
+        bounds = EMPTY;
+        size = 0;
+        int len = content.length();
+        int i = start;
+        while (true) {
+            while (i < len && MessageUtils.isSeparator(content.charAt(i))) {
+                i++;
+            }
+            if (i >= len) {
+                return;
+            }
+            if (content.charAt(i) == '"') {
+                int close = content.indexOf('"', i + 1);
+                if (close != -1) {
+                    add(i, close + 1, i + 1, close);
+                    i = close + 1;
+                    continue;
+                }
+                // An unclosed quote is treated as a normal character
+            }
+            int j = i;
+            while (j < len && !MessageUtils.isSeparator(content.charAt(j))) {
+                j++;
+            }
+            add(i, j, i, j);
+            i = j;
+        }
+    }
+    private void add(int rawStart, int rawEnd, int valueStart, int valueEnd) {
+        int pos = size * SLOTS;
+        if (pos + SLOTS > bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(SLOTS * 4, bounds.length * 2));
+        }
+        bounds[pos] = rawStart;
+        bounds[pos + 1] = rawEnd;
+        bounds[pos + 2] = valueStart;
+        bounds[pos + 3] = valueEnd;
+        size++;
+    }
+
+    @Override
+    public String toString() {
+        return slice(0);
+    }
+
+}
@@ -53,11 +53,11 @@ public abstract class Command {
 
     /**
      * This method is called when the command is run.
-     * @param args An array of command arguments separated by spaces
+     * <br>Arguments are read from {@link CommandContext#getArgs()} or {@link CommandContext#arguments}.
      * @param ctx The message-specific context
      * @return The Result of the command
      */
-    public abstract Result run(String[] args, CommandContext ctx);
+    public abstract Result run(CommandContext ctx);
 
     /**
      * Gets the display name of this command, or how it should be displayed to the user. Defaults to the id.
@@ -5,6 +5,7 @@ import com.tisawesomeness.minecord.Lang;
 import com.tisawesomeness.minecord.command.misc.HelpCommand;
 import com.tisawesomeness.minecord.config.serial.Config;
 import com.tisawesomeness.minecord.database.DatabaseCache;
+import com.tisawesomeness.minecord.database.ProfileCache;
 import com.tisawesomeness.minecord.database.dao.DbChannel;
 import com.tisawesomeness.minecord.database.dao.DbGuild;
 import com.tisawesomeness.minecord.database.dao.DbUser;
@@ -23,12 +24,10 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.text.MessageFormat;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Stores the information available to every command
@@ -36,9 +35,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CommandContext {
     /**
-     * The arguments given to the command, split by spaces. May be length 0.
+     * The arguments given to the command, viewed directly from the message content.
+     * <br>Use {@link ArgumentView#join(int)} or {@link ArgumentView#slice(int)} instead of re-joining
+     * {@link #getArgs()}.
      */
-    public final @NonNull String[] args;
+    public final @NonNull ArgumentView arguments;
     /**
      * The event that triggered the command.
      */
@@ -78,11 +79,13 @@ public class CommandContext {
     public final @NonNull Locale locale;
     // These settings are only used occasionally, it's best to pass the setting and evaluate when needed
     private final @NonNull UseMenusSetting useMenusSetting;
+    // Copied from the arguments on first use, since many commands never read them
+    private String[] args;
 
-    public CommandContext(@NonNull String[] args, @NonNull MessageReceivedEvent e, @NonNull Config config,
+    public CommandContext(@NonNull ArgumentView arguments, @NonNull MessageReceivedEvent e, @NonNull Config config,
                           @NonNull Bot bot, @NonNull Command cmd, @NonNull CommandExecutor executor, boolean isElevated,
                           @NonNull String prefix, @NonNull Lang lang) {
-        this.args = args;
+        this.arguments = arguments;
         this.e = e;
         this.config = config;
         this.bot = bot;
@@ -96,33 +99,42 @@ public class CommandContext {
     }
 
     /**
-     * Equivalent to {@code String.join(" ", ctx.args)}
-     * @return All arguments as a single string
+     * Gets the arguments given to the command, split by whitespace.
+     * <br>Quoted arguments like {@code "golden apple"} count as one argument, with the quotes removed.
+     * <br>The message is only tokenized the first time this is called.
+     * @return The arguments, which may be length 0
+     */
+    public @NonNull String[] getArgs() {
+        if (args == null) {
+            args = arguments.toArray();
+        }
+        return args;
+    }
+
+    /**
+     * Joins all arguments with single spaces.
+     * <br>Shortcut for {@link #arguments}.{@link ArgumentView#join(int) join(0)}
+     * @return All arguments as a single string, with quotes removed
      */
     public String joinArgs() {
-        return String.join(" ", args);
+        return arguments.join(0);
     }
     /**
-     * Creates a string with arguments from {@code beginIndex} to the end of the array.
+     * Joins the arguments from {@code beginIndex} to the end of the message with single spaces.
      * @param beginIndex The positive starting index
-     * @return A string with joined arguments, or empty if {@code beginIndex >= ctx.args.length}.
+     * @return A string with the arguments and quotes removed, or empty if {@code beginIndex >= arguments.size()}.
      */
     public String joinArgsSlice(int beginIndex) {
-        return Arrays.stream(args)
-                .skip(beginIndex)
-                .collect(Collectors.joining(" "));
+        return arguments.join(beginIndex);
     }
     /**
-     * Creates a string with arguments from {@code beginIndex} to {@code endIndex - 1}.
+     * Joins the arguments from {@code beginIndex} to {@code endIndex - 1} with single spaces.
      * @param beginIndex The positive starting index
      * @param endIndex The ending index, must be greater than or equal to {@code beginIndex}, may be out of bounds
-     * @return A string with joined arguments, or empty if {@code beginIndex >= ctx.args.length}.
+     * @return A string with the arguments and quotes removed, or empty if {@code beginIndex >= arguments.size()}.
      */
     public String joinArgsSlice(int beginIndex, int endIndex) {
-        return Arrays.stream(args)
-                .skip(beginIndex)
-                .limit(endIndex - beginIndex)
-                .collect(Collectors.joining(" "));
+        return arguments.join(beginIndex, endIndex);
     }
 
     /**
@@ -133,6 +145,14 @@ public class CommandContext {
         return bot.getDatabaseCache();
     }
 
+    /**
+     * Shortcut for {@link #bot}.{@link Bot#getProfileCache() getProfileCache()}
+     * @return The cache for Mojang profile lookups
+     */
+    public ProfileCache getProfileCache() {
+        return bot.getProfileCache();
+    }
+
     /**
      * Gets a guild from the backend
      * @param gid The guild id
@@ -3,17 +3,21 @@ package com.tisawesomeness.minecord.command;
 import com.tisawesomeness.minecord.Lang;
 import com.tisawesomeness.minecord.config.serial.CommandConfig;
 import com.tisawesomeness.minecord.config.serial.Config;
+import com.tisawesomeness.minecord.config.serial.ExecutorConfig;
 import com.tisawesomeness.minecord.config.serial.FlagConfig;
-import com.tisawesomeness.minecord.database.dao.CommandStats;
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
+import com.tisawesomeness.minecord.database.store.CommandStatsStore;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.base.Functions;
 import com.google.common.collect.ConcurrentHashMultiset;
-import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multisets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Getter;
 import lombok.NonNull;
 import net.dv8tion.jda.api.Permission;
@@ -25,34 +29,51 @@ import net.dv8tion.jda.api.utils.MarkdownUtil;
 
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Runs commands and keep track of the output.
+ * <br>Each module has its own bounded thread pool, so a slow command can never block the JDA event threads
+ * or commands in other modules.
  */
 public class CommandExecutor {
 
     private final CommandConfig cc;
     private final FlagConfig fc;
-    @Getter private final CommandStats commandStats;
+    private final ExecutorConfig ec;
+    private final Map<Module, ExecutorService> pools;
+    private final Map<Module, FairScheduler> schedulers;
+    private final ScheduledThreadPoolExecutor timeoutExe;
+    @Getter private final CommandStatsStore commandStats;
     private final Map<String, Cache<Long, Long>> cooldownMap;
     private final Map<Command, Multiset<Result>> results;
     private final Multiset<String> unpushedUses = ConcurrentHashMultiset.create();
+    private final Multiset<UsageKey> unpushedHistory = ConcurrentHashMultiset.create();
 
     /**
      * Creates a new command executor, initializing a cache for each command.
      * @param cr The registry containing all commands
      * @param config The configuration options
      */
-    public CommandExecutor(@NonNull CommandRegistry cr, @NonNull CommandStats commandStats, @NonNull Config config) {
+    public CommandExecutor(@NonNull CommandRegistry cr, @NonNull CommandStatsStore commandStats,
+                           @NonNull Config config) {
         cc = config.getCommandConfig();
         fc = config.getFlagConfig();
+        ec = config.getExecutorConfig();
         this.commandStats = commandStats;
         Caffeine<Object, Object> builder = Caffeine.newBuilder()
                 .expireAfterWrite(30L, TimeUnit.SECONDS)
@@ -71,19 +92,74 @@ public class CommandExecutor {
         results = cr.stream()
                 .collect(Collectors.toMap(
                         Function.identity(),
-                        c -> EnumMultiset.create(Result.class)
+                        c -> ConcurrentHashMultiset.create()
                 ));
+        pools = new EnumMap<>(Module.class);
+        schedulers = new EnumMap<>(Module.class);
+        for (Module m : Module.values()) {
+            if (!cr.getCommandsInModule(m).isEmpty()) {
+                ExecutorService pool = buildPool(m);
+                pools.put(m, pool);
+                schedulers.put(m, new FairScheduler(pool, ec.getThreads(m), ec.getQueueSize(), ec.getKeyConcurrency()));
+            }
+        }
+        timeoutExe = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("command-timeout-%d")
+                .setDaemon(true)
+                .build());
+        timeoutExe.setRemoveOnCancelPolicy(true);
+    }
+    private ExecutorService buildPool(Module m) {
+        int threads = ec.getThreads(m);
+        // The scheduler bounds the queue and never hands out more tasks than there are threads
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("command-" + m.getId() + "-%d")
+                        .setDaemon(true)
+                        .build());
     }
 
     /**
-     * Runs the given command with this executor.
+     * Queues the given command to be run on its module's thread pool.
+     * <br>Commands are scheduled fairly between guilds (and users in DMs) by a {@link FairScheduler}.
+     * <br>If the module's queue is full, the user is told the bot is busy.
+     * If the command runs past the configured timeout, it is interrupted.
      * @param c The command
      * @param ctx The context of the command
      */
     public void run(Command c, CommandContext ctx) {
-        Result result = runCommand(c, ctx);
         unpushedUses.add(c.getId());
+        FairScheduler scheduler = schedulers.get(c.getModule());
+        MessageReceivedEvent e = ctx.e;
+        try {
+            if (e.isFromGuild()) {
+                long gid = e.getGuild().getIdLong();
+                scheduler.submit(gid, ec.getGuildWeight(gid), () -> runWithTimeout(c, ctx));
+            } else {
+                scheduler.submit(e.getAuthor().getIdLong(), ec.getDmWeight(), () -> runWithTimeout(c, ctx));
+            }
+        } catch (RejectedExecutionException ignore) {
+            recordResult(c, ctx.sendResult(Result.BUSY, "The bot is busy right now, try again in a few seconds."));
+        }
+    }
+    private void runWithTimeout(Command c, CommandContext ctx) {
+        Run run = new Run();
+        ScheduledFuture<?> timeout = timeoutExe.schedule(() -> {
+            if (run.timeOut()) {
+                recordResult(c, ctx.sendResult(Result.TIMEOUT, "The command took too long and was cancelled."));
+            }
+        }, ec.getTimeout(), TimeUnit.MILLISECONDS);
+        Result result = runCommand(c, ctx);
+        if (run.finish()) {
+            timeout.cancel(false);
+            recordResult(c, result);
+        }
+    }
+    private void recordResult(Command c, Result result) {
         results.get(c).add(result);
+        long minute = UsageResolution.MINUTE.floor(System.currentTimeMillis() / 1000);
+        unpushedHistory.add(new UsageKey(c.getId(), result.name(), minute));
     }
     private Result runCommand(Command c, CommandContext ctx) {
         return processGuildOnly(c, ctx);
@@ -167,7 +243,7 @@ public class CommandExecutor {
 
     private static Result tryToRun(Command c, CommandContext ctx) {
         try {
-            return c.run(ctx.args, ctx);
+            return c.run(ctx);
         } catch (Exception ex) {
             handle(ex, ctx);
         }
@@ -231,17 +307,128 @@ public class CommandExecutor {
     }
 
     /**
-     * Records all command uses since the last push to the database.
+     * Takes over the cooldowns, result counts, and unpushed uses of the executor being replaced by a reload,
+     * so reloading does not reset cooldowns or stats.
+     * <br>Cooldowns are kept for every cooldown pool that still exists,
+     * and result counts for every command that still exists.
+     * This should be called before this executor runs any commands.
+     * @param old The executor being replaced, which should already be shut down and terminated
      */
-    public void pushUses() {
+    public void inherit(@NonNull CommandExecutor old) {
+        for (Map.Entry<String, Cache<Long, Long>> en : cooldownMap.entrySet()) {
+            Cache<Long, Long> oldCooldowns = old.cooldownMap.get(en.getKey());
+            if (oldCooldowns != null) {
+                en.getValue().putAll(oldCooldowns.asMap());
+            }
+        }
+        Map<String, Multiset<Result>> oldResults = old.results.entrySet().stream()
+                .collect(Collectors.toMap(en -> en.getKey().getId(), Map.Entry::getValue));
+        // Shared instead of copied, so commands still finishing on the old executor are counted
+        results.replaceAll((c, multiset) -> oldResults.getOrDefault(c.getId(), multiset));
+        moveAll(old.unpushedUses, unpushedUses);
+        moveAll(old.unpushedHistory, unpushedHistory);
+    }
+    private static <T> void moveAll(Multiset<T> from, Multiset<T> to) {
+        Multiset<T> moved = ImmutableMultiset.copyOf(from);
+        for (Multiset.Entry<T> en : moved.entrySet()) {
+            to.add(en.getElement(), en.getCount());
+        }
+        Multisets.removeOccurrences(from, moved);
+    }
+
+    /**
+     * Records all command uses and results since the last push to the database.
+     * <br>Pushes are serialized, so two callers never push the same uses twice.
+     */
+    public synchronized void pushUses() {
+        // Commands can run while pushing, so only remove what was pushed
+        Multiset<String> uses = ImmutableMultiset.copyOf(unpushedUses);
         try {
-            commandStats.pushCommandUses(unpushedUses);
-            unpushedUses.clear();
+            commandStats.pushCommandUses(uses);
+            Multisets.removeOccurrences(unpushedUses, uses);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        Multiset<UsageKey> history = ImmutableMultiset.copyOf(unpushedHistory);
+        try {
+            commandStats.pushUsageHistory(history);
+            Multisets.removeOccurrences(unpushedHistory, history);
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
     }
 
+    /**
+     * Rolls up old command usage history into larger buckets, using the retention times from the config.
+     */
+    public void rollupUsageHistory() {
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            commandStats.rollupUsageHistory(now,
+                    TimeUnit.HOURS.toSeconds(cc.getUsageMinuteRetention()),
+                    TimeUnit.DAYS.toSeconds(cc.getUsageHourRetention()),
+                    TimeUnit.DAYS.toSeconds(cc.getUsageDayRetention()));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops accepting new commands.
+     * <br>Commands that are already queued or running are allowed to finish, and their timeouts still apply.
+     * Each module's pool is shut down once its queue drains, and the timeout thread once every pool has.
+     */
+    public void shutdown() {
+        AtomicInteger remaining = new AtomicInteger(schedulers.size());
+        if (schedulers.isEmpty()) {
+            timeoutExe.shutdown();
+        }
+        for (Map.Entry<Module, FairScheduler> en : schedulers.entrySet()) {
+            ExecutorService pool = pools.get(en.getKey());
+            en.getValue().shutdown(() -> {
+                pool.shutdown();
+                // Every module has finished its last command, so nothing can schedule another timeout
+                if (remaining.decrementAndGet() == 0) {
+                    timeoutExe.shutdown();
+                }
+            });
+        }
+    }
+    /**
+     * Waits for all queued and running commands to finish after a {@link #shutdown()}.
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return True if every command finished, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService pool : pools.values()) {
+            // Pools are only shut down once their queue drains, so this also waits for queued commands
+            if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a string showing the running and queued commands for each module's scheduler.
+     * @param module The module ID to show, or empty for all modules
+     * @return A debug string
+     */
+    public String debugSchedulers(String module) {
+        return schedulers.entrySet().stream()
+                .filter(en -> module.isEmpty() || en.getKey().getId().equalsIgnoreCase(module))
+                .map(en -> formatScheduler(en.getKey(), en.getValue()))
+                .collect(Collectors.joining("\n"));
+    }
+    private String formatScheduler(Module m, FairScheduler s) {
+        return String.format("**%s**: Running `%d/%d` | Queued `%d/%d` | Keys `%d` | Max Depth `%d` | Rejected `%d`",
+                m.getId(), s.getRunning(), ec.getThreads(m), s.getQueued(), ec.getQueueSize(),
+                s.getActiveKeys(), s.getMaxKeyDepth(), s.getRejected());
+    }
+
     /**
      * Gets the combined stats of all cooldown caches.
      * @return A possibly-empty CacheStats
@@ -261,6 +448,43 @@ public class CommandExecutor {
         return Optional.ofNullable(cooldownMap.get(pool)).map(Cache::stats);
     }
 
+    /**
+     * A single command run, claimed by whichever of the command or the timeout finishes first,
+     * so only one result is recorded.
+     * <br>The timeout interrupts the worker while holding the lock, and the worker clears any interrupt
+     * under the same lock before it returns, so an interrupt can never leak into the next command on that thread.
+     */
+    private static class Run {
+        private final Thread worker = Thread.currentThread();
+        private boolean finished;
+
+        /**
+         * Claims the run for the timeout and interrupts the worker.
+         * @return False if the command already finished
+         */
+        private synchronized boolean timeOut() {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            worker.interrupt();
+            return true;
+        }
+        /**
+         * Claims the run for the command, must be called by the worker.
+         * @return False if the command already timed out
+         */
+        private synchronized boolean finish() {
+            if (finished) {
+                // The timeout's interrupt was meant for this command only
+                Thread.interrupted();
+                return false;
+            }
+            finished = true;
+            return true;
+        }
+    }
+
     /**
      * Builds a string showing each pool and it's estimated cache size
      * @return A debug string
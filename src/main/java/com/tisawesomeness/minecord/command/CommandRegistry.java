@@ -59,8 +59,11 @@ import com.google.common.collect.Table;
 import lombok.NonNull;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -71,6 +74,7 @@ public class CommandRegistry implements Iterable<Command> {
 
     private final Multimap<Module, Command> moduleToCommandsMap;
     private final Table<Lang, String, Command> commandTable;
+    private final Map<Lang, CommandTrie> commandTries;
 
     /**
      * Adds every module to the registry and maps the possible aliases to the command to execute.
@@ -152,6 +156,7 @@ public class CommandRegistry implements Iterable<Command> {
 
         moduleToCommandsMap = buildModuleToCommandsMap(commands, cc);
         commandTable = buildCommandTable(cc);
+        commandTries = buildCommandTries(commandTable);
     }
 
     private static Multimap<Module, Command> buildModuleToCommandsMap(Command[] commands, CommandConfig cc) {
@@ -172,6 +177,13 @@ public class CommandRegistry implements Iterable<Command> {
         }
         return ImmutableTable.copyOf(table);
     }
+    private static Map<Lang, CommandTrie> buildCommandTries(Table<Lang, String, Command> table) {
+        Map<Lang, CommandTrie> tries = new EnumMap<>(Lang.class);
+        for (Lang lang : Lang.values()) {
+            tries.put(lang, new CommandTrie(table.row(lang)));
+        }
+        return Collections.unmodifiableMap(tries);
+    }
     private static void registerNameAndAliases(Table<? super Lang, ? super String, ? super Command> table, Command c) {
         for (Lang lang : Lang.values()) {
             Collection<String> possibleInputs = new HashSet<>();
@@ -192,6 +204,16 @@ public class CommandRegistry implements Iterable<Command> {
     public Optional<Command> getCommand(String name, Lang lang) {
         return Optional.ofNullable(commandTable.get(lang, name));
     }
+    /**
+     * Gets a command from the name or alias starting at {@code start}, without creating any substrings.
+     * @param content The message content
+     * @param start The index where the command name starts, such as right after the prefix
+     * @param lang The lang used to look up aliases
+     * @return The command which should be executed, or empty if the word at {@code start} is not a command
+     */
+    public Optional<Command> findCommand(CharSequence content, int start, Lang lang) {
+        return Optional.ofNullable(commandTries.get(lang).find(content, start));
+    }
     /**
      * Gets all registered commands that are in the given module.
      * @param module The module
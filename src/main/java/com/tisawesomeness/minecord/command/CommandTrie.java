@@ -0,0 +1,94 @@
+package com.tisawesomeness.minecord.command;
+
+import com.tisawesomeness.minecord.util.MessageUtils;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable prefix tree mapping command names and aliases to commands.
+ * <br>Used to find out if a message contains a command without allocating any strings,
+ * since almost every message the bot reads is not a command.
+ */
+public final class CommandTrie {
+
+    private final Node root;
+
+    /**
+     * Builds a trie from every name a command can be typed as.
+     * @param names A map of (case-sensitive) names to commands
+     */
+    public CommandTrie(@NonNull Map<String, Command> names) {
+        Builder rootBuilder = new Builder();
+        for (Map.Entry<String, Command> en : names.entrySet()) {
+            Builder b = rootBuilder;
+            for (char c : en.getKey().toCharArray()) {
+                b = b.children.computeIfAbsent(c, ignore -> new Builder());
+            }
+            b.command = en.getValue();
+        }
+        root = rootBuilder.build();
+    }
+
+    /**
+     * Looks up the command whose name is the word starting at {@code start}.
+     * <br>The word ends at the first separator (see {@link MessageUtils#isSeparator(char)}) or the end of the string.
+     * @param content The string to search
+     * @param start The index of the first character in the command name
+     * @return The command, or null if the word is not a command name
+     */
+    public @Nullable Command find(@NonNull CharSequence content, int start) {
+        Node node = root;
+        for (int i = start; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (MessageUtils.isSeparator(c)) {
+                break;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.command;
+    }
+
+    private static class Node {
+        // Sorted so children can be binary searched
+        private final char[] keys;
+        private final Node[] children;
+        private final @Nullable Command command;
+
+        private Node(char[] keys, Node[] children, @Nullable Command command) {
+            this.keys = keys;
+            this.children = children;
+            this.command = command;
+        }
+
+        private @Nullable Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    private static class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private @Nullable Command command;
+
+        private Node build() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> en : children.entrySet()) {
+                keys[i] = en.getKey();
+                nodes[i] = en.getValue().build();
+                i++;
+            }
+            return new Node(keys, nodes, command);
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.tisawesomeness.minecord.command;
+
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hands out tasks to an executor fairly, using weighted round-robin between keys.
+ * <br>Each key (a guild, or a user in DMs) has its own queue, and a key can only run a limited number
+ * of tasks at once, so one busy guild cannot starve everyone else.
+ * <br>Tasks are only passed to the executor when it has a free thread,
+ * so the executor's own queue never reorders them.
+ */
+public class FairScheduler {
+
+    private final @NonNull Executor executor;
+    private final int maxRunning;
+    private final int maxQueued;
+    private final int keyConcurrency;
+
+    private final Map<Long, KeyQueue> queues = new HashMap<>();
+    private final Deque<KeyQueue> ready = new ArrayDeque<>();
+    private int running;
+    private int queued;
+    private long rejected;
+    private boolean shutdown;
+    private Runnable onTerminated;
+
+    /**
+     * Creates a new scheduler.
+     * @param executor The executor that runs dispatched tasks
+     * @param maxRunning The number of tasks that can run at once, usually the number of executor threads
+     * @param maxQueued The number of tasks that can wait across all keys before new tasks are rejected
+     * @param keyConcurrency The number of tasks a single key can run at once
+     */
+    public FairScheduler(@NonNull Executor executor, int maxRunning, int maxQueued, int keyConcurrency) {
+        if (maxRunning <= 0 || maxQueued <= 0 || keyConcurrency <= 0) {
+            throw new IllegalArgumentException("All scheduler limits must be positive.");
+        }
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+        this.keyConcurrency = keyConcurrency;
+    }
+
+    /**
+     * Queues a task to be run once it is the key's turn.
+     * @param key The guild ID, or user ID for DMs
+     * @param weight The number of tasks the key may dispatch each round, must be positive
+     * @param task The task to run
+     * @throws RejectedExecutionException If the queue is full or the scheduler was shut down
+     */
+    public synchronized void submit(long key, int weight, @NonNull Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The scheduler was shut down.");
+        }
+        if (queued >= maxQueued) {
+            rejected++;
+            throw new RejectedExecutionException("The scheduler queue is full.");
+        }
+        KeyQueue kq = queues.computeIfAbsent(key, KeyQueue::new);
+        kq.weight = Math.max(1, weight);
+        kq.tasks.add(task);
+        queued++;
+        if (!kq.inReady && kq.running < keyConcurrency) {
+            markReady(kq);
+        }
+        dispatch();
+    }
+
+    // Must hold lock
+    private void dispatch() {
+        while (running < maxRunning && !ready.isEmpty()) {
+            KeyQueue kq = ready.peekFirst();
+            Runnable task = kq.tasks.poll();
+            queued--;
+            kq.running++;
+            running++;
+            kq.credit--;
+            if (kq.tasks.isEmpty() || kq.running >= keyConcurrency) {
+                ready.pollFirst();
+                kq.inReady = false;
+            } else if (kq.credit <= 0) {
+                // Used up its turn, go to the back of the line
+                ready.pollFirst();
+                kq.credit = kq.weight;
+                ready.addLast(kq);
+            }
+            try {
+                executor.execute(() -> runTask(kq, task));
+            } catch (RejectedExecutionException ex) {
+                // The executor should outlive the scheduler, so this task can never run
+                ex.printStackTrace();
+                rejected++;
+                kq.running--;
+                running--;
+                removeIfIdle(kq);
+            }
+        }
+    }
+    private void runTask(KeyQueue kq, Runnable task) {
+        try {
+            task.run();
+        } finally {
+            complete(kq);
+        }
+    }
+    private synchronized void complete(KeyQueue kq) {
+        kq.running--;
+        running--;
+        if (!kq.inReady && !kq.tasks.isEmpty() && kq.running < keyConcurrency) {
+            markReady(kq);
+        } else {
+            removeIfIdle(kq);
+        }
+        dispatch();
+        checkTerminated();
+    }
+    private void removeIfIdle(KeyQueue kq) {
+        if (kq.tasks.isEmpty() && kq.running == 0) {
+            queues.remove(kq.key);
+        }
+    }
+    private void markReady(KeyQueue kq) {
+        kq.inReady = true;
+        kq.credit = kq.weight;
+        ready.addLast(kq);
+    }
+
+    /**
+     * Stops accepting new tasks, while tasks that are already queued or running are allowed to finish.
+     * <br>The executor is still used until then, so it should only be shut down from {@code onTerminated}.
+     * @param onTerminated Run once every task has finished, either immediately or on the thread of the last task
+     */
+    public synchronized void shutdown(@NonNull Runnable onTerminated) {
+        if (shutdown) {
+            throw new IllegalStateException("The scheduler was already shut down.");
+        }
+        shutdown = true;
+        this.onTerminated = onTerminated;
+        checkTerminated();
+    }
+    // Must hold lock
+    private void checkTerminated() {
+        if (onTerminated != null && running == 0 && queued == 0) {
+            Runnable callback = onTerminated;
+            onTerminated = null;
+            callback.run();
+        }
+    }
+
+    /**
+     * @return The number of tasks currently running
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+    /**
+     * @return The number of tasks waiting to run across all keys
+     */
+    public synchronized int getQueued() {
+        return queued;
+    }
+    /**
+     * @return The number of keys with queued or running tasks
+     */
+    public synchronized int getActiveKeys() {
+        return queues.size();
+    }
+    /**
+     * @return The length of the longest queue for a single key
+     */
+    public synchronized int getMaxKeyDepth() {
+        return queues.values().stream()
+                .mapToInt(kq -> kq.tasks.size())
+                .max()
+                .orElse(0);
+    }
+    /**
+     * @return The number of tasks rejected because the queue was full or the executor refused them
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private static class KeyQueue {
+        private final long key;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private int running;
+        private int weight = 1;
+        private int credit;
+        private boolean inReady;
+
+        private KeyQueue(long key) {
+            this.key = key;
+        }
+    }
+
+}
@@ -25,6 +25,10 @@ public enum Result {
      * The command is on cooldown
      */
     COOLDOWN("Cooldown", ":ice_cube:"),
+    /**
+     * The bot has too many commands queued and could not run the command
+     */
+    BUSY("Busy", ":hourglass:"),
     /**
      * User is not elevated but tried to do something that requires elevation
      */
@@ -53,6 +57,10 @@ public enum Result {
      * An external service did something wrong out of our control
      */
     ERROR("Error", ":x:"),
+    /**
+     * Command took too long and was cancelled
+     */
+    TIMEOUT("Timeout", ":alarm_clock:"),
     /**
      * Command threw an exception, should never be seen
      */
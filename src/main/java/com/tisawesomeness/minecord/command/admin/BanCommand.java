@@ -21,7 +21,8 @@ public class BanCommand extends AbstractAdminCommand {
         return "ban";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         //Check for proper argument length
         if (args.length < 1) {
@@ -4,16 +4,25 @@ import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.CommandExecutor;
 import com.tisawesomeness.minecord.command.Result;
 import com.tisawesomeness.minecord.database.DatabaseCache;
+import com.tisawesomeness.minecord.database.ProfileCache;
 import com.tisawesomeness.minecord.debug.ChannelCacheDebugOption;
+import com.tisawesomeness.minecord.debug.ChannelListCacheDebugOption;
 import com.tisawesomeness.minecord.debug.CooldownCacheDebugOption;
 import com.tisawesomeness.minecord.debug.DebugOption;
 import com.tisawesomeness.minecord.debug.GuildCacheDebugOption;
+import com.tisawesomeness.minecord.debug.IdSetDebugOption;
 import com.tisawesomeness.minecord.debug.ItemDebugOption;
 import com.tisawesomeness.minecord.debug.JDADebugOption;
+import com.tisawesomeness.minecord.debug.NameHistoryCacheDebugOption;
 import com.tisawesomeness.minecord.debug.PoolsDebugOption;
 import com.tisawesomeness.minecord.debug.RegionDebugOption;
+import com.tisawesomeness.minecord.debug.RequestDebugOption;
+import com.tisawesomeness.minecord.debug.SchedulerDebugOption;
+import com.tisawesomeness.minecord.debug.ServerCacheDebugOption;
+import com.tisawesomeness.minecord.debug.SettingsCacheDebugOption;
 import com.tisawesomeness.minecord.debug.ThreadDebugOption;
 import com.tisawesomeness.minecord.debug.UserCacheDebugOption;
+import com.tisawesomeness.minecord.debug.UuidCacheDebugOption;
 import com.tisawesomeness.minecord.util.MessageUtils;
 
 import lombok.NonNull;
@@ -33,7 +42,8 @@ public class DebugCommand extends AbstractAdminCommand {
         return "debug";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         if (!ctx.config.getFlagConfig().isDebugMode()) {
             return ctx.warn("The bot is not in debug mode.");
         }
@@ -65,22 +75,31 @@ public class DebugCommand extends AbstractAdminCommand {
     private static List<DebugOption> buildDebugOptionList(CommandContext ctx) {
         ShardManager sm = ctx.bot.getShardManager();
         DatabaseCache dbCache = ctx.bot.getDatabaseCache();
+        ProfileCache profileCache = ctx.bot.getProfileCache();
         CommandExecutor executor = ctx.executor;
         return Arrays.asList(
                 new JDADebugOption(sm),
                 new ThreadDebugOption(),
                 new RegionDebugOption(sm),
                 new ItemDebugOption(),
+                new RequestDebugOption(),
                 new PoolsDebugOption(executor),
                 new CooldownCacheDebugOption(executor),
+                new SchedulerDebugOption(executor),
                 new GuildCacheDebugOption(dbCache),
                 new ChannelCacheDebugOption(dbCache),
-                new UserCacheDebugOption(dbCache)
+                new UserCacheDebugOption(dbCache),
+                new SettingsCacheDebugOption(dbCache),
+                new ChannelListCacheDebugOption(dbCache),
+                new IdSetDebugOption(dbCache),
+                new UuidCacheDebugOption(profileCache),
+                new NameHistoryCacheDebugOption(profileCache),
+                new ServerCacheDebugOption(ctx.bot.getServerStatusCache())
         );
     }
 
     private static void sendDebugInfo(CommandContext ctx, DebugOption d) {
-        String[] args = ctx.args;
+        String[] args = ctx.getArgs();
         String extra = args.length > 1 ? args[1] : "";
         String debugInfo = d.debug(extra);
         printToConsole(debugInfo, ctx.e.getAuthor());
@@ -16,7 +16,8 @@ public class DemoteCommand extends AbstractAdminCommand {
         return "demote";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         if (args.length == 0) {
             return ctx.showHelp();
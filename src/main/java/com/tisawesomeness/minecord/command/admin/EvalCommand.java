@@ -40,11 +40,11 @@ public class EvalCommand extends AbstractAdminCommand {
         return "eval";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         MessageReceivedEvent e = ctx.e;
 
         // Parse args
-        if (args.length == 0) {
+        if (ctx.arguments.isEmpty()) {
             return ctx.showHelp();
         }
 
@@ -70,7 +70,8 @@ public class EvalCommand extends AbstractAdminCommand {
         engine.put("help", help);
 
         // Extract code from message
-        String code = ctx.joinArgs();
+        // Quotes are part of the code
+        String code = ctx.arguments.slice(0);
 
         // Evaluate code, and catch errors
         Object output = null;
@@ -17,7 +17,8 @@ public class MsgCommand extends AbstractAdminCommand {
         return "msg";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         //Check for proper argument length
         if (args.length < 2) {
             return ctx.showHelp();
@@ -33,7 +34,7 @@ public class MsgCommand extends AbstractAdminCommand {
         String msg = null;
         try {
             PrivateChannel channel = user.openPrivateChannel().submit().get();
-            msg = ctx.joinArgsSlice(1);
+            msg = ctx.arguments.slice(1);
             channel.sendMessage(msg).queue();
         } catch (InterruptedException | ExecutionException ex) {
             ex.printStackTrace();
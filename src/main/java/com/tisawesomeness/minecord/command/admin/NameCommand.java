@@ -15,7 +15,8 @@ public class NameCommand extends AbstractAdminCommand {
         return "name";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         //Check for proper argument length
         if (args.length < 1) {
             return ctx.showHelp();
@@ -15,7 +15,7 @@ public class ReloadCommand extends AbstractAdminCommand {
         return "reload";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
 
         Message m = ctx.e.getChannel().sendMessage(":arrows_counterclockwise: Reloading...").complete();
         try {
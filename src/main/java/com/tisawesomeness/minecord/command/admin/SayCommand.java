@@ -16,7 +16,8 @@ public class SayCommand extends AbstractAdminCommand {
         return "say";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         //Check for proper argument length
         if (args.length < 2) {
@@ -30,7 +31,7 @@ public class SayCommand extends AbstractAdminCommand {
         }
 
         //Send the message
-        String msg = ctx.joinArgsSlice(1);
+        String msg = ctx.arguments.slice(1);
         channel.sendMessage(msg).queue();
 
         //Log it
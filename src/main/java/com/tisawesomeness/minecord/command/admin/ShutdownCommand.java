@@ -14,7 +14,8 @@ public class ShutdownCommand extends AbstractAdminCommand {
         return "shutdown";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         if (args.length > 0 && "now".equals(args[0])) {
             System.exit(0);
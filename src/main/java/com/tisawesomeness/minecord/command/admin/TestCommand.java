@@ -11,7 +11,7 @@ public class TestCommand extends AbstractAdminCommand {
         return "test";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         return ctx.reply("Test");
     }
 
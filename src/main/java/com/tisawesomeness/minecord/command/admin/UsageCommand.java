@@ -7,6 +7,8 @@ import com.tisawesomeness.minecord.command.CommandRegistry;
 import com.tisawesomeness.minecord.command.IShortcutCommand;
 import com.tisawesomeness.minecord.command.Module;
 import com.tisawesomeness.minecord.command.Result;
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
 import com.tisawesomeness.minecord.util.DateUtils;
 
 import com.google.common.collect.EnumMultiset;
@@ -16,22 +18,42 @@ import lombok.RequiredArgsConstructor;
 import net.dv8tion.jda.api.EmbedBuilder;
 
 import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class UsageCommand extends AbstractAdminCommand {
 
+    private static final Pattern RANGE_PATTERN = Pattern.compile("(\\d{1,4})([mhd])", Pattern.CASE_INSENSITIVE);
+    // Keeps the history under the embed description limit
+    private static final int MAX_BUCKETS = 48;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd")
+            .withZone(ZoneOffset.UTC);
+
     private final @NonNull CommandRegistry registry;
 
     public @NonNull String getId() {
         return "usage";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         Lang lang = ctx.lang;
         EmbedBuilder eb = new EmbedBuilder()
                 .setTitle("Command usage for " + DateUtils.getDurationString(ctx.bot.getBirth()));
@@ -40,6 +62,8 @@ public class UsageCommand extends AbstractAdminCommand {
             return processGlobalUsage(ctx, eb);
         } else if ("full".equalsIgnoreCase(args[0])) {
             return processFullUsage(ctx, eb);
+        } else if ("history".equalsIgnoreCase(args[0])) {
+            return processHistory(args, ctx);
         }
         Optional<Module> moduleOpt = Module.from(args[0], lang);
         if (moduleOpt.isPresent()) {
@@ -70,6 +94,97 @@ public class UsageCommand extends AbstractAdminCommand {
         }
         return ctx.err("There was an internal error.");
     }
+
+    private Result processHistory(String[] args, CommandContext ctx) {
+        if (args.length < 2) {
+            return ctx.invalidArgs("You must specify a time range such as `30m`, `12h`, or `7d`.");
+        }
+        Matcher m = RANGE_PATTERN.matcher(args[1]);
+        if (!m.matches()) {
+            return ctx.invalidArgs("The time range must be a number followed by `m`, `h`, or `d`.");
+        }
+        long range = parseRange(Integer.parseInt(m.group(1)), Character.toLowerCase(m.group(2).charAt(0)));
+        if (range <= 0) {
+            return ctx.invalidArgs("The time range must be positive.");
+        }
+
+        // Only count the selected command or module, or everything if nothing is selected
+        Predicate<String> filter = id -> true;
+        if (args.length > 2) {
+            Optional<Module> moduleOpt = Module.from(args[2], ctx.lang);
+            Optional<Command> cmdOpt = registry.getCommand(args[2], ctx.lang);
+            if (moduleOpt.isPresent()) {
+                Set<String> ids = registry.getCommandsInModule(moduleOpt.get()).stream()
+                        .map(Command::getId)
+                        .collect(Collectors.toSet());
+                filter = ids::contains;
+            } else if (cmdOpt.isPresent()) {
+                filter = cmdOpt.get().getId()::equals;
+            } else {
+                return ctx.invalidArgs("That command or module does not exist.");
+            }
+        }
+
+        UsageResolution resolution = chooseResolution(range);
+        long now = System.currentTimeMillis() / 1000;
+        ctx.executor.pushUses(); // Make sure uses are up-to-date
+        Multiset<UsageKey> history;
+        try {
+            history = ctx.executor.getCommandStats().getUsageHistory(now - range, now + 1, resolution);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return ctx.err("There was an internal error.");
+        }
+
+        Multiset<Result> totalResults = EnumMultiset.create(Result.class);
+        SortedMap<Long, Integer> buckets = new TreeMap<>();
+        for (long bucket = resolution.floor(now - range); bucket <= now; bucket += resolution.getSeconds()) {
+            buckets.put(bucket, 0);
+        }
+        for (Multiset.Entry<UsageKey> en : history.entrySet()) {
+            UsageKey key = en.getElement();
+            if (!filter.test(key.getCommand())) {
+                continue;
+            }
+            buckets.merge(key.getBucket(), en.getCount(), Integer::sum);
+            Arrays.stream(Result.values())
+                    .filter(r -> r.name().equals(key.getResult()))
+                    .findFirst()
+                    .ifPresent(r -> totalResults.add(r, en.getCount()));
+        }
+
+        DateTimeFormatter format = resolution == UsageResolution.DAY ? DAY_FORMAT : TIME_FORMAT;
+        String lines = buckets.entrySet().stream()
+                .skip(Math.max(0, buckets.size() - MAX_BUCKETS))
+                .map(en -> formatBucket(format, en.getKey(), en.getValue()))
+                .collect(Collectors.joining("\n"));
+        EmbedBuilder eb = new EmbedBuilder()
+                .setTitle(String.format("Command usage for the last %s (UTC)", args[1].toLowerCase()))
+                .setDescription(formatResults(totalResults) + "\n\n" + lines);
+        return ctx.reply(eb);
+    }
+    private static String formatBucket(DateTimeFormatter format, long bucket, int uses) {
+        return String.format("`%s` **%d**", format.format(Instant.ofEpochSecond(bucket)), uses);
+    }
+    private static long parseRange(int amount, char unit) {
+        switch (unit) {
+            case 'm':
+                return TimeUnit.MINUTES.toSeconds(amount);
+            case 'h':
+                return TimeUnit.HOURS.toSeconds(amount);
+            default:
+                return TimeUnit.DAYS.toSeconds(amount);
+        }
+    }
+    private static UsageResolution chooseResolution(long range) {
+        if (range <= MAX_BUCKETS * UsageResolution.MINUTE.getSeconds()) {
+            return UsageResolution.MINUTE;
+        } else if (range <= MAX_BUCKETS * UsageResolution.HOUR.getSeconds()) {
+            return UsageResolution.HOUR;
+        }
+        return UsageResolution.DAY;
+    }
+
     private void addFields(CommandContext ctx, EmbedBuilder eb, Function<Command, String> commandToLineMapper) {
         for (Module m : Module.values()) {
             Collection<Command> cmds = registry.getCommandsInModule(m);
@@ -20,7 +20,8 @@ public class LangCommand extends AbstractConfigCommand {
         return "lang";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         if (args.length == 0) {
             ctx.triggerCooldown();
             return listLanguages(ctx, "Languages", false);
@@ -13,7 +13,8 @@ public class PrefixCommand extends AbstractConfigCommand implements IHiddenComma
         return "prefix";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         if (args.length == 0) {
             ctx.triggerCooldown();
             return ctx.reply(String.format("The current prefix is `%s`", ctx.prefix));
@@ -21,7 +21,7 @@ public class SetCommand extends AbstractConfigCommand {
         return EnumSet.of(Permission.MANAGE_SERVER);
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         return new SettingCommandParser(ctx, SettingCommandType.SET).parse();
     }
 }
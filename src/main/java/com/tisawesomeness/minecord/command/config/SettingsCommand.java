@@ -13,7 +13,7 @@ public class SettingsCommand extends AbstractConfigCommand {
         return "settings";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         return new SettingCommandParser(ctx, SettingCommandType.QUERY).parse();
     }
 
@@ -24,7 +24,8 @@ public class GuildCommand extends AbstractDiscordCommand {
         return "guild";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // If the author used the admin keyword and is an elevated user
         boolean elevated = false;
@@ -25,7 +25,8 @@ public class PermsCommand extends AbstractDiscordCommand {
     private static final String invalidChannel =
             "That channel does not exist in the current guild or is not visible to you.";
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         MessageReceivedEvent e = ctx.e;
 
         TextChannel c;
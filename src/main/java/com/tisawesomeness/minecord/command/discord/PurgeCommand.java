@@ -34,7 +34,8 @@ public class PurgeCommand extends AbstractDiscordCommand implements IGuildOnlyCo
         return EnumSet.of(Permission.MESSAGE_HISTORY);
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         MessageReceivedEvent e = ctx.e;
 
         // Guild-only command
@@ -20,7 +20,8 @@ public class RoleCommand extends AbstractDiscordCommand {
         return "role";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         MessageReceivedEvent e = ctx.e;
 
         if (args.length == 0) {
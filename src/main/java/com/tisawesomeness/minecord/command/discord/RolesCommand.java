@@ -23,7 +23,8 @@ public class RolesCommand extends AbstractDiscordCommand implements IGuildOnlyCo
         return "roles";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         MessageReceivedEvent e = ctx.e;
 
         // Check for argument length
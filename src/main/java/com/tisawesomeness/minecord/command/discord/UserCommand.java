@@ -26,7 +26,8 @@ public class UserCommand extends AbstractDiscordCommand {
         return "user";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         MessageReceivedEvent e = ctx.e;
         ShardManager sm = ctx.bot.getShardManager();
 
@@ -31,7 +31,7 @@ public class CreditsCommand extends AbstractMiscCommand {
             MarkdownUtil.maskedLink("LabyMod", "https://www.labymod.net") + ", " +
             MarkdownUtil.maskedLink("MinecraftCapes", "https://www.minecraftcapes.co.uk");
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
         EmbedBuilder eb = new EmbedBuilder()
             .setTitle("Minecord Credits")
@@ -27,7 +27,8 @@ public class HelpCommand extends AbstractMiscCommand {
         return "help";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         String prefix = ctx.prefix;
         Lang lang = ctx.lang;
 
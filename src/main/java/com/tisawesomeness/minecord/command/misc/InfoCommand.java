@@ -26,7 +26,8 @@ public class InfoCommand extends AbstractMiscCommand {
         return "info";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
         ctx.triggerCooldown();
         ShardManager sm = ctx.bot.getShardManager();
 
@@ -13,7 +13,7 @@ public class InviteCommand extends AbstractMiscCommand {
         return "invite";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
         EmbedBuilder eb = new EmbedBuilder()
                 .addField("Invite me!", ctx.config.getInviteLink(), false)
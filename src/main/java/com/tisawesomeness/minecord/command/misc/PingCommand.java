@@ -12,7 +12,7 @@ public class PingCommand extends AbstractMiscCommand implements IHiddenCommand {
         return "ping";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
         return ctx.reply(String.format(
                 ":ping_pong: **Pong!** `%s ms`\nUse `%sserver` to ping a server.",
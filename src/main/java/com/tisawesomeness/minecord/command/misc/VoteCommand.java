@@ -13,7 +13,7 @@ public class VoteCommand extends AbstractMiscCommand {
         return "vote";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
         String m = "Top.gg: " + MarkdownUtil.maskedLink("VOTE", "https://top.gg/bot/292279711034245130/vote");
         return ctx.reply(new EmbedBuilder().setTitle("Vote for Minecord!").setDescription(m));
@@ -1,19 +1,21 @@
 package com.tisawesomeness.minecord.command.player;
 
 import com.tisawesomeness.minecord.Bot;
+import com.tisawesomeness.minecord.cape.Cape;
 import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.Result;
 import com.tisawesomeness.minecord.util.DateUtils;
 import com.tisawesomeness.minecord.util.NameUtils;
-import com.tisawesomeness.minecord.util.RequestUtils;
 
 import lombok.NonNull;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 
-import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 public class CapeCommand extends AbstractPlayerCommand {
 
@@ -21,7 +23,8 @@ public class CapeCommand extends AbstractPlayerCommand {
         return "cape";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // No arguments message
         if (args.length == 0) {
@@ -33,7 +36,7 @@ public class CapeCommand extends AbstractPlayerCommand {
         String player = args[0];
         String uuid = player;
         if (player.matches(NameUtils.uuidRegex)) {
-            player = NameUtils.getName(player);
+            player = ctx.getProfileCache().getName(player);
 
             // Check for errors
             if (player == null) {
@@ -52,9 +55,9 @@ public class CapeCommand extends AbstractPlayerCommand {
                 }
 
                 // Get the UUID
-                uuid = NameUtils.getUUID(player, timestamp);
+                uuid = ctx.getProfileCache().getUUID(player, timestamp);
             } else {
-                uuid = NameUtils.getUUID(player);
+                uuid = ctx.getProfileCache().getUUID(player);
             }
 
             // Check for errors
@@ -70,53 +73,29 @@ public class CapeCommand extends AbstractPlayerCommand {
             uuid = uuid.replace("-", "").toLowerCase();
         }
 
-        // Minecraft capes
+        // Every provider is asked at once
+        List<Cape> capes = ctx.bot.getCapeResolver().resolve(uuid, player);
         boolean hasCape = false;
-        if (NameUtils.mojangUUIDs.contains(uuid)) {
-            // Mojang cape
-            sendImage(ctx, "Minecraft Cape", "https://minecord.github.io/capes/mojang.png");
-            hasCape = true;
-        } else {
-            // Other minecraft capes
-            String url = "https://crafatar.com/capes/" + uuid;
-            if (RequestUtils.checkURL(url)) {
-                sendImage(ctx, "Minecraft Cape", url);
+        for (Cape cape : capes) {
+            String provider = cape.getProvider().getDisplayName();
+            String title = provider + " Cape";
+            Optional<InputStream> imageOpt = cape.openImage();
+            if (!imageOpt.isPresent()) {
+                sendImage(ctx, title, cape.getUrl());
                 hasCape = true;
-            }
-        }
-        // Optifine cape
-        String url = String.format("http://s.optifine.net/capes/%s.png", player);
-        if (RequestUtils.checkURL(url)) {
-            sendImage(ctx, "Optifine Cape", url);
-            hasCape = true;
-        }
-        // LabyMod cape (doesn't show in embed, download required)
-        url = String.format("http://capes.labymod.net/capes/%s", NameUtils.formatUUID(uuid));
-        if (RequestUtils.checkURL(url)) {
-            if (canSendFiles(ctx)) {
+            } else if (canSendFiles(ctx)) {
                 MessageEmbed emb = new EmbedBuilder()
-                        .setTitle("LabyMod Cape")
+                        .setTitle(title)
                         .setColor(Bot.color)
                         .setImage("attachment://cape.png")
                         .build();
-                try {
-                    ctx.e.getChannel().sendFile(RequestUtils.downloadImage(url), "cape.png").embed(emb).queue();
-                    hasCape = true;
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                    ctx.err("There was an error downloading the LabyMod cape.");
-                }
+                ctx.e.getChannel().sendFile(imageOpt.get(), "cape.png").embed(emb).queue();
+                hasCape = true;
             } else {
-                ctx.warn("The player has a LabyMod cape, but it couldn't be downloaded" +
-                        " since the bot doesn't have the Attach Files permission.");
+                ctx.warn(String.format("The player has a %s cape, but it couldn't be uploaded" +
+                        " since the bot doesn't have the Attach Files permission.", provider));
             }
         }
-        // MinecraftCapes.co.uk
-        url = String.format("https://www.minecraftcapes.co.uk/gallery/grab-player-capes/%s", player);
-        if (RequestUtils.checkURL(url, true)) {
-            sendImage(ctx, "MinecraftCapes.co.uk Cape", url);
-            hasCape = true;
-        }
 
         if (!hasCape) {
             return ctx.warn(player + " does not have a cape!");
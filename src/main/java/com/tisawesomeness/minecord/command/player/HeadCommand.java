@@ -19,7 +19,8 @@ public class HeadCommand extends AbstractPlayerCommand {
         return "head";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         //No arguments message
         if (args.length == 0) {
@@ -50,9 +51,9 @@ public class HeadCommand extends AbstractPlayerCommand {
                 }
 
             //Get the UUID
-                uuid = NameUtils.getUUID(player, timestamp);
+                uuid = ctx.getProfileCache().getUUID(player, timestamp);
             } else {
-                uuid = NameUtils.getUUID(player);
+                uuid = ctx.getProfileCache().getUUID(player);
             }
 
             //Check for errors
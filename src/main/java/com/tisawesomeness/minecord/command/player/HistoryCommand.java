@@ -5,7 +5,6 @@ import com.tisawesomeness.minecord.command.Result;
 import com.tisawesomeness.minecord.util.DateUtils;
 import com.tisawesomeness.minecord.util.MessageUtils;
 import com.tisawesomeness.minecord.util.NameUtils;
-import com.tisawesomeness.minecord.util.RequestUtils;
 
 import lombok.NonNull;
 import net.dv8tion.jda.api.EmbedBuilder;
@@ -21,7 +20,8 @@ public class HistoryCommand extends AbstractPlayerCommand {
         return "history";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // No arguments message
         if (args.length == 0) {
@@ -41,9 +41,9 @@ public class HistoryCommand extends AbstractPlayerCommand {
                 }
 
             // Get the UUID
-                uuid = NameUtils.getUUID(player, timestamp);
+                uuid = ctx.getProfileCache().getUUID(player, timestamp);
             } else {
-                uuid = NameUtils.getUUID(player);
+                uuid = ctx.getProfileCache().getUUID(player);
             }
 
             // Check for errors
@@ -60,8 +60,7 @@ public class HistoryCommand extends AbstractPlayerCommand {
         }
 
         // Fetch name history
-        String url = "https://api.mojang.com/user/profiles/" + player.replaceAll("-", "") + "/names";
-        String request = RequestUtils.get(url);
+        String request = ctx.getProfileCache().getHistory(player);
         if (request == null) {
             return ctx.err("The Mojang API could not be reached.");
         }
@@ -87,7 +86,7 @@ public class HistoryCommand extends AbstractPlayerCommand {
 
         // Get NameMC url
         player = names.getJSONObject(names.length() - 1).getString("name");
-        url = "https://namemc.com/profile/" + player;
+        String url = "https://namemc.com/profile/" + player;
 
         // Proper apostrophe grammar
         if (player.endsWith("s")) {
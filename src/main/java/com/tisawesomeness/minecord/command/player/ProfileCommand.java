@@ -1,5 +1,6 @@
 package com.tisawesomeness.minecord.command.player;
 
+import com.tisawesomeness.minecord.cape.Cape;
 import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.Result;
 import com.tisawesomeness.minecord.util.DateUtils;
@@ -15,6 +16,8 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class ProfileCommand extends AbstractPlayerCommand {
 
@@ -22,7 +25,8 @@ public class ProfileCommand extends AbstractPlayerCommand {
         return "profile";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // No arguments message
         if (args.length == 0) {
@@ -33,7 +37,7 @@ public class ProfileCommand extends AbstractPlayerCommand {
         ctx.triggerCooldown();
         String player = args[0];
         if (player.matches(NameUtils.uuidRegex)) {
-            player = NameUtils.getName(player);
+            player = ctx.getProfileCache().getName(player);
 
             // Check for errors
             if (player == null) {
@@ -53,7 +57,7 @@ public class ProfileCommand extends AbstractPlayerCommand {
             }
 
             // Get the UUID
-            String uuid = NameUtils.getUUID(player, timestamp);
+            String uuid = ctx.getProfileCache().getUUID(player, timestamp);
 
             // Check for errors
             if (uuid == null) {
@@ -66,7 +70,7 @@ public class ProfileCommand extends AbstractPlayerCommand {
             }
 
             uuid = uuid.replace("-", "").toLowerCase();
-            player = NameUtils.getName(uuid);
+            player = ctx.getProfileCache().getName(uuid);
 
             // Check for errors
             if (player == null) {
@@ -97,24 +101,19 @@ public class ProfileCommand extends AbstractPlayerCommand {
         String skinUrl = "https://crafatar.com/skins/" + uuid;
         String nameUrl = "https://namemc.com/profile/" + player;
 
-        // Get cape
+        // Get capes from every provider at once
+        List<Cape> capes = ctx.bot.getCapeResolver().resolve(uuid, player);
         String cape;
-        if (NameUtils.mojangUUIDs.contains(uuid)) {
-            // Mojang cape
-            cape = MarkdownUtil.maskedLink("Open Image", "https://minecord.github.io/capes/mojang.png");
+        if (capes.isEmpty()) {
+            cape = "No cape.";
         } else {
-            // Other minecraft capes
-            String url = "https://crafatar.com/capes/" + uuid;
-            if (RequestUtils.checkURL(url)) {
-                cape = MarkdownUtil.maskedLink("Open Image", url);
-            } else {
-                cape = "No cape.";
-            }
+            cape = capes.stream()
+                    .map(c -> MarkdownUtil.maskedLink(c.getProvider().getDisplayName(), c.getUrl()))
+                    .collect(Collectors.joining("\n"));
         }
 
         // Fetch name history
-        String historyUrl = "https://api.mojang.com/user/profiles/" + uuid + "/names";
-        request = RequestUtils.get(historyUrl);
+        request = ctx.getProfileCache().getHistory(uuid);
         if (request == null) {
             return ctx.err("The Mojang API could not be reached.");
         }
@@ -17,7 +17,8 @@ public class SkinCommand extends AbstractPlayerCommand {
         return "skin";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         //No arguments message
         if (args.length == 0) {
@@ -38,9 +39,9 @@ public class SkinCommand extends AbstractPlayerCommand {
                 }
 
             //Get the UUID
-                uuid = NameUtils.getUUID(player, timestamp);
+                uuid = ctx.getProfileCache().getUUID(player, timestamp);
             } else {
-                uuid = NameUtils.getUUID(player);
+                uuid = ctx.getProfileCache().getUUID(player);
             }
 
             //Check for errors
@@ -16,7 +16,8 @@ public class UuidCommand extends AbstractPlayerCommand {
         return "uuid";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // No arguments message
         if (args.length == 0) {
@@ -35,9 +36,9 @@ public class UuidCommand extends AbstractPlayerCommand {
             }
 
         // Get the UUID
-            uuid = NameUtils.getUUID(username, timestamp);
+            uuid = ctx.getProfileCache().getUUID(username, timestamp);
         } else {
-            uuid = NameUtils.getUUID(username);
+            uuid = ctx.getProfileCache().getUUID(username);
         }
 
         // Check for errors
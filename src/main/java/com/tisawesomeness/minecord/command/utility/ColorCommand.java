@@ -15,8 +15,8 @@ public class ColorCommand extends AbstractUtilityCommand {
         return "color";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
-        if (args.length == 0) {
+    public Result run(CommandContext ctx) {
+        if (ctx.arguments.isEmpty()) {
             return ctx.showHelp();
         }
         ctx.triggerCooldown();
@@ -61,7 +61,7 @@ public class ColorShortcut extends AbstractUtilityCommand implements IShortcutCo
         return colorCmd.getHelp(lang, prefix, tag);
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
         EmbedBuilder eb = ColorCommand.buildColorInfo(color);
         return ctx.replyRaw(ctx.addFooter(eb));
@@ -2,6 +2,7 @@ package com.tisawesomeness.minecord.command.utility;
 
 import com.tisawesomeness.minecord.ReactMenu;
 import com.tisawesomeness.minecord.ReactMenu.MenuStatus;
+import com.tisawesomeness.minecord.command.ArgumentView;
 import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.Result;
 import com.tisawesomeness.minecord.item.Recipe;
@@ -10,7 +11,6 @@ import lombok.NonNull;
 import net.dv8tion.jda.api.EmbedBuilder;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 
 public class IngredientCommand extends AbstractUtilityCommand {
 
@@ -18,21 +18,23 @@ public class IngredientCommand extends AbstractUtilityCommand {
         return "ingredient";
     }
 
-    public Result run(String[] argsOrig, CommandContext ctx)  {
-        String[] args = Arrays.copyOf(argsOrig, argsOrig.length);
+    public Result run(CommandContext ctx) {
+        ArgumentView args = ctx.arguments;
 
         // Check for argument length
-        if (args.length == 0) {
+        if (args.isEmpty()) {
             return ctx.showHelp();
         }
         ctx.triggerCooldown();
 
         // Parse page number
         int page = 0;
-        if (args.length > 1) {
-            if (args[args.length - 1].matches("^[0-9]+$")) {
-                page = Integer.valueOf(args[args.length - 1]) - 1;
-                args = Arrays.copyOf(args, args.length - 1);
+        int end = args.size();
+        if (end > 1) {
+            String last = args.get(end - 1);
+            if (last.matches("^[0-9]+$")) {
+                page = Integer.valueOf(last) - 1;
+                end--;
             }
         }
         if (page < 0) {
@@ -40,7 +42,7 @@ public class IngredientCommand extends AbstractUtilityCommand {
         }
 
         // Search through the recipe database
-        ArrayList<String> recipes = Recipe.searchIngredient(String.join(" ", args), "en_US");
+        ArrayList<String> recipes = Recipe.searchIngredient(args.join(0, end), "en_US");
         if (recipes == null) {
             return ctx.invalidArgs("That item does not exist! Did you spell it correctly?");
         }
@@ -13,9 +13,9 @@ public class ItemCommand extends AbstractUtilityCommand {
         return "item";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         // Check for argument length
-        if (args.length == 0) {
+        if (ctx.arguments.isEmpty()) {
             return ctx.showHelp();
         }
         ctx.triggerCooldown();
@@ -16,7 +16,7 @@ public class SalesCommand extends AbstractUtilityCommand {
         return "sales";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
 
         //Send a request to Mojang
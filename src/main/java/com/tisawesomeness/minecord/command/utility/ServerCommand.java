@@ -1,25 +1,19 @@
 package com.tisawesomeness.minecord.command.utility;
 
-import br.com.azalim.mcserverping.MCPing;
-import br.com.azalim.mcserverping.MCPingOptions;
 import br.com.azalim.mcserverping.MCPingResponse;
 import br.com.azalim.mcserverping.MCPingResponse.Player;
 import br.com.azalim.mcserverping.MCPingUtil;
 import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.Result;
-import com.tisawesomeness.minecord.util.RequestUtils;
+import com.tisawesomeness.minecord.server.ServerStatusCache;
 
 import lombok.NonNull;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.utils.MarkdownSanitizer;
 
-import java.io.IOException;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class ServerCommand extends AbstractUtilityCommand {
@@ -28,54 +22,50 @@ public class ServerCommand extends AbstractUtilityCommand {
     private final String ipAddressRegex = "((25[0-5]|2[0-4][0-9]|1[0-9][0-9]|0?[1-9]?[0-9])\\.){3}(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|0?[1-9]?[0-9])";
     private final String chatCodeRegex = "\u00A7[a-fA-Fklmnor0-9]"; //§
 
-    private static Set<String> blockedServers = new HashSet<String>();
-    private static long timestamp = 0;
-
     public @NonNull String getId() {
         return "server";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
+        String[] args = ctx.getArgs();
 
         // Parse arguments
         if (args.length == 0) {
             return ctx.showHelp();
         }
         String arg = args[0];
-        boolean ip = true;
-        if (!arg.matches(ipAddressRegex)) {
-            ip = false;
-            if (!arg.matches(serverAddressRegex)) {
-                return ctx.invalidArgs(ctx.i18n("invalidAddress"));
-            }
+        if (!arg.matches(ipAddressRegex) && !arg.matches(serverAddressRegex)) {
+            return ctx.invalidArgs(ctx.i18n("invalidAddress"));
+        }
+        int colon = arg.indexOf(':');
+        String hostname = colon == -1 ? arg : arg.substring(0, colon);
+        int port = colon == -1 ? MCPingUtil.DEFAULT_PORT : Integer.parseInt(arg.substring(colon + 1));
+        if (port <= 0 || port > MCPingUtil.MAX_PORT) {
+            return ctx.invalidArgs(ctx.i18n("invalidAddress"));
         }
         ctx.triggerCooldown();
 
-        // Query Mojang for blocked servers, cached by the hour
-        if (System.currentTimeMillis() - 3600000 > timestamp) {
-            String request = RequestUtils.getPlain("https://sessionserver.mojang.com/blockedservers");
-            if (request != null) {
-                blockedServers = new HashSet<String>(Arrays.asList(request.split("\n")));
-                timestamp = System.currentTimeMillis();
+        // The worker is freed while pinging, and the reply is built off the ping thread
+        // Since the reply is sent later, an unreachable server still counts as a success
+        ctx.bot.getServerStatusCache().getStatusAsync(hostname, port).whenCompleteAsync((reply, pingEx) -> {
+            try {
+                if (pingEx == null) {
+                    sendStatus(ctx, hostname, port, reply);
+                } else {
+                    ctx.possibleErr(ctx.i18n("unreachable"));
+                }
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
             }
-        }
+        });
+        return Result.SUCCESS;
+    }
 
-        String hostname = arg;
-        int port = 25565;
-        if (arg.contains(":")) {
-            hostname = arg.substring(0, arg.indexOf(":"));
-            port = Integer.parseInt(arg.substring(arg.indexOf(":") + 1));
-        }
-        MCPingResponse reply;
-        try {
-            MCPingOptions options = MCPingOptions.builder().hostname(hostname).port(port).build();
-            reply = MCPing.getPing(options);
-        } catch (IOException ignore) {
-            return ctx.possibleErr(ctx.i18n("unreachable"));
-        }
+    private void sendStatus(CommandContext ctx, String hostname, int port, MCPingResponse reply) {
+        ServerStatusCache cache = ctx.bot.getServerStatusCache();
         MCPingResponse.Players players = reply.getPlayers();
 
-        String address = port == 25565 ? hostname : hostname + ":" + port;
+        String address = port == MCPingUtil.DEFAULT_PORT ? hostname : hostname + ":" + port;
         String version = reply.getVersion().getName().replaceAll(chatCodeRegex, "");
         String playerInfo = ctx.i18nf("playerCount", players.getOnline(), players.getMax());
         String motd = MarkdownSanitizer.escape(reply.getDescription().getStrippedText());
@@ -95,47 +85,25 @@ public class ServerCommand extends AbstractUtilityCommand {
         }
 
         StringBuilder sb = eb.getDescriptionBuilder();
-        if (isBlocked(arg, ip)) {
+        // Mojang blocks addresses without the port
+        boolean ip = hostname.matches(ipAddressRegex);
+        if (ctx.bot.getBlockedServers().isBlocked(hostname, ip)) {
             sb.append(ctx.i18n("blocked"));
         }
 
         if (reply.getFavicon() != null) {
-            try {
-                String b64String = reply.getFavicon().replace("\n", "").split(",")[1];
-                byte[] data = Base64.getDecoder().decode(b64String);
+            Optional<byte[]> dataOpt = cache.getFavicon(reply.getFavicon());
+            if (dataOpt.isPresent()) {
                 MessageEmbed me = ctx.brand(eb).setThumbnail("attachment://favicon.png").build();
-                ctx.e.getChannel().sendFile(data, "favicon.png").embed(me).queue();
-                return Result.SUCCESS;
-            } catch (IllegalArgumentException ex) {
-                ex.printStackTrace();
-                if (sb.length() > 0) {
-                    sb.append("\n");
-                }
-                sb.append(ctx.i18n("invalidIcon"));
-            }
-        }
-        return ctx.reply(eb);
-
-    }
-
-    // Checks if a server is blocked by Mojang
-    private static boolean isBlocked(String server, boolean ip) {
-        server = server.toLowerCase();
-        if (blockedServers.contains(RequestUtils.sha1(server))) return true;
-        if (ip) {
-            int i = server.lastIndexOf('.');
-            while (i >= 0) {
-                if (blockedServers.contains(RequestUtils.sha1(server.substring(0, i + 1) + ".*"))) return true;
-                i = server.lastIndexOf('.', i) - 1;
+                ctx.e.getChannel().sendFile(dataOpt.get(), "favicon.png").embed(me).queue();
+                return;
             }
-        } else {
-            int i = 0;
-            while (i != server.lastIndexOf('.') + 1) {
-                i = server.indexOf('.', i) + 1;
-                if (blockedServers.contains(RequestUtils.sha1("*." + server.substring(i)))) return true;
+            if (sb.length() > 0) {
+                sb.append("\n");
             }
+            sb.append(ctx.i18n("invalidIcon"));
         }
-        return false;
+        ctx.reply(eb);
     }
 
 }
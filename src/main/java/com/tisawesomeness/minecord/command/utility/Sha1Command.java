@@ -12,12 +12,12 @@ public class Sha1Command extends AbstractUtilityCommand {
         return "sha1";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
-        if (args.length == 0) {
+    public Result run(CommandContext ctx) {
+        if (ctx.arguments.isEmpty()) {
             return ctx.showHelp();
         }
         ctx.triggerCooldown();
-        return ctx.reply(RequestUtils.sha1(ctx.joinArgs()));
+        return ctx.reply(RequestUtils.sha1(ctx.arguments.slice(0)));
     }
 
 }
\ No newline at end of file
@@ -18,7 +18,7 @@ public class StatusCommand extends AbstractUtilityCommand {
         return "status";
     }
 
-    public Result run(String[] args, CommandContext ctx) {
+    public Result run(CommandContext ctx) {
         ctx.triggerCooldown();
 
         //Request information from Mojang
@@ -17,6 +17,12 @@ public class CommandConfig {
     int defaultCooldown;
     @JsonProperty("pushUsesInterval")
     int pushUsesInterval;
+    @JsonProperty("usageMinuteRetention")
+    int usageMinuteRetention;
+    @JsonProperty("usageHourRetention")
+    int usageHourRetention;
+    @JsonProperty("usageDayRetention")
+    int usageDayRetention;
     @JsonProperty("overrides")
     Map<String, CommandOverride> overrides;
     @JsonProperty("cooldownPools")
@@ -25,6 +31,7 @@ public class CommandConfig {
     public Verification verify() {
         return Verification.combineAll(
                 verifyPushUsesInterval(),
+                verifyUsageRetention(),
                 verifyOverrides(),
                 verifyPoolsExist()
         );
@@ -35,6 +42,12 @@ public class CommandConfig {
         }
         return Verification.invalid("pushUsesInterval must be positive.");
     }
+    private Verification verifyUsageRetention() {
+        if (usageMinuteRetention > 0 && usageHourRetention > 0 && usageDayRetention > 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("usageMinuteRetention, usageHourRetention, and usageDayRetention must be positive.");
+    }
     private Verification verifyOverrides() {
         return overrides.values().stream()
                 .map(CommandOverride::verify)
@@ -3,6 +3,8 @@ package com.tisawesomeness.minecord.config.serial;
 import com.tisawesomeness.minecord.util.type.Verification;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import lombok.Value;
 
 import javax.annotation.Nullable;
@@ -41,6 +43,8 @@ public class Config {
     DatabaseConfig databaseConfig;
     @JsonProperty("commands")
     CommandConfig commandConfig;
+    @JsonProperty("executor") @JsonSetter(nulls = Nulls.SET)
+    @Nullable ExecutorConfig executorConfig;
 
     /**
      * Checks if this config is valid.
@@ -54,7 +58,9 @@ public class Config {
                 presenceConfig.verify(),
                 settingsConfig.verify(),
                 botListConfig.verify(),
-                commandConfig.verify()
+                commandConfig.verify(),
+                verifyExecutor(),
+                databaseConfig.verify()
         );
     }
     private Verification verifyShards() {
@@ -63,6 +69,13 @@ public class Config {
         }
         return Verification.valid();
     }
+    private Verification verifyExecutor() {
+        // Configs from before per-module thread pools don't have this section
+        if (executorConfig == null) {
+            return Verification.invalid("The executor section is missing, copy it from the default config.yml.");
+        }
+        return executorConfig.verify();
+    }
 
     /**
      * Determines if the given ID is listed in the config as an owner.
@@ -1,13 +1,127 @@
 package com.tisawesomeness.minecord.config.serial;
 
+import com.tisawesomeness.minecord.database.store.StorageType;
+import com.tisawesomeness.minecord.util.type.Verification;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import lombok.Value;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Configures the database connection.
  */
 @Value
 public class DatabaseConfig {
+    private static final List<String> JOURNAL_MODES = Arrays.asList("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL");
+    private static final List<String> SYNCHRONOUS_MODES = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+
+    @JsonProperty("storage") @JsonSetter(nulls = Nulls.SET)
+    @Nullable StorageType storage;
     @JsonProperty("path")
     String path;
+    @JsonProperty("maxConnections") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer maxConnections;
+    @JsonProperty("connectionTimeout") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer connectionTimeout;
+    @JsonProperty("statementCacheSize") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer statementCacheSize;
+    @JsonProperty("journalMode") @JsonSetter(nulls = Nulls.SET)
+    @Nullable String journalMode;
+    @JsonProperty("synchronous") @JsonSetter(nulls = Nulls.SET)
+    @Nullable String synchronous;
+    @JsonProperty("cacheSizeKB") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer cacheSizeKB;
+    @JsonProperty("mmapSize") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Long mmapSize;
+    @JsonProperty("writeBehind") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Boolean writeBehind;
+    @JsonProperty("writeBehindInterval") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer writeBehindInterval;
+    @JsonProperty("warmUpLimit") @JsonSetter(nulls = Nulls.SET)
+    @Nullable Integer warmUpLimit;
+
+    /**
+     * @return The storage backend, SQLite if the config predates the {@code storage} option
+     */
+    public StorageType getStorage() {
+        return storage == null ? StorageType.SQLITE : storage;
+    }
+
+    // Configs from before connection pooling only have a path, so every other option falls back to
+    // a single-file SQLite setup that behaves like the old one
+    public int getMaxConnections() {
+        return maxConnections == null ? 4 : maxConnections;
+    }
+    public int getConnectionTimeout() {
+        return connectionTimeout == null ? 5000 : connectionTimeout;
+    }
+    public int getStatementCacheSize() {
+        return statementCacheSize == null ? 32 : statementCacheSize;
+    }
+    public String getJournalMode() {
+        return journalMode == null ? "DELETE" : journalMode;
+    }
+    public String getSynchronous() {
+        return synchronous == null ? "FULL" : synchronous;
+    }
+    public int getCacheSizeKB() {
+        return cacheSizeKB == null ? 2000 : cacheSizeKB;
+    }
+    public long getMmapSize() {
+        return mmapSize == null ? 0 : mmapSize;
+    }
+    public boolean isWriteBehind() {
+        return writeBehind != null && writeBehind;
+    }
+    public int getWriteBehindInterval() {
+        return writeBehindInterval == null ? 1000 : writeBehindInterval;
+    }
+    public int getWarmUpLimit() {
+        return warmUpLimit == null ? 0 : warmUpLimit;
+    }
+
+    public Verification verify() {
+        return Verification.combineAll(
+                verifyPool(),
+                verifyPragmas(),
+                verifyWriteBehind(),
+                verifyWarmUp()
+        );
+    }
+    private Verification verifyPool() {
+        if (getMaxConnections() > 0 && getConnectionTimeout() > 0 && getStatementCacheSize() > 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("The database maxConnections, connectionTimeout, and statementCacheSize must be positive.");
+    }
+    private Verification verifyPragmas() {
+        // These values are put directly into PRAGMA statements
+        if (!JOURNAL_MODES.contains(getJournalMode())) {
+            return Verification.invalid("The database journalMode must be one of " + JOURNAL_MODES);
+        }
+        if (!SYNCHRONOUS_MODES.contains(getSynchronous())) {
+            return Verification.invalid("The database synchronous mode must be one of " + SYNCHRONOUS_MODES);
+        }
+        if (getCacheSizeKB() < 0 || getMmapSize() < 0) {
+            return Verification.invalid("The database cacheSizeKB and mmapSize cannot be negative.");
+        }
+        return Verification.valid();
+    }
+    private Verification verifyWriteBehind() {
+        if (!isWriteBehind() || getWriteBehindInterval() > 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("The database writeBehindInterval must be positive.");
+    }
+    private Verification verifyWarmUp() {
+        if (getWarmUpLimit() >= 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("The database warmUpLimit cannot be negative.");
+    }
 }
@@ -0,0 +1,104 @@
+package com.tisawesomeness.minecord.config.serial;
+
+import com.tisawesomeness.minecord.command.Module;
+import com.tisawesomeness.minecord.util.type.Verification;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Configures the thread pools that commands are run on.
+ */
+@Value
+public class ExecutorConfig {
+    @JsonProperty("moduleThreads")
+    Map<String, Integer> moduleThreads;
+    @JsonProperty("defaultThreads")
+    int defaultThreads;
+    @JsonProperty("queueSize")
+    int queueSize;
+    @JsonProperty("timeout")
+    int timeout;
+    @JsonProperty("keyConcurrency")
+    int keyConcurrency;
+    @JsonProperty("guildWeight")
+    int guildWeight;
+    @JsonProperty("guildWeights")
+    Map<String, Integer> guildWeights;
+    @JsonProperty("dmWeight")
+    int dmWeight;
+
+    /**
+     * Gets the number of worker threads a module's pool should have.
+     * @param module The module
+     * @return The thread count from {@code moduleThreads}, or {@code defaultThreads} if not present
+     */
+    public int getThreads(Module module) {
+        return moduleThreads.getOrDefault(module.getId(), defaultThreads);
+    }
+
+    /**
+     * Gets the number of commands a guild may start each turn.
+     * @param guildId The guild ID
+     * @return The weight from {@code guildWeights}, or {@code guildWeight} if not present
+     */
+    public int getGuildWeight(long guildId) {
+        if (guildWeights == null) {
+            return guildWeight;
+        }
+        return guildWeights.getOrDefault(Long.toString(guildId), guildWeight);
+    }
+
+    public Verification verify() {
+        return Verification.combineAll(
+                verifyThreads(),
+                verifyModulesExist(),
+                verifyQueueSize(),
+                verifyTimeout(),
+                verifyFairness()
+        );
+    }
+    private Verification verifyThreads() {
+        boolean allPositive = defaultThreads > 0 && moduleThreads.values().stream().allMatch(i -> i > 0);
+        if (allPositive) {
+            return Verification.valid();
+        }
+        return Verification.invalid("All executor thread counts must be positive.");
+    }
+    private Verification verifyModulesExist() {
+        boolean modulesExist = moduleThreads.keySet().stream()
+                .allMatch(id -> Arrays.stream(Module.values()).anyMatch(m -> m.getId().equals(id)));
+        if (modulesExist) {
+            return Verification.valid();
+        }
+        return Verification.invalid("One of the modules in moduleThreads does not exist.");
+    }
+    private Verification verifyQueueSize() {
+        if (queueSize > 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("The executor queueSize must be positive.");
+    }
+    private Verification verifyTimeout() {
+        if (timeout > 0) {
+            return Verification.valid();
+        }
+        return Verification.invalid("The executor timeout must be positive.");
+    }
+    private Verification verifyFairness() {
+        if (keyConcurrency <= 0 || guildWeight <= 0 || dmWeight <= 0) {
+            return Verification.invalid("The executor keyConcurrency, guildWeight, and dmWeight must be positive.");
+        }
+        if (guildWeights != null) {
+            boolean valid = guildWeights.entrySet().stream()
+                    .allMatch(en -> en.getKey().matches("\\d+") && en.getValue() != null && en.getValue() > 0);
+            if (!valid) {
+                return Verification.invalid("The executor guildWeights must map guild IDs to positive weights.");
+            }
+        }
+        return Verification.valid();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tisawesomeness.minecord.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts cache lookups for IDs that have no row in the database.
+ * <br>A hit means the default was served from memory, a miss means the database had to be queried to find nothing.
+ */
+public class AbsentCounter {
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Records a lookup that returned no row, whether it was cached or not.
+     */
+    void recordLookup() {
+        lookups.increment();
+    }
+    /**
+     * Records a database query that found no row.
+     */
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * @return The number of absent lookups served from the cache
+     */
+    public long getHitCount() {
+        return Math.max(0, lookups.sum() - misses.sum());
+    }
+    /**
+     * @return The number of absent lookups that queried the database
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    /**
+     * @return The total number of absent lookups
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+}
@@ -0,0 +1,377 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import org.sqlite.SQLiteDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of SQLite connections.
+ * <br>Connections handed out by {@link #getConnection()} go back to the pool when closed instead of closing
+ * the underlying connection, so they can be used with {@link Cleanup} like normal connections.
+ * <br>Each connection also caches the statements created with {@link Connection#prepareStatement(String)},
+ * so the fixed queries in the DAO classes are only compiled once per connection.
+ * A cached statement is only handed out once at a time. Preparing the same query again while it is still open
+ * gives a new statement that is closed normally.
+ * <br>Borrowed connections can't be unwrapped, so the underlying connection never escapes the pool.
+ */
+public class ConnectionPool {
+
+    private final @NonNull SQLiteDataSource source;
+    private final @NonNull DatabaseConfig config;
+    private final BlockingQueue<PooledConnection> idle;
+    private final Semaphore permits;
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger prepared = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool. Connections are opened lazily as they are needed.
+     * @param config The database config with the pool size and pragmas
+     */
+    public ConnectionPool(@NonNull DatabaseConfig config) {
+        this.config = config;
+        source = new SQLiteDataSource();
+        source.setUrl("jdbc:sqlite:" + config.getPath());
+        source.setEncoding("UTF-8");
+        idle = new LinkedBlockingQueue<>(config.getMaxConnections());
+        permits = new Semaphore(config.getMaxConnections(), true);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the configured timeout if all connections are in use.
+     * <br>The connection must be closed to return it to the pool.
+     * @return A connection to the database
+     * @throws SQLException If the pool is closed, no connection was available in time, or a new connection failed
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(config.getConnectionTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for a database connection.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", ex);
+        }
+        try {
+            PooledConnection pc = idle.poll();
+            if (pc == null || pc.physical.isClosed()) {
+                pc = open();
+            }
+            return pc.borrow();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connect = source.getConnection();
+        try {
+            @Cleanup Statement st = connect.createStatement();
+            st.execute(String.format("PRAGMA journal_mode = %s;", config.getJournalMode()));
+            st.execute(String.format("PRAGMA synchronous = %s;", config.getSynchronous()));
+            // Negative cache sizes are in KiB instead of pages
+            st.execute(String.format("PRAGMA cache_size = %d;", -config.getCacheSizeKB()));
+            st.execute(String.format("PRAGMA mmap_size = %d;", config.getMmapSize()));
+        } catch (SQLException ex) {
+            connect.close();
+            throw ex;
+        }
+        opened.incrementAndGet();
+        return new PooledConnection(connect);
+    }
+
+    private void release(PooledConnection pc) {
+        // Statements left open by the last borrower can't be used anymore
+        pc.checkedOut.clear();
+        try {
+            if (closed || !reset(pc)) {
+                pc.closePhysical();
+            } else if (!idle.offer(pc)) {
+                pc.closePhysical();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+    // Returns false if the connection is broken and should be thrown away
+    private static boolean reset(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones.
+     * <br>Connections that are still borrowed are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.poll()) != null) {
+            pc.closePhysical();
+        }
+    }
+
+    /**
+     * @return The number of connections currently borrowed
+     */
+    public int getActive() {
+        return config.getMaxConnections() - permits.availablePermits();
+    }
+    /**
+     * @return The number of open connections waiting to be borrowed
+     */
+    public int getIdle() {
+        return idle.size();
+    }
+    /**
+     * @return The total number of connections opened since the pool was created
+     */
+    public int getOpened() {
+        return opened.get();
+    }
+    /**
+     * @return The total number of statements compiled since the pool was created, cached or not
+     */
+    public int getPrepared() {
+        return prepared.get();
+    }
+
+    /**
+     * A physical connection and its statement cache.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final Map<String, PreparedStatement> statements;
+        private final Set<PreparedStatement> checkedOut = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            int max = config.getStatementCacheSize();
+            statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > max) {
+                        // A statement in use is closed once it is checked back in
+                        if (!checkedOut.contains(eldest.getValue())) {
+                            closeQuietly(eldest.getValue());
+                        }
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection borrow() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnectionHandler(this));
+        }
+
+        // Only called by the thread that borrowed this connection
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement st = statements.get(sql);
+            boolean cached = true;
+            if (st == null || st.isClosed()) {
+                st = compile(sql);
+                statements.put(sql, st);
+            } else if (checkedOut.contains(st)) {
+                // Nested use of the same query, sharing the statement would overwrite the outer parameters
+                st = compile(sql);
+                cached = false;
+            }
+            if (cached) {
+                checkedOut.add(st);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementHandler(this, sql, st, cached));
+        }
+        private PreparedStatement compile(String sql) throws SQLException {
+            PreparedStatement st = physical.prepareStatement(sql);
+            prepared.incrementAndGet();
+            return st;
+        }
+        private void checkIn(String sql, PreparedStatement st) throws SQLException {
+            checkedOut.remove(st);
+            // Evicted from the cache while it was in use
+            if (statements.get(sql) != st) {
+                st.close();
+            }
+        }
+
+        private void closePhysical() {
+            statements.values().forEach(ConnectionPool::closeQuietly);
+            statements.clear();
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the connection to the pool on close, and serves cached statements.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean returned;
+
+        private ConnectionHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pc.physical;
+                case "unwrap":
+                case "isWrapperFor":
+                    return unwrap(proxy, method, args);
+            }
+            if (returned) {
+                throw new SQLException("The connection was already returned to the pool.");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                return pc.prepare((String) args[0]);
+            }
+            return invokeTarget(pc.physical, method, args);
+        }
+    }
+
+    /**
+     * Keeps a cached statement open on close, only closing its result set, clearing its parameters,
+     * and checking it back in.
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private final String sql;
+        private final PreparedStatement st;
+        private final boolean cached;
+        private ResultSet lastResult;
+        private boolean closed;
+
+        private StatementHandler(PooledConnection pc, String sql, PreparedStatement st, boolean cached) {
+            this.pc = pc;
+            this.sql = sql;
+            this.st = st;
+            this.cached = cached;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (!cached) {
+                            st.close();
+                            return null;
+                        }
+                        // An open result set would keep the read transaction open
+                        if (lastResult != null) {
+                            lastResult.close();
+                        }
+                        st.clearParameters();
+                        pc.checkIn(sql, st);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || st.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                case "isWrapperFor":
+                    return unwrap(proxy, method, args);
+                case "getConnection":
+                    throw new SQLException("The connection of a pooled statement is not available.");
+            }
+            if (closed) {
+                throw new SQLException("The statement is closed.");
+            }
+            Object result = invokeTarget(st, method, args);
+            if (result instanceof ResultSet) {
+                lastResult = (ResultSet) result;
+            }
+            return result;
+        }
+    }
+
+    // Only the proxy itself is exposed, so callers can't keep the physical connection after returning it
+    private static Object unwrap(Object proxy, Method method, Object[] args) throws SQLException {
+        Class<?> iface = (Class<?>) args[0];
+        if ("isWrapperFor".equals(method.getName())) {
+            return iface.isInstance(proxy);
+        }
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw new SQLException("A pooled object can't be unwrapped to " + iface.getName());
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+}
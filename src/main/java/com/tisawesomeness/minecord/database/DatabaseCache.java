@@ -1,26 +1,34 @@
 package com.tisawesomeness.minecord.database;
 
+import com.tisawesomeness.minecord.Lang;
 import com.tisawesomeness.minecord.config.serial.Config;
 import com.tisawesomeness.minecord.database.dao.DbChannel;
 import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.database.dao.DbObject;
 import com.tisawesomeness.minecord.database.dao.DbUser;
+import com.tisawesomeness.minecord.database.store.RowStore;
+import com.tisawesomeness.minecord.database.store.Storage;
+import com.tisawesomeness.minecord.setting.SettingRegistry;
 import com.tisawesomeness.minecord.util.type.SQLFunction;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
-import lombok.Cleanup;
+import lombok.Getter;
 import lombok.NonNull;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
 
 /**
  * Handles cached values from the database in order to minimize creating expensive database connections
@@ -29,25 +37,48 @@ public class DatabaseCache {
 
     private final Database db;
 
-    private final LoadingCache<Long, DbGuild> guilds;
-    private final LoadingCache<Long, DbChannel> channels;
-    private final LoadingCache<Long, DbUser> users;
+    // Rows that don't exist are cached as empty, since most guilds, channels, and users never change a setting
+    private final LoadingCache<Long, Optional<DbGuild>> guilds;
+    private final LoadingCache<Long, Optional<DbChannel>> channels;
+    private final LoadingCache<Long, Optional<DbUser>> users;
+    @Getter private final AbsentCounter absentGuilds = new AbsentCounter();
+    @Getter private final AbsentCounter absentChannels = new AbsentCounter();
+    @Getter private final AbsentCounter absentUsers = new AbsentCounter();
+    // IDs with a row in each table, IDs not in these sets are never queried
+    @Getter private final IdSet guildIds;
+    @Getter private final IdSet channelIds;
+    @Getter private final IdSet userIds;
+    // Guild ID --> channels with a row in the database, invalidated when any channel in the guild is updated
+    private final LoadingCache<Long, List<DbChannel>> guildChannels;
+    // Channel ID --> settings snapshot, invalidated with the channel or its guild
+    private final Cache<Long, ResolvedSettings> resolved;
 
     /**
      * Sets up the cache to mirror database tables.
      * @param db The database used to load values from
      * @param config If debugMode is true, cache stats are recorded (at the cost of performance)
+     * @throws SQLException If the IDs in each table could not be read
      */
-    public DatabaseCache(Database db, Config config) {
+    public DatabaseCache(Database db, Config config) throws SQLException {
         this.db = db;
+        Storage storage = db.getStorage();
+        guildIds = IdSet.of(storage.getGuilds().loadIds());
+        channelIds = IdSet.of(storage.getChannels().loadIds());
+        userIds = IdSet.of(storage.getUsers().loadIds());
         Caffeine<Object, Object> builder = Caffeine.newBuilder()
                 .expireAfterAccess(10, TimeUnit.MINUTES);
         if (config.getFlagConfig().isDebugMode()) {
             builder.recordStats();
         }
-        guilds = build(builder, key -> DbGuild.load(db, key));
-        channels = build(builder, key -> DbChannel.load(db, key));
-        users = build(builder, key -> DbUser.load(db, key));
+        WriteBehindQueue writes = db.getWriteQueue();
+        guilds = build(builder, key -> loadOptional(key, writes::getGuild, guildIds, absentGuilds,
+                storage.getGuilds()::load));
+        channels = build(builder, key -> loadOptional(key, writes::getChannel, channelIds, absentChannels,
+                storage.getChannels()::load));
+        users = build(builder, key -> loadOptional(key, writes::getUser, userIds, absentUsers,
+                storage.getUsers()::load));
+        guildChannels = build(builder, this::loadChannelsInGuild);
+        resolved = builder.build();
     }
 
     // Shortens code by matching loadFunction type to cache type, getting rid of the explicit CacheLoader declaration
@@ -55,6 +86,31 @@ public class DatabaseCache {
             Caffeine<Object, Object> builder, SQLFunction<? super T, ? extends R> loadFunction) {
         return builder.build(loadFunction::apply);
     }
+    private static <T> Optional<T> loadOptional(long id, LongFunction<T> pendingFunction, IdSet ids,
+            AbsentCounter counter, SQLFunction<Long, T> loadFunction) throws SQLException {
+        // Queued writes are newer than the database
+        T pending = pendingFunction.apply(id);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        if (!ids.contains(id)) {
+            ids.recordSkip();
+            return Optional.empty();
+        }
+        T value = loadFunction.applyThrows(id);
+        if (value == null) {
+            counter.recordMiss();
+            ids.recordFalsePositive();
+        }
+        return Optional.ofNullable(value);
+    }
+    private static <T> Optional<T> lookup(LoadingCache<Long, Optional<T>> cache, long id, AbsentCounter counter) {
+        Optional<T> value = cache.get(id);
+        if (!value.isPresent()) {
+            counter.recordLookup();
+        }
+        return value;
+    }
 
     /**
      * Either gets a guild from the cache or queries the database for it.
@@ -63,11 +119,7 @@ public class DatabaseCache {
      * @return The guild if present, or a new default guild
      */
     public @NonNull DbGuild getGuild(long id) {
-        DbGuild guild = guilds.get(id);
-        if (guild == null) {
-            return new DbGuild(db, id);
-        }
-        return guild;
+        return lookup(guilds, id, absentGuilds).orElseGet(() -> new DbGuild(db, id));
     }
 
     /**
@@ -77,7 +129,7 @@ public class DatabaseCache {
      * @return The channel if present, or an empty Optional if not present in the database or an exception occured
      */
     public Optional<DbChannel> getChannel(long id) {
-        return Optional.ofNullable(channels.get(id));
+        return lookup(channels, id, absentChannels);
     }
     /**
      * Either gets a channel from the cache or queries the database for it.
@@ -86,11 +138,7 @@ public class DatabaseCache {
      * @return The channel if present, or a new default channel
      */
     public @NonNull DbChannel getChannel(long id, long guildId) {
-        DbChannel channel = channels.get(id);
-        if (channel == null) {
-            return new DbChannel(db, id, guildId);
-        }
-        return channel;
+        return lookup(channels, id, absentChannels).orElseGet(() -> new DbChannel(db, id, guildId));
     }
     /**
      * Gets all channels in the database that have the specified guild id.
@@ -99,23 +147,100 @@ public class DatabaseCache {
      */
     public List<DbChannel> getChannelsInGuild(long id) {
         try {
-            @Cleanup Connection connect = db.getConnect();
-            @Cleanup PreparedStatement st = connect.prepareStatement("SELECT * FROM channel WHERE guild_id = ?;");
-            st.setLong(1, id);
-            ResultSet rs = st.executeQuery();
-            List<DbChannel> channelList = new ArrayList<>();
-            while (rs.next()) {
-                // Placing channels directly in cache to speed up later requests
-                DbChannel channel = DbChannel.from(db, rs);
-                channels.put(channel.getId(), channel);
-                channelList.add(channel);
-            }
-            return Collections.unmodifiableList(channelList);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+            return guildChannels.get(id);
+        } catch (CompletionException ex) {
+            ex.getCause().printStackTrace();
         }
         return Collections.emptyList();
     }
+    private List<DbChannel> loadChannelsInGuild(long id) throws SQLException {
+        Map<Long, DbChannel> channelMap = new LinkedHashMap<>();
+        for (DbChannel channel : db.getStorage().getChannels().loadInGuild(id)) {
+            channelMap.put(channel.getId(), channel);
+        }
+        // Queued writes are newer than the database, and may include channels not written yet
+        for (DbChannel pending : db.getWriteQueue().getChannelsInGuild(id)) {
+            channelMap.put(pending.getId(), pending);
+        }
+        for (DbChannel channel : channelMap.values()) {
+            // Placing channels directly in cache to speed up later requests
+            channels.put(channel.getId(), Optional.of(channel));
+        }
+        return Collections.unmodifiableList(new ArrayList<>(channelMap.values()));
+    }
+
+    /**
+     * Loads stored guilds, channels, and users into the caches in bulk,
+     * so the first message from each one does not have to wait for the database.
+     * <br>This should be called before the bot accepts commands, since an update made during the warm-up
+     * could be replaced by the row that was just loaded.
+     * @param limit The maximum number of rows to load across all tables
+     * @return The number of rows loaded
+     * @throws SQLException If a database error occurs
+     */
+    public int warmUp(int limit) throws SQLException {
+        Storage storage = db.getStorage();
+        int loaded = warmUp(guilds, storage.getGuilds(), limit);
+        loaded += warmUp(channels, storage.getChannels(), limit - loaded);
+        loaded += warmUp(users, storage.getUsers(), limit - loaded);
+        return loaded;
+    }
+    private static <T extends DbObject> int warmUp(LoadingCache<Long, Optional<T>> cache, RowStore<T> store,
+            int limit) throws SQLException {
+        if (limit <= 0) {
+            return 0;
+        }
+        List<T> rows = store.loadAll(limit);
+        for (T row : rows) {
+            // Never replace a value that was already loaded
+            cache.asMap().putIfAbsent(row.getId(), Optional.of(row));
+        }
+        return rows.size();
+    }
+
+    /**
+     * Copies every cached row from the cache of a database that is being replaced by a reload,
+     * so the new cache does not start cold.
+     * <br>Resolved settings are not copied, since the reload may have changed the default prefix or language.
+     * <br>Both databases must use the same storage, and the old database's queued writes must already be written.
+     * Copied rows are moved over to this cache's database, so updating them writes to the new database.
+     * @param old The cache to copy from
+     */
+    public void inherit(@NonNull DatabaseCache old) {
+        // Values already loaded by this cache are newer
+        old.guilds.asMap().forEach((id, guild) ->
+                guilds.asMap().putIfAbsent(id, guild.map(g -> g.withDb(db))));
+        old.channels.asMap().forEach((id, channel) ->
+                channels.asMap().putIfAbsent(id, channel.map(c -> c.withDb(db))));
+        old.users.asMap().forEach((id, user) ->
+                users.asMap().putIfAbsent(id, user.map(u -> u.withDb(db))));
+        old.guildChannels.asMap().forEach((id, list) ->
+                guildChannels.asMap().putIfAbsent(id, list.stream()
+                        .map(c -> c.withDb(db))
+                        .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList))));
+    }
+
+    /**
+     * Gets the prefix, language, and guild ban status for a guild channel in a single lookup.
+     * <br>The snapshot is built from the channel and guild caches the first time it is requested,
+     * then memoized until the channel or guild is updated.
+     * @param channelId The channel id
+     * @param guildId The guild id
+     * @param settings The settings used to resolve the defaults
+     * @return The resolved settings for the channel
+     */
+    public @NonNull ResolvedSettings getSettings(long channelId, long guildId, @NonNull SettingRegistry settings) {
+        return resolved.get(channelId, ignore -> resolve(channelId, guildId, settings));
+    }
+    private ResolvedSettings resolve(long channelId, long guildId, SettingRegistry settings) {
+        DbChannel channel = getChannel(channelId, guildId);
+        DbGuild guild = getGuild(guildId);
+        String prefix = settings.prefix.get(channel)
+                .orElseGet(() -> settings.prefix.getEffective(guild));
+        Lang lang = settings.lang.get(channel)
+                .orElseGet(() -> settings.lang.getEffective(guild));
+        return new ResolvedSettings(channelId, guildId, prefix, lang, guild.isBanned());
+    }
 
     /**
      * Either gets a user from the cache or queries the database for it.
@@ -123,11 +248,7 @@ public class DatabaseCache {
      * @return The user if present, or a new default user
      */
     public DbUser getUser(long id) {
-        DbUser user = users.get(id);
-        if (user == null) {
-            return new DbUser(db, id);
-        }
-        return user;
+        return lookup(users, id, absentUsers).orElseGet(() -> new DbUser(db, id));
     }
 
     /**
@@ -137,6 +258,8 @@ public class DatabaseCache {
      */
     public void invalidateGuild(long id) {
         guilds.invalidate(id);
+        // Guild updates are rare enough that scanning every snapshot is fine
+        resolved.asMap().values().removeIf(rs -> rs.getGuildId() == id);
     }
     /**
      * Marks a channel as no longer valid, meaning the next {@link #getChannel(long, long)} operation
@@ -145,6 +268,15 @@ public class DatabaseCache {
      */
     public void invalidateChannel(long id) {
         channels.invalidate(id);
+        resolved.invalidate(id);
+    }
+    /**
+     * Marks the channel list of a guild as no longer valid, meaning the next {@link #getChannelsInGuild(long)}
+     * operation will grab an updated list from the database.
+     * @param guildId The guild id
+     */
+    public void invalidateChannelsInGuild(long guildId) {
+        guildChannels.invalidate(guildId);
     }
     /**
      * Marks a user as no longer valid, meaning the next {@link #getUser(long)} operation
@@ -164,5 +296,11 @@ public class DatabaseCache {
     public CacheStats getUserStats() {
         return users.stats();
     }
+    public CacheStats getGuildChannelsStats() {
+        return guildChannels.stats();
+    }
+    public CacheStats getSettingsStats() {
+        return resolved.stats();
+    }
 
 }
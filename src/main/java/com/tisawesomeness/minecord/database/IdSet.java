@@ -0,0 +1,87 @@
+package com.tisawesomeness.minecord.database;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The set of IDs that have a row in a database table, stored as a sorted array.
+ * <br>Only a tiny fraction of guilds, channels, and users are ever in the database,
+ * so checking this set lets the cache skip querying for IDs that are known to be absent.
+ * <br>Reads are lock-free, and writes copy the array, since new rows are rare.
+ */
+public class IdSet {
+
+    private volatile long[] ids;
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private IdSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a set from every ID in a table.
+     * @param ids The IDs, in any order, which are copied
+     * @return A new set with every ID
+     */
+    public static IdSet of(long @NonNull [] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return new IdSet(sorted);
+    }
+
+    /**
+     * Checks if an ID may be in the table.
+     * @param id The ID
+     * @return True if the ID was in the table when loaded or has been added since
+     */
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+    /**
+     * Adds an ID to the set, should be called whenever a row is inserted.
+     * @param id The ID
+     */
+    public synchronized void add(long id) {
+        long[] current = ids;
+        int i = Arrays.binarySearch(current, id);
+        if (i >= 0) {
+            return;
+        }
+        int insert = -(i + 1);
+        long[] updated = new long[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insert);
+        updated[insert] = id;
+        System.arraycopy(current, insert, updated, insert + 1, current.length - insert);
+        ids = updated;
+    }
+
+    /**
+     * @return The number of IDs in the set
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    void recordSkip() {
+        skipped.increment();
+    }
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+    /**
+     * @return The number of loads that skipped the database since the ID was not in the set
+     */
+    public long getSkipCount() {
+        return skipped.sum();
+    }
+    /**
+     * @return The number of loads where the ID was in the set but no row was found
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+}
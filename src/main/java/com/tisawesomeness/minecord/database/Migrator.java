@@ -0,0 +1,327 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.util.RequestUtils;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upgrades the database schema by running the {@code migrate_N.sql} scripts in resources.
+ * <br>Every database change increments the version, and {@code migrate_N.sql} upgrades the database
+ * from version N-1 to N. A new database is created at version 1 with {@code init.sql}.
+ * <br>Each script runs in its own transaction along with the version bump in the {@code minecord} table,
+ * so a failed migration leaves the database at the previous version.
+ * <br>Applied migrations are recorded in the {@code migration} table with a checksum of the script,
+ * and the bot refuses to start if a script changed after it was applied.
+ */
+public class Migrator {
+
+    private static final String INIT_SCRIPT = "init.sql";
+    private static final String MIGRATION_FORMAT = "migrate_%d.sql";
+    private static final int BASE_VERSION = 1;
+
+    private static final String SQL_CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS migration (\n" +
+            "    version    INT(5) PRIMARY KEY NOT NULL,\n" +
+            "    checksum   TEXT(64) NOT NULL,\n" +
+            "    applied_at BIGINT(20) NOT NULL\n" +
+            ");";
+    private static final String SQL_RECORD = "INSERT OR REPLACE INTO migration (version, checksum, applied_at) " +
+            "VALUES(?, ?, ?);";
+
+    private final List<Migration> migrations;
+
+    /**
+     * Creates a migrator and loads every migration script from resources.
+     */
+    public Migrator() {
+        migrations = findMigrations();
+    }
+    private static List<Migration> findMigrations() {
+        List<Migration> list = new ArrayList<>();
+        // Scripts must be numbered without gaps, the first missing script is the end
+        for (int v = BASE_VERSION + 1; ; v++) {
+            String resource = String.format(MIGRATION_FORMAT, v);
+            if (Migrator.class.getClassLoader().getResource(resource) == null) {
+                return Collections.unmodifiableList(list);
+            }
+            String script = RequestUtils.loadResource(resource);
+            list.add(new Migration(v, resource, script, checksum(script)));
+        }
+    }
+    private static String checksum(String script) {
+        return Hashing.sha256().hashString(script, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return The version the database will be at once every migration is applied
+     */
+    public int getLatestVersion() {
+        return BASE_VERSION + migrations.size();
+    }
+
+    /**
+     * Finds out what {@link #migrate(Connection)} would do without changing the database.
+     * <br>Only reads are made, so the connection may be read-only.
+     * @param connect The connection to the database
+     * @return The plan, with the current version, pending migrations, and any changed scripts
+     * @throws SQLException If the database could not be read
+     */
+    public Plan plan(@NonNull Connection connect) throws SQLException {
+        int version = getVersion(connect);
+        Map<Integer, String> applied = getApplied(connect);
+        return new Plan(version, getLatestVersion(), getPending(version), findMismatches(version, applied));
+    }
+
+    /**
+     * Creates the database if it does not exist, then applies every pending migration in order.
+     * @param connect The connection to the database
+     * @return The number of migrations applied
+     * @throws SQLException If a migration failed, in which case the database is left at the last good version
+     * @throws IllegalStateException If the database is newer than the bot or an applied script was changed
+     */
+    public int migrate(@NonNull Connection connect) throws SQLException {
+        int version = getVersion(connect);
+        if (version == 0) {
+            System.out.println("Creating database...");
+            runInTransaction(connect, () -> runScript(connect, RequestUtils.loadResource(INIT_SCRIPT)));
+            version = BASE_VERSION;
+        }
+        if (version > getLatestVersion()) {
+            String err = String.format("The database version is %s but the bot expects %s or lower!",
+                    version, getLatestVersion());
+            throw new IllegalStateException(err);
+        }
+
+        @Cleanup Statement st = connect.createStatement();
+        st.executeUpdate(SQL_CREATE_HISTORY);
+        Map<Integer, String> applied = getApplied(connect);
+        // Databases migrated before the history table existed trust the scripts they were migrated with
+        for (Migration m : migrations) {
+            if (m.getVersion() <= version && !applied.containsKey(m.getVersion())) {
+                record(connect, m);
+                applied.put(m.getVersion(), m.getChecksum());
+            }
+        }
+        List<Migration> mismatches = findMismatches(version, applied);
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("These migration scripts changed after they were applied: " +
+                    describe(mismatches));
+        }
+
+        List<Migration> pending = getPending(version);
+        for (Migration m : pending) {
+            System.out.printf("Migrating database to version %s...%n", m.getVersion());
+            runInTransaction(connect, () -> {
+                runScript(connect, m.getScript());
+                setVersion(connect, m.getVersion());
+                record(connect, m);
+            });
+        }
+        return pending.size();
+    }
+
+    private List<Migration> getPending(int version) {
+        List<Migration> pending = new ArrayList<>();
+        for (Migration m : migrations) {
+            if (m.getVersion() > version) {
+                pending.add(m);
+            }
+        }
+        return pending;
+    }
+    private List<Migration> findMismatches(int version, Map<Integer, String> applied) {
+        List<Migration> mismatches = new ArrayList<>();
+        for (Migration m : migrations) {
+            String checksum = applied.get(m.getVersion());
+            if (m.getVersion() <= version && checksum != null && !checksum.equals(m.getChecksum())) {
+                mismatches.add(m);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Gets the current Minecord database version, used to determine which upgrade scripts to use.
+     * @return A positive integer version, or 0 if the version is not tracked.
+     */
+    private static int getVersion(Connection connect) throws SQLException {
+        if (!tableExists(connect, "minecord")) {
+            return 0;
+        }
+        @Cleanup Statement st = connect.createStatement();
+        ResultSet versionRS = st.executeQuery(
+                "SELECT version FROM minecord;"
+        );
+        // Minecord table has only one row
+        versionRS.next();
+        return versionRS.getInt("version");
+    }
+    private static void setVersion(Connection connect, int version) throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement("UPDATE minecord SET version = ?;");
+        st.setInt(1, version);
+        st.executeUpdate();
+    }
+
+    private static Map<Integer, String> getApplied(Connection connect) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        if (!tableExists(connect, "migration")) {
+            return applied;
+        }
+        @Cleanup Statement st = connect.createStatement();
+        ResultSet rs = st.executeQuery("SELECT version, checksum FROM migration;");
+        while (rs.next()) {
+            applied.put(rs.getInt("version"), rs.getString("checksum"));
+        }
+        return applied;
+    }
+    private static void record(Connection connect, Migration m) throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_RECORD);
+        st.setInt(1, m.getVersion());
+        st.setString(2, m.getChecksum());
+        st.setLong(3, System.currentTimeMillis());
+        st.executeUpdate();
+    }
+
+    private static boolean tableExists(Connection connect, String table) throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(
+                "SELECT name FROM sqlite_master WHERE type='table' AND name=?;"
+        );
+        st.setString(1, table);
+        // Query returns 1 result if table exists, 0 results if table does not exist
+        return st.executeQuery().next();
+    }
+
+    /**
+     * Runs a .sql script.
+     * <br>This assumes that each statement in the script is separated by semicolons.
+     */
+    private static void runScript(Connection connect, String script) throws SQLException {
+        @Cleanup Statement statement = connect.createStatement();
+        for (String query : Splitter.on(";").trimResults().omitEmptyStrings().split(script)) {
+            statement.executeUpdate(query);
+        }
+    }
+
+    private static void runInTransaction(Connection connect, SQLRunnable action) throws SQLException {
+        connect.setAutoCommit(false);
+        try {
+            action.run();
+            connect.commit();
+        } catch (SQLException | RuntimeException ex) {
+            connect.rollback();
+            throw ex;
+        } finally {
+            connect.setAutoCommit(true);
+        }
+    }
+
+    private static String describe(List<Migration> list) {
+        StringBuilder sb = new StringBuilder();
+        for (Migration m : list) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(m.getResource());
+        }
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    private interface SQLRunnable {
+        void run() throws SQLException;
+    }
+
+    /**
+     * A single migration script.
+     */
+    @Value
+    public static class Migration {
+        /**
+         * The version the database is at after this migration
+         */
+        int version;
+        /**
+         * The name of the script in resources
+         */
+        @NonNull String resource;
+        @NonNull String script;
+        /**
+         * The SHA-256 of the script, in hex
+         */
+        @NonNull String checksum;
+    }
+
+    /**
+     * What {@link Migrator#migrate(Connection)} would do to the database.
+     */
+    @Value
+    public static class Plan {
+        /**
+         * The current version, or 0 if the database does not exist yet
+         */
+        int currentVersion;
+        int latestVersion;
+        /**
+         * The migrations that would be applied, in order
+         */
+        @NonNull List<Migration> pending;
+        /**
+         * Applied migrations whose script changed since, which stop the bot from starting
+         */
+        @NonNull List<Migration> mismatches;
+
+        /**
+         * @return A human-readable summary of the plan
+         */
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            if (currentVersion == 0) {
+                sb.append(String.format("The database does not exist yet and would be created with %s.%n",
+                        INIT_SCRIPT));
+            } else {
+                sb.append(String.format("The database is at version %s.%n", currentVersion));
+            }
+            if (currentVersion > latestVersion) {
+                sb.append(String.format("The bot only supports up to version %s!%n", latestVersion));
+            }
+            for (Migration m : mismatches) {
+                sb.append(String.format("%s changed after it was applied!%n", m.getResource()));
+            }
+            if (pending.isEmpty()) {
+                sb.append("No migrations to apply.");
+            } else {
+                for (Migration m : pending) {
+                    sb.append(String.format("Would apply %s (version %s, sha256 %s)%n",
+                            m.getResource(), m.getVersion(), m.getChecksum()));
+                }
+                sb.append(String.format("%s migration(s) would upgrade the database to version %s.",
+                        pending.size(), latestVersion));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @return Whether {@link Migrator#migrate(Connection)} would succeed,
+         * as far as can be told without running the scripts
+         */
+        public boolean isValid() {
+            return currentVersion <= latestVersion && mismatches.isEmpty();
+        }
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.database.dao.ProfileEntry;
+import com.tisawesomeness.minecord.database.store.ProfileStore;
+import com.tisawesomeness.minecord.util.NameUtils;
+import com.tisawesomeness.minecord.util.RequestUtils;
+import com.tisawesomeness.minecord.util.type.HttpResult;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+import lombok.NonNull;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches Mojang profile lookups in memory, backed by the {@link ProfileStore} so they survive restarts.
+ * <br>The Mojang API allows 600 requests every 10 minutes, and the same popular names are looked up constantly.
+ * <br>Players that don't exist are cached for a shorter time, since the name could be taken at any moment.
+ * Requests that fail are not cached at all.
+ * <br>Concurrent lookups of the same key wait for a single request instead of each sending their own,
+ * and lookups of different names are sent together through the {@link UUIDBatcher}.
+ */
+public class ProfileCache {
+
+    // Names can only be changed every 30 days, so a few hours of staleness is rare
+    private static final long UUID_TTL = TimeUnit.HOURS.toMillis(6);
+    private static final long HISTORY_TTL = TimeUnit.HOURS.toMillis(1);
+    private static final long MISSING_TTL = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_SIZE = 10_000;
+    // Longer than the HTTP timeouts, so a batch that never completes can't block a lookup forever
+    private static final long BATCH_TIMEOUT = 30;
+
+    private final ProfileStore store;
+    private final Function<String, Optional<HttpResult>> fetcher;
+    @Getter private final UUIDBatcher batcher;
+    // Lowercase name, optionally with ?at=timestamp --> UUID without dashes
+    private final LoadingCache<String, ProfileEntry> uuids;
+    // UUID without dashes --> name history JSON
+    private final LoadingCache<String, ProfileEntry> histories;
+    private final LongAdder storedUUIDHits = new LongAdder();
+    private final LongAdder storedHistoryHits = new LongAdder();
+
+    /**
+     * Creates an empty profile cache.
+     * @param store The store used as the second cache level
+     * @param recordStats Whether to record cache stats (at the cost of performance)
+     */
+    public ProfileCache(@NonNull ProfileStore store, boolean recordStats) {
+        this(store, recordStats, RequestUtils::getWithStatus, new UUIDBatcher());
+    }
+    /**
+     * Creates an empty profile cache.
+     * @param store The store used as the second cache level
+     * @param recordStats Whether to record cache stats (at the cost of performance)
+     * @param fetcher Sends a GET request to a URL, returning empty if the request could not be made
+     * @param batcher Resolves names to UUIDs in batches
+     */
+    ProfileCache(@NonNull ProfileStore store, boolean recordStats,
+                 @NonNull Function<String, Optional<HttpResult>> fetcher, @NonNull UUIDBatcher batcher) {
+        this.store = store;
+        this.fetcher = fetcher;
+        this.batcher = batcher;
+        uuids = build(recordStats, UUID_TTL, this::loadUUID);
+        histories = build(recordStats, HISTORY_TTL, this::loadHistory);
+    }
+    private static LoadingCache<String, ProfileEntry> build(boolean recordStats, long ttl,
+                                                            Function<String, ProfileEntry> loader) {
+        Caffeine<String, ProfileEntry> builder = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .expireAfter(new EntryExpiry(ttl));
+        if (recordStats) {
+            builder.recordStats();
+        }
+        return builder.build(loader::apply);
+    }
+
+    /**
+     * Copies every entry from another profile cache, used when reloading.
+     * @param old The cache to copy from
+     */
+    public void inherit(@NonNull ProfileCache old) {
+        // Values already loaded by this cache are newer
+        old.uuids.asMap().forEach(uuids.asMap()::putIfAbsent);
+        old.histories.asMap().forEach(histories.asMap()::putIfAbsent);
+    }
+
+    /**
+     * Gets a UUID from a playername.
+     * @param name The playername, case-insensitive
+     * @return The UUID without dashes, or null if the player does not exist or the Mojang API could not be reached
+     */
+    public @Nullable String getUUID(@NonNull String name) {
+        return get(uuids, name.toLowerCase());
+    }
+    /**
+     * Gets a UUID from the player that had a name at a certain time.
+     * @param name The playername, case-insensitive
+     * @param timestamp The Unix timestamp
+     * @return The UUID without dashes, or null if the player does not exist or the Mojang API could not be reached
+     */
+    public @Nullable String getUUID(@NonNull String name, long timestamp) {
+        return get(uuids, name.toLowerCase() + "?at=" + timestamp);
+    }
+
+    /**
+     * Gets the name history of a player.
+     * @param uuid The UUID, with or without dashes
+     * @return The name history as returned by Mojang, from oldest to newest,
+     * or null if the player does not exist or the Mojang API could not be reached
+     */
+    public @Nullable String getHistory(@NonNull String uuid) {
+        return get(histories, uuid.replace("-", "").toLowerCase());
+    }
+    /**
+     * Gets the current name of a player.
+     * @param uuid The UUID, with or without dashes
+     * @return The name, or null if the player does not exist or the Mojang API could not be reached
+     */
+    public @Nullable String getName(@NonNull String uuid) {
+        String history = getHistory(uuid);
+        if (history == null) {
+            return null;
+        }
+        JSONArray names = new JSONArray(history);
+        return names.getJSONObject(names.length() - 1).getString("name");
+    }
+
+    private static @Nullable String get(LoadingCache<String, ProfileEntry> cache, String key) {
+        try {
+            return cache.get(key).getValue();
+        } catch (CompletionException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    private ProfileEntry loadUUID(String key) {
+        ProfileEntry stored = loadStored(key, store::loadUUID, UUID_TTL);
+        if (stored != null) {
+            storedUUIDHits.increment();
+            return stored;
+        }
+        // Lookups at a timestamp and invalid names can't go through the bulk endpoint
+        ProfileEntry fetched = UUIDBatcher.canBatch(key) ? fetchBatched(key) :
+                fetch(NameUtils.getUUIDURL(key), body -> new JSONObject(body).getString("id"));
+        save(key, fetched, store::saveUUID);
+        return fetched;
+    }
+    private ProfileEntry loadHistory(String uuid) {
+        ProfileEntry stored = loadStored(uuid, store::loadHistory, HISTORY_TTL);
+        if (stored != null) {
+            storedHistoryHits.increment();
+            return stored;
+        }
+        ProfileEntry fetched = fetch(NameUtils.getHistoryURL(uuid), ProfileCache::checkHistory);
+        save(uuid, fetched, store::saveHistory);
+        return fetched;
+    }
+
+    // The store is only a second level, so a broken store falls back to Mojang instead of failing the lookup
+    private static @Nullable ProfileEntry loadStored(String key, StoreReader reader, long ttl) {
+        try {
+            ProfileEntry entry = reader.load(key);
+            if (entry != null && remaining(entry, ttl) > 0) {
+                return entry;
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+    private static void save(String key, ProfileEntry entry, StoreWriter writer) {
+        try {
+            writer.save(key, entry);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private ProfileEntry fetch(String url, Function<String, String> parser) {
+        HttpResult result = fetcher.apply(url)
+                .orElseThrow(() -> new CompletionException(new IOException("Could not reach " + url)));
+        long now = System.currentTimeMillis();
+        switch (result.getCode()) {
+            case HttpURLConnection.HTTP_OK:
+                try {
+                    return new ProfileEntry(parser.apply(result.getBody()), now);
+                } catch (JSONException ex) {
+                    throw new CompletionException(new IOException(url + " responded with invalid JSON", ex));
+                }
+            // Mojang responds with 204 for players that don't exist and 400 for names that can't exist
+            case HttpURLConnection.HTTP_NO_CONTENT:
+            case HttpURLConnection.HTTP_BAD_REQUEST:
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                return new ProfileEntry(null, now);
+            default:
+                String msg = String.format("%s responded with status %d", url, result.getCode());
+                throw new CompletionException(new IOException(msg));
+        }
+    }
+
+    // The history is kept as JSON, but is checked here so getName() can't fail on a broken response
+    private static String checkHistory(String body) {
+        if (new JSONArray(body).length() == 0) {
+            throw new JSONException("The name history is empty");
+        }
+        return body;
+    }
+
+    private ProfileEntry fetchBatched(String name) {
+        try {
+            Optional<String> uuid = batcher.resolve(name).get(BATCH_TIMEOUT, TimeUnit.SECONDS);
+            return new ProfileEntry(uuid.orElse(null), System.currentTimeMillis());
+        } catch (ExecutionException ex) {
+            throw new CompletionException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new CompletionException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * @param entry The entry
+     * @param ttl How long a present entry lasts
+     * @return The number of millis until the entry expires, which may be negative
+     */
+    private static long remaining(ProfileEntry entry, long ttl) {
+        long lifetime = entry.isPresent() ? ttl : MISSING_TTL;
+        return entry.getFetchedAt() + lifetime - System.currentTimeMillis();
+    }
+
+    /**
+     * Stops the UUID batcher, any batch waiting to be sent is still sent.
+     */
+    public void close() {
+        batcher.close();
+    }
+
+    /**
+     * @return The stats of the UUID cache, all zero unless debug mode is on
+     */
+    public CacheStats getUUIDStats() {
+        return uuids.stats();
+    }
+    /**
+     * @return The stats of the name history cache, all zero unless debug mode is on
+     */
+    public CacheStats getHistoryStats() {
+        return histories.stats();
+    }
+    /**
+     * @return The number of UUID lookups not in memory that were served from the store instead of Mojang
+     */
+    public long getStoredUUIDHits() {
+        return storedUUIDHits.sum();
+    }
+    /**
+     * @return The number of name history lookups not in memory that were served from the store instead of Mojang
+     */
+    public long getStoredHistoryHits() {
+        return storedHistoryHits.sum();
+    }
+
+    /**
+     * Expires each entry at the same time as it would expire in the store,
+     * so an entry loaded from the store doesn't get a fresh lifetime.
+     */
+    private static class EntryExpiry implements Expiry<String, ProfileEntry> {
+        private final long ttl;
+        private EntryExpiry(long ttl) {
+            this.ttl = ttl;
+        }
+        public long expireAfterCreate(String key, ProfileEntry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining(entry, ttl)));
+        }
+        public long expireAfterUpdate(String key, ProfileEntry entry,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+        public long expireAfterRead(String key, ProfileEntry entry,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StoreReader {
+        @Nullable ProfileEntry load(String key) throws SQLException;
+    }
+    @FunctionalInterface
+    private interface StoreWriter {
+        void save(String key, ProfileEntry entry) throws SQLException;
+    }
+
+}
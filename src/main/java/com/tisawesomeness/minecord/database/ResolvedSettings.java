@@ -0,0 +1,26 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.Lang;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A snapshot of everything needed to decide whether a message in a guild channel is a command.
+ * <br>Built by {@link DatabaseCache#getSettings(long, long, com.tisawesomeness.minecord.setting.SettingRegistry)}
+ * and invalidated whenever the channel or its guild is updated.
+ */
+@Value
+public class ResolvedSettings {
+    long channelId;
+    long guildId;
+    /**
+     * The effective prefix, after falling back to the guild and then the default
+     */
+    @NonNull String prefix;
+    /**
+     * The effective language, after falling back to the guild and then the default
+     */
+    @NonNull Lang lang;
+    boolean guildBanned;
+}
@@ -0,0 +1,191 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.util.NameUtils;
+import com.tisawesomeness.minecord.util.RequestUtils;
+
+import lombok.NonNull;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Resolves playernames to UUIDs in batches with the Mojang bulk profiles endpoint.
+ * <br>Names requested within a short window of each other are sent together in a single request,
+ * up to {@link #MAX_BATCH_SIZE} at a time, then each caller gets the answer for their name.
+ * A full batch is sent right away without waiting for the window.
+ * <br>The bulk endpoint rejects the whole batch if any name is invalid,
+ * so only names that pass {@link #canBatch(String)} should be resolved here.
+ */
+public class UUIDBatcher {
+
+    /**
+     * The maximum number of names the Mojang API accepts in a single request
+     */
+    public static final int MAX_BATCH_SIZE = 10;
+    private static final String BATCH_URL = "https://api.mojang.com/profiles/minecraft";
+    private static final long DEFAULT_WINDOW = 50;
+
+    private final Function<String, CompletableFuture<String>> poster;
+    private final long window;
+    private final ScheduledExecutorService exe = Executors.newSingleThreadScheduledExecutor();
+    // Lowercase name --> future for every caller waiting on that name, guarded by this
+    private Map<String, CompletableFuture<Optional<String>>> batch = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Creates a batcher that sends requests to Mojang.
+     */
+    public UUIDBatcher() {
+        this(json -> RequestUtils.postAsync(BATCH_URL, json), DEFAULT_WINDOW);
+    }
+    /**
+     * Creates a batcher.
+     * @param poster Sends a JSON array of names to the bulk endpoint,
+     *               completing with the response body or null if the request failed
+     * @param window How long to wait for more names before sending a batch, in milliseconds
+     */
+    UUIDBatcher(@NonNull Function<String, CompletableFuture<String>> poster, long window) {
+        this.poster = poster;
+        this.window = window;
+    }
+
+    /**
+     * @param name The playername
+     * @return Whether the name can be resolved in a batch without invalidating the rest of the batch
+     */
+    public static boolean canBatch(@NonNull String name) {
+        return name.matches(NameUtils.playerRegex);
+    }
+
+    /**
+     * Adds a name to the next batch.
+     * @param name The playername, case-insensitive
+     * @return A future with the UUID without dashes, or empty if no player has the name.
+     * The future completes exceptionally with an {@link IOException} if the request failed.
+     */
+    public CompletableFuture<Optional<String>> resolve(@NonNull String name) {
+        String key = name.toLowerCase();
+        lookups.increment();
+        CompletableFuture<Optional<String>> future;
+        Map<String, CompletableFuture<Optional<String>>> full = null;
+        synchronized (this) {
+            future = batch.get(key);
+            if (future != null) {
+                return future.thenApply(uuid -> uuid);
+            }
+            future = new CompletableFuture<>();
+            if (batch.isEmpty()) {
+                try {
+                    timer = exe.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ignore) {
+                    // Closed, so the name is sent on its own right away
+                }
+            }
+            batch.put(key, future);
+            if (batch.size() >= MAX_BATCH_SIZE || timer == null) {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                full = takeBatch();
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return future.thenApply(uuid -> uuid);
+    }
+
+    private void flush() {
+        Map<String, CompletableFuture<Optional<String>>> names;
+        synchronized (this) {
+            names = takeBatch();
+        }
+        if (!names.isEmpty()) {
+            send(names);
+        }
+    }
+    // Must hold the lock
+    private Map<String, CompletableFuture<Optional<String>>> takeBatch() {
+        Map<String, CompletableFuture<Optional<String>>> names = batch;
+        batch = new LinkedHashMap<>();
+        timer = null;
+        return names;
+    }
+
+    private void send(Map<String, CompletableFuture<Optional<String>>> names) {
+        requests.increment();
+        CompletableFuture<String> response;
+        try {
+            response = poster.apply(new JSONArray(names.keySet()).toString());
+        } catch (RuntimeException ex) {
+            fail(names, ex);
+            return;
+        }
+        response.whenComplete((body, ex) -> {
+            if (ex != null) {
+                fail(names, ex);
+            } else if (body == null) {
+                fail(names, new IOException("The Mojang API could not be reached"));
+            } else {
+                complete(names, body);
+            }
+        });
+    }
+    private static void complete(Map<String, CompletableFuture<Optional<String>>> names, String body) {
+        Map<String, String> uuids = new HashMap<>();
+        try {
+            JSONArray profiles = new JSONArray(body);
+            for (int i = 0; i < profiles.length(); i++) {
+                JSONObject profile = profiles.getJSONObject(i);
+                uuids.put(profile.getString("name").toLowerCase(), profile.getString("id"));
+            }
+        } catch (JSONException ex) {
+            fail(names, ex);
+            return;
+        }
+        // Names that don't belong to a player are left out of the response
+        names.forEach((name, future) -> future.complete(Optional.ofNullable(uuids.get(name))));
+    }
+    private static void fail(Map<String, CompletableFuture<Optional<String>>> names, Throwable ex) {
+        IOException cause = ex instanceof IOException ? (IOException) ex : new IOException(ex);
+        names.values().forEach(future -> future.completeExceptionally(cause));
+    }
+
+    /**
+     * @return The number of names resolved, including names that shared a batch
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+    /**
+     * @return The number of requests sent to Mojang
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Stops the batching thread. The batch waiting to be sent is still sent,
+     * and names resolved afterwards are each sent on their own.
+     */
+    public void close() {
+        exe.shutdown();
+    }
+
+}
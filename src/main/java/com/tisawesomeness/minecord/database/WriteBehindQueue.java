@@ -0,0 +1,226 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.database.dao.DbUser;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds guild, channel, and user updates so they can be written to the database together in one transaction.
+ * <br>Updates to the same ID are coalesced, so only the latest version of each row is written.
+ * <br>Pending updates are visible through {@link #getGuild(long)} and friends until they are written,
+ * which the {@link DatabaseCache} checks before loading from the database.
+ */
+public class WriteBehindQueue {
+
+    private final @NonNull Database db;
+    private final boolean enabled;
+
+    private Map<Long, DbGuild> guilds = new HashMap<>();
+    private Map<Long, DbChannel> channels = new HashMap<>();
+    private Map<Long, DbUser> users = new HashMap<>();
+    // Updates currently being written, still visible to reads until the transaction commits
+    private Map<Long, DbGuild> flushingGuilds = Collections.emptyMap();
+    private Map<Long, DbChannel> flushingChannels = Collections.emptyMap();
+    private Map<Long, DbUser> flushingUsers = Collections.emptyMap();
+    private final Object flushLock = new Object();
+    private boolean closed;
+
+    /**
+     * Creates a new queue.
+     * @param db The database to write to
+     * @param enabled If false, nothing is queued and every update is written immediately
+     */
+    public WriteBehindQueue(@NonNull Database db, boolean enabled) {
+        this.db = db;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Queues a guild to be written on the next flush.
+     * @param guild The guild
+     * @return False if the queue is disabled or closed, and the guild should be written immediately
+     */
+    public synchronized boolean queue(@NonNull DbGuild guild) {
+        if (!canQueue()) {
+            return false;
+        }
+        guilds.put(guild.getId(), guild);
+        return true;
+    }
+    /**
+     * Queues a channel to be written on the next flush.
+     * @param channel The channel
+     * @return False if the queue is disabled or closed, and the channel should be written immediately
+     */
+    public synchronized boolean queue(@NonNull DbChannel channel) {
+        if (!canQueue()) {
+            return false;
+        }
+        channels.put(channel.getId(), channel);
+        return true;
+    }
+    /**
+     * Queues a user to be written on the next flush.
+     * @param user The user
+     * @return False if the queue is disabled or closed, and the user should be written immediately
+     */
+    public synchronized boolean queue(@NonNull DbUser user) {
+        if (!canQueue()) {
+            return false;
+        }
+        users.put(user.getId(), user);
+        return true;
+    }
+    private boolean canQueue() {
+        return enabled && !closed;
+    }
+
+    /**
+     * Gets a guild that has not been written yet.
+     * @param id The guild id
+     * @return The latest queued version of the guild, or null if there are no pending writes
+     */
+    public synchronized @Nullable DbGuild getGuild(long id) {
+        DbGuild guild = guilds.get(id);
+        return guild == null ? flushingGuilds.get(id) : guild;
+    }
+    /**
+     * Gets a channel that has not been written yet.
+     * @param id The channel id
+     * @return The latest queued version of the channel, or null if there are no pending writes
+     */
+    public synchronized @Nullable DbChannel getChannel(long id) {
+        DbChannel channel = channels.get(id);
+        return channel == null ? flushingChannels.get(id) : channel;
+    }
+    /**
+     * Gets every channel in a guild that has not been written yet.
+     * @param guildId The guild id
+     * @return A possibly-empty list of the latest queued version of each channel
+     */
+    public synchronized List<DbChannel> getChannelsInGuild(long guildId) {
+        if (channels.isEmpty() && flushingChannels.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, DbChannel> pending = new LinkedHashMap<>();
+        // Queued channels are newer than the ones being flushed
+        for (DbChannel channel : flushingChannels.values()) {
+            if (channel.getGuildId() == guildId) {
+                pending.put(channel.getId(), channel);
+            }
+        }
+        for (DbChannel channel : channels.values()) {
+            if (channel.getGuildId() == guildId) {
+                pending.put(channel.getId(), channel);
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+    /**
+     * Gets a user that has not been written yet.
+     * @param id The user id
+     * @return The latest queued version of the user, or null if there are no pending writes
+     */
+    public synchronized @Nullable DbUser getUser(long id) {
+        DbUser user = users.get(id);
+        return user == null ? flushingUsers.get(id) : user;
+    }
+
+    /**
+     * Writes every pending update in a single transaction.
+     * <br>If the write fails, the updates are put back in the queue unless a newer version was queued since.
+     */
+    public void flush() {
+        // Only one flush at a time, but queueing can continue while the flush is writing
+        synchronized (flushLock) {
+            Map<Long, DbGuild> guildBatch;
+            Map<Long, DbChannel> channelBatch;
+            Map<Long, DbUser> userBatch;
+            synchronized (this) {
+                if (guilds.isEmpty() && channels.isEmpty() && users.isEmpty()) {
+                    return;
+                }
+                guildBatch = guilds;
+                channelBatch = channels;
+                userBatch = users;
+                flushingGuilds = guildBatch;
+                flushingChannels = channelBatch;
+                flushingUsers = userBatch;
+                guilds = new HashMap<>();
+                channels = new HashMap<>();
+                users = new HashMap<>();
+            }
+            boolean success = write(guildBatch, channelBatch, userBatch);
+            synchronized (this) {
+                if (!success) {
+                    guildBatch.forEach(guilds::putIfAbsent);
+                    channelBatch.forEach(channels::putIfAbsent);
+                    userBatch.forEach(users::putIfAbsent);
+                }
+                flushingGuilds = Collections.emptyMap();
+                flushingChannels = Collections.emptyMap();
+                flushingUsers = Collections.emptyMap();
+            }
+        }
+    }
+    private boolean write(Map<Long, DbGuild> guildBatch, Map<Long, DbChannel> channelBatch,
+                          Map<Long, DbUser> userBatch) {
+        try {
+            db.getStorage().saveAll(guildBatch.values(), channelBatch.values(), userBatch.values());
+            return true;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Stops queueing new updates and writes everything that is still pending.
+     * <br>Any updates after this are written immediately.
+     * <br>A failed write is retried once. Updates that still could not be written are logged,
+     * and stay in the queue so they are visible to reads and a later {@link #flush()} can retry them.
+     * @return False if some updates could not be written
+     */
+    public boolean close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        if (getPending() > 0) {
+            flush();
+        }
+        synchronized (this) {
+            if (getPending() == 0) {
+                return true;
+            }
+            System.err.printf("Could not write %d queued updates on close. Guilds: %s, Channels: %s, Users: %s%n",
+                    getPending(), guilds.keySet(), channels.keySet(), users.keySet());
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether updates are being queued
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * @return The number of updates waiting for the next flush
+     */
+    public synchronized int getPending() {
+        return guilds.size() + channels.size() + users.size();
+    }
+
+}
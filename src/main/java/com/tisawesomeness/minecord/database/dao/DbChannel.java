@@ -6,14 +6,9 @@ import com.tisawesomeness.minecord.util.StatementUtils;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.Cleanup;
-import lombok.NonNull;
 import lombok.Value;
 import lombok.With;
 
-import javax.annotation.Nullable;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -27,14 +22,7 @@ import java.util.Optional;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class DbChannel implements SettingContainer, Bannable {
 
-    private static final String SQL_SELECT = "SELECT * FROM channel WHERE id = ?;";
-    private static final String SQL_UPDATE =
-            "UPDATE channel SET guild_id = ?, banned = ?, prefix = ?, lang = ?, use_menu = ? WHERE id = ?;";
-    private static final String SQL_INSERT =
-            "INSERT INTO channel (guild_id, banned, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?, ?);";
-
     Database db;
-    boolean inDB;
 
     long id;
     long guildId;
@@ -49,26 +37,7 @@ public class DbChannel implements SettingContainer, Bannable {
      * @param id The channel id
      */
     public DbChannel(Database db, long id, long guildId) {
-        this(db, false, id, guildId, false, Optional.empty(), Optional.empty(), Optional.empty());
-    }
-
-    /**
-     * Loads a channel from the database for use in a {@link com.google.common.cache.LoadingCache}.
-     * @param db The database to pull from
-     * @param key The channel id
-     * @return The channel, or empty if it is not in the database
-     * @throws SQLException If a database error occurs
-     */
-    public static @Nullable DbChannel load(@NonNull Database db, @NonNull Long key) throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
-        st.setLong(1, key);
-        ResultSet rs = st.executeQuery();
-        // The first next() call returns true if results exist
-        if (!rs.next()) {
-            return null;
-        }
-        return from(db, rs);
+        this(db, id, guildId, false, Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     /**
@@ -79,7 +48,7 @@ public class DbChannel implements SettingContainer, Bannable {
      * @throws SQLException If the ResultSet is closed or a column doesn't exist
      */
     public static DbChannel from(Database db, ResultSet rs) throws SQLException {
-        return new DbChannel(db, true,
+        return new DbChannel(db,
                 rs.getLong("id"),
                 rs.getLong("guild_id"),
                 rs.getBoolean("banned"),
@@ -91,20 +60,16 @@ public class DbChannel implements SettingContainer, Bannable {
 
     /**
      * Updates or inserts this channel into the database.
+     * <br>If write-behind is enabled, the write is queued instead, but the cache sees the change immediately.
      * @throws SQLException If a database error occurs
      */
     public void update() throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        String sql = inDB ? SQL_UPDATE : SQL_INSERT;
-        @Cleanup PreparedStatement st = connect.prepareStatement(sql);
-        st.setLong(1, guildId);
-        st.setBoolean(2, banned);
-        StatementUtils.setOptionalString(st, 3, prefix);
-        StatementUtils.setOptionalString(st, 4, lang.map(Lang::getCode));
-        StatementUtils.setOptionalBoolean(st, 5, useMenu);
-        st.setLong(6, id);
-        st.executeUpdate();
+        if (!db.getWriteQueue().queue(this)) {
+            db.getStorage().getChannels().save(this);
+        }
+        db.getCache().getChannelIds().add(id);
         db.getCache().invalidateChannel(id);
+        db.getCache().invalidateChannelsInGuild(guildId);
     }
 
 }
@@ -6,14 +6,9 @@ import com.tisawesomeness.minecord.util.StatementUtils;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.Cleanup;
-import lombok.NonNull;
 import lombok.Value;
 import lombok.With;
 
-import javax.annotation.Nullable;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -27,14 +22,7 @@ import java.util.Optional;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class DbGuild implements SettingContainer, Bannable {
 
-    private static final String SQL_SELECT = "SELECT * FROM guild WHERE id = ?;";
-    private static final String SQL_UPDATE =
-            "UPDATE guild SET banned = ?, prefix = ?, lang = ?, use_menu = ? WHERE id = ?;";
-    private static final String SQL_INSERT =
-            "INSERT INTO guild (banned, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?);";
-
     Database db;
-    boolean inDB;
 
     long id;
     boolean banned;
@@ -48,26 +36,18 @@ public class DbGuild implements SettingContainer, Bannable {
      * @param id The guild id
      */
     public DbGuild(Database db, long id) {
-        this(db, false, id, false, Optional.empty(), Optional.empty(), Optional.empty());
+        this(db, id, false, Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     /**
-     * Loads a guild from the database for use in a {@link com.google.common.cache.LoadingCache}.
-     * @param db The database to pull from
-     * @param key The guild id
-     * @return The guild, or empty if it is not in the database
-     * @throws SQLException If a database error occurs
+     * Creates a new guild object from a SQL query result.
+     * @param db The database reference needed to create the guild object
+     * @param rs The SQL query result, must be pointing to a valid row
+     * @return A new guild object
+     * @throws SQLException If the ResultSet is closed or a column doesn't exist
      */
-    public static @Nullable DbGuild load(@NonNull Database db, @NonNull Long key) throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
-        st.setLong(1, key);
-        ResultSet rs = st.executeQuery();
-        // The first next() call returns true if results exist
-        if (!rs.next()) {
-            return null;
-        }
-        return new DbGuild(db, true,
+    public static DbGuild from(Database db, ResultSet rs) throws SQLException {
+        return new DbGuild(db,
                 rs.getLong("id"),
                 rs.getBoolean("banned"),
                 StatementUtils.getOptionalString(rs, "prefix"),
@@ -78,18 +58,14 @@ public class DbGuild implements SettingContainer, Bannable {
 
     /**
      * Updates or inserts this guild into the database.
+     * <br>If write-behind is enabled, the write is queued instead, but the cache sees the change immediately.
      * @throws SQLException If a database error occurs
      */
     public void update() throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        String sql = inDB ? SQL_UPDATE : SQL_INSERT;
-        @Cleanup PreparedStatement st = connect.prepareStatement(sql);
-        st.setBoolean(1, banned);
-        StatementUtils.setOptionalString(st, 2, prefix);
-        StatementUtils.setOptionalString(st, 3, lang.map(Lang::getCode));
-        StatementUtils.setOptionalBoolean(st, 4, useMenu);
-        st.setLong(5, id);
-        st.executeUpdate();
+        if (!db.getWriteQueue().queue(this)) {
+            db.getStorage().getGuilds().save(this);
+        }
+        db.getCache().getGuildIds().add(id);
         db.getCache().invalidateGuild(id);
     }
 
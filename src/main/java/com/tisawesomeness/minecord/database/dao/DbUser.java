@@ -6,14 +6,9 @@ import com.tisawesomeness.minecord.util.StatementUtils;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.Cleanup;
-import lombok.NonNull;
 import lombok.Value;
 import lombok.With;
 
-import javax.annotation.Nullable;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -27,14 +22,7 @@ import java.util.Optional;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class DbUser implements SettingContainer, Bannable {
 
-    private static final String SQL_SELECT = "SELECT * FROM user WHERE id = ?;";
-    private static final String SQL_UPDATE =
-            "UPDATE user SET banned = ?, elevated = ?, prefix = ?, lang = ?, use_menu = ? WHERE id = ?;";
-    private static final String SQL_INSERT =
-            "INSERT INTO user (banned, elevated, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?, ?);";
-
     Database db;
-    boolean inDB;
 
     long id;
     boolean banned;
@@ -49,26 +37,18 @@ public class DbUser implements SettingContainer, Bannable {
      * @param id The user id
      */
     public DbUser(Database db, long id) {
-        this(db, false, id, false, false, Optional.empty(), Optional.empty(), Optional.empty());
+        this(db, id, false, false, Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     /**
-     * Loads a user from the database for use in a {@link com.google.common.cache.LoadingCache}.
-     * @param db The database to pull from
-     * @param key The user id
-     * @return The user, or empty if it is not in the database
-     * @throws SQLException If a database error occurs
+     * Creates a new user object from a SQL query result.
+     * @param db The database reference needed to create the user object
+     * @param rs The SQL query result, must be pointing to a valid row
+     * @return A new user object
+     * @throws SQLException If the ResultSet is closed or a column doesn't exist
      */
-    public static @Nullable DbUser load(@NonNull Database db, @NonNull Long key) throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
-        st.setLong(1, key);
-        ResultSet rs = st.executeQuery();
-        // The first next() call returns true if results exist
-        if (!rs.next()) {
-            return null;
-        }
-        return new DbUser(db, true,
+    public static DbUser from(Database db, ResultSet rs) throws SQLException {
+        return new DbUser(db,
                 rs.getLong("id"),
                 rs.getBoolean("banned"),
                 rs.getBoolean("elevated"),
@@ -80,19 +60,14 @@ public class DbUser implements SettingContainer, Bannable {
 
     /**
      * Updates or inserts this user into the database.
+     * <br>If write-behind is enabled, the write is queued instead, but the cache sees the change immediately.
      * @throws SQLException If a database error occurs
      */
     public void update() throws SQLException {
-        @Cleanup Connection connect = db.getConnect();
-        String sql = inDB ? SQL_UPDATE : SQL_INSERT;
-        @Cleanup PreparedStatement st = connect.prepareStatement(sql);
-        st.setBoolean(1, banned);
-        st.setBoolean(2, elevated);
-        StatementUtils.setOptionalString(st, 3, prefix);
-        StatementUtils.setOptionalString(st, 4, lang.map(Lang::getCode));
-        StatementUtils.setOptionalBoolean(st, 5, useMenu);
-        st.setLong(6, id);
-        st.executeUpdate();
+        if (!db.getWriteQueue().queue(this)) {
+            db.getStorage().getUsers().save(this);
+        }
+        db.getCache().getUserIds().add(id);
         db.getCache().invalidateUser(id);
     }
 
@@ -0,0 +1,27 @@
+package com.tisawesomeness.minecord.database.dao;
+
+import lombok.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * The result of a Mojang profile lookup, along with when it was fetched.
+ */
+@Value
+public class ProfileEntry {
+    /**
+     * The value returned by Mojang, or null if the player does not exist
+     */
+    @Nullable String value;
+    /**
+     * When the value was fetched from Mojang, in epoch millis
+     */
+    long fetchedAt;
+
+    /**
+     * @return Whether Mojang found the player
+     */
+    public boolean isPresent() {
+        return value != null;
+    }
+}
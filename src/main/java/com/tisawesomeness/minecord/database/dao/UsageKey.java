@@ -0,0 +1,33 @@
+package com.tisawesomeness.minecord.database.dao;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A command result in a specific bucket of time, used as the key for usage history.
+ * <br>The count of a key in a {@link com.google.common.collect.Multiset} is the number of uses.
+ */
+@Value
+public class UsageKey {
+    /**
+     * The command ID
+     */
+    @NonNull String command;
+    /**
+     * The name of the command {@link com.tisawesomeness.minecord.command.Result}
+     */
+    @NonNull String result;
+    /**
+     * The start of the bucket in epoch seconds
+     */
+    long bucket;
+
+    /**
+     * Changes the bucket this key is in, used to combine keys into larger buckets.
+     * @param resolution The size of the new bucket
+     * @return A new key, with the bucket rounded down to the start of the new bucket
+     */
+    public UsageKey roundTo(@NonNull UsageResolution resolution) {
+        return new UsageKey(command, result, resolution.floor(bucket));
+    }
+}
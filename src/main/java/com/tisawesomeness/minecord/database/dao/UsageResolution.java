@@ -0,0 +1,29 @@
+package com.tisawesomeness.minecord.database.dao;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The size of a bucket in the command usage history.
+ * <br>Recent usage is stored per minute, and older usage is rolled up into hours, then days.
+ */
+@RequiredArgsConstructor
+public enum UsageResolution {
+    MINUTE(60),
+    HOUR(60 * 60),
+    DAY(24 * 60 * 60);
+
+    /**
+     * The length of a bucket in seconds, which is also stored in the {@code resolution} column
+     */
+    @Getter private final int seconds;
+
+    /**
+     * Rounds a time down to the start of its bucket.
+     * @param epochSecond The time in epoch seconds
+     * @return The start of the bucket in epoch seconds
+     */
+    public long floor(long epochSecond) {
+        return epochSecond - Math.floorMod(epochSecond, seconds);
+    }
+}
@@ -1,5 +1,5 @@
 /**
- * This package manages the SQL Database and the corresponding object model.
- * <br>{@link com.tisawesomeness.minecord.database.Database#getConnect()} is only available in this package.
+ * This package manages the Database, its caches, and the corresponding object model.
+ * <br>Reads and writes go through the {@link com.tisawesomeness.minecord.database.store.Storage} backend.
  */
 package com.tisawesomeness.minecord.database;
\ No newline at end of file
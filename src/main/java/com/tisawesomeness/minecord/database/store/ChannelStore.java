@@ -0,0 +1,19 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Stores the {@code channel} table.
+ */
+public interface ChannelStore extends RowStore<DbChannel> {
+    /**
+     * Loads every stored channel in a guild.
+     * @param guildId The guild id
+     * @return A possibly-empty list of channels
+     * @throws SQLException If a database error occurs
+     */
+    List<DbChannel> loadInGuild(long guildId) throws SQLException;
+}
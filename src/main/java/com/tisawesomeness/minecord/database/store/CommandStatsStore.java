@@ -0,0 +1,63 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
+
+import com.google.common.collect.Multiset;
+
+import java.sql.SQLException;
+
+/**
+ * Stores the total uses of each command and the bucketed usage history.
+ */
+public interface CommandStatsStore {
+
+    /**
+     * Queries the number of times each command has been used.
+     * @return A Multiset of strings where each key is a command ID and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    Multiset<String> getCommandUses() throws SQLException;
+
+    /**
+     * Adds the provided uses to the running count.
+     * <br>This does not clear the input.
+     * @param commandUses A Multiset of strings where each key is a command ID and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    void pushCommandUses(Multiset<String> commandUses) throws SQLException;
+
+    /**
+     * Adds the provided results to the minute buckets of the usage history.
+     * <br>This does not clear the input.
+     * @param results A Multiset where each key is a command result in a minute bucket
+     *                and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    void pushUsageHistory(Multiset<UsageKey> results) throws SQLException;
+
+    /**
+     * Rolls old minute buckets into hour buckets, old hour buckets into day buckets, and deletes old day buckets.
+     * <br>Only whole hours and days are rolled up, so a bucket is never split.
+     * @param now The current time in epoch seconds
+     * @param minuteRetention How long to keep minute buckets in seconds
+     * @param hourRetention How long to keep hour buckets in seconds
+     * @param dayRetention How long to keep day buckets in seconds
+     * @throws SQLException When a database error occurs
+     */
+    void rollupUsageHistory(long now, long minuteRetention, long hourRetention, long dayRetention)
+            throws SQLException;
+
+    /**
+     * Queries the usage history in a range of time.
+     * <br>Older usage may only be available in hour or day buckets,
+     * so every bucket is rounded down to the given resolution.
+     * @param from The start of the range in epoch seconds, inclusive
+     * @param to The end of the range in epoch seconds, exclusive
+     * @param resolution The size of the returned buckets
+     * @return A Multiset where each key is a command result in a bucket and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    Multiset<UsageKey> getUsageHistory(long from, long to, UsageResolution resolution) throws SQLException;
+
+}
@@ -0,0 +1,8 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+
+/**
+ * Stores the {@code guild} table.
+ */
+public interface GuildStore extends RowStore<DbGuild> {}
@@ -0,0 +1,79 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps command stats in memory, following the same bucketing rules as {@link SQLiteCommandStatsStore}.
+ */
+public class MemoryCommandStatsStore implements CommandStatsStore {
+
+    private final Multiset<String> commandUses = HashMultiset.create();
+    // Resolution --> usage in buckets of that resolution
+    private final Map<UsageResolution, Multiset<UsageKey>> usage = new EnumMap<>(UsageResolution.class);
+
+    public MemoryCommandStatsStore() {
+        for (UsageResolution r : UsageResolution.values()) {
+            usage.put(r, HashMultiset.create());
+        }
+    }
+
+    public synchronized Multiset<String> getCommandUses() {
+        return ImmutableMultiset.copyOf(commandUses);
+    }
+
+    public synchronized void pushCommandUses(Multiset<String> uses) {
+        for (Multiset.Entry<String> entry : uses.entrySet()) {
+            commandUses.add(entry.getElement(), entry.getCount());
+        }
+    }
+
+    public synchronized void pushUsageHistory(Multiset<UsageKey> results) {
+        Multiset<UsageKey> minutes = usage.get(UsageResolution.MINUTE);
+        for (Multiset.Entry<UsageKey> entry : results.entrySet()) {
+            minutes.add(entry.getElement().roundTo(UsageResolution.MINUTE), entry.getCount());
+        }
+    }
+
+    public synchronized void rollupUsageHistory(long now, long minuteRetention, long hourRetention,
+                                                long dayRetention) {
+        rollup(UsageResolution.MINUTE, UsageResolution.HOUR, UsageResolution.HOUR.floor(now - minuteRetention));
+        rollup(UsageResolution.HOUR, UsageResolution.DAY, UsageResolution.DAY.floor(now - hourRetention));
+        long dayCutoff = now - dayRetention;
+        usage.get(UsageResolution.DAY).entrySet().removeIf(entry -> entry.getElement().getBucket() < dayCutoff);
+    }
+    private void rollup(UsageResolution from, UsageResolution to, long cutoff) {
+        Multiset<UsageKey> target = usage.get(to);
+        Iterator<Multiset.Entry<UsageKey>> it = usage.get(from).entrySet().iterator();
+        while (it.hasNext()) {
+            Multiset.Entry<UsageKey> entry = it.next();
+            if (entry.getElement().getBucket() < cutoff) {
+                target.add(entry.getElement().roundTo(to), entry.getCount());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized Multiset<UsageKey> getUsageHistory(long from, long to, UsageResolution resolution) {
+        Multiset<UsageKey> history = HashMultiset.create();
+        for (UsageResolution r : UsageResolution.values()) {
+            long start = r.floor(from);
+            for (Multiset.Entry<UsageKey> entry : usage.get(r).entrySet()) {
+                long bucket = entry.getElement().getBucket();
+                if (start <= bucket && bucket < to) {
+                    history.add(entry.getElement().roundTo(resolution), entry.getCount());
+                }
+            }
+        }
+        return ImmutableMultiset.copyOf(history);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.ProfileEntry;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps Mojang profile lookups in memory, for use with {@link MemoryStorage}.
+ */
+public class MemoryProfileStore implements ProfileStore {
+
+    private final Map<String, ProfileEntry> uuids = new ConcurrentHashMap<>();
+    private final Map<String, ProfileEntry> histories = new ConcurrentHashMap<>();
+
+    public @Nullable ProfileEntry loadUUID(@NonNull String key) {
+        return uuids.get(key);
+    }
+    public void saveUUID(@NonNull String key, @NonNull ProfileEntry entry) {
+        uuids.put(key, entry);
+    }
+
+    public @Nullable ProfileEntry loadHistory(@NonNull String uuid) {
+        return histories.get(uuid);
+    }
+    public void saveHistory(@NonNull String uuid, @NonNull ProfileEntry entry) {
+        histories.put(uuid, entry);
+    }
+
+}
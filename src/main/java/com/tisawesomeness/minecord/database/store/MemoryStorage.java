@@ -0,0 +1,84 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.database.dao.DbObject;
+import com.tisawesomeness.minecord.database.dao.DbUser;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps everything in memory, so nothing touches the disk and everything is lost on shutdown.
+ * <br>Meant for tests and benchmarks of the command path, not for running the bot.
+ * <br>{@link #saveAll(Collection, Collection, Collection)} is not atomic, so a reader may see part of a batch.
+ */
+public class MemoryStorage implements Storage {
+
+    private final MemoryGuildStore guilds = new MemoryGuildStore();
+    private final MemoryChannelStore channels = new MemoryChannelStore();
+    private final MemoryUserStore users = new MemoryUserStore();
+    @Getter private final CommandStatsStore commandStats = new MemoryCommandStatsStore();
+    @Getter private final ProfileStore profiles = new MemoryProfileStore();
+
+    public GuildStore getGuilds() {
+        return guilds;
+    }
+    public ChannelStore getChannels() {
+        return channels;
+    }
+    public UserStore getUsers() {
+        return users;
+    }
+
+    public void saveAll(@NonNull Collection<DbGuild> guildBatch, @NonNull Collection<DbChannel> channelBatch,
+                        @NonNull Collection<DbUser> userBatch) {
+        guildBatch.forEach(guilds::save);
+        channelBatch.forEach(channels::save);
+        userBatch.forEach(users::save);
+    }
+
+    public void close() {
+        // Nothing to release
+    }
+
+    /**
+     * Stores rows in a map.
+     */
+    private static class MemoryRowStore<T extends DbObject> implements RowStore<T> {
+        protected final Map<Long, T> rows = new ConcurrentHashMap<>();
+
+        public @Nullable T load(long id) {
+            return rows.get(id);
+        }
+        public List<T> loadAll(int limit) {
+            return rows.values().stream()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        public long[] loadIds() {
+            return rows.keySet().stream().mapToLong(Long::longValue).toArray();
+        }
+        public void save(@NonNull T row) {
+            rows.put(row.getId(), row);
+        }
+    }
+
+    private static class MemoryGuildStore extends MemoryRowStore<DbGuild> implements GuildStore {}
+    private static class MemoryChannelStore extends MemoryRowStore<DbChannel> implements ChannelStore {
+        public List<DbChannel> loadInGuild(long guildId) {
+            return rows.values().stream()
+                    .filter(channel -> channel.getGuildId() == guildId)
+                    .collect(Collectors.toList());
+        }
+    }
+    private static class MemoryUserStore extends MemoryRowStore<DbUser> implements UserStore {}
+
+}
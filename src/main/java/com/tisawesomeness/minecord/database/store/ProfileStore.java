@@ -0,0 +1,47 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.ProfileEntry;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+
+/**
+ * Stores Mojang profile lookups so they survive restarts.
+ * <br>Entries are never expired by the store, the {@link com.tisawesomeness.minecord.database.ProfileCache}
+ * decides whether an entry is still fresh.
+ */
+public interface ProfileStore {
+
+    /**
+     * Loads the result of a name to UUID lookup.
+     * @param key The lowercase name, optionally followed by {@code ?at=} and a timestamp
+     * @return The stored entry, or null if the name was never looked up
+     * @throws SQLException If a database error occurs
+     */
+    @Nullable ProfileEntry loadUUID(@NonNull String key) throws SQLException;
+    /**
+     * Stores the result of a name to UUID lookup, replacing any previous result.
+     * @param key The lowercase name, optionally followed by {@code ?at=} and a timestamp
+     * @param entry The UUID without dashes, or an empty entry if no player has the name
+     * @throws SQLException If a database error occurs
+     */
+    void saveUUID(@NonNull String key, @NonNull ProfileEntry entry) throws SQLException;
+
+    /**
+     * Loads the name history of a player.
+     * @param uuid The UUID without dashes
+     * @return The stored entry, or null if the UUID was never looked up
+     * @throws SQLException If a database error occurs
+     */
+    @Nullable ProfileEntry loadHistory(@NonNull String uuid) throws SQLException;
+    /**
+     * Stores the name history of a player, replacing any previous history.
+     * @param uuid The UUID without dashes
+     * @param entry The name history as returned by Mojang, or an empty entry if no player has the UUID
+     * @throws SQLException If a database error occurs
+     */
+    void saveHistory(@NonNull String uuid, @NonNull ProfileEntry entry) throws SQLException;
+
+}
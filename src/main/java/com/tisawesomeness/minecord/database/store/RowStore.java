@@ -0,0 +1,42 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.DbObject;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Stores rows of a single table, keyed by {@link DbObject#getId()}.
+ * @param <T> The type of row
+ */
+public interface RowStore<T extends DbObject> {
+    /**
+     * Loads a single row.
+     * @param id The ID of the row
+     * @return The row, or null if it is not stored
+     * @throws SQLException If a database error occurs
+     */
+    @Nullable T load(long id) throws SQLException;
+    /**
+     * Loads the ID of every stored row, used to build the {@link com.tisawesomeness.minecord.database.IdSet}.
+     * @return The IDs in any order
+     * @throws SQLException If a database error occurs
+     */
+    long[] loadIds() throws SQLException;
+    /**
+     * Loads many rows at once, used to warm up the cache.
+     * @param limit The maximum number of rows to load
+     * @return Up to {@code limit} rows in any order
+     * @throws SQLException If a database error occurs
+     */
+    List<T> loadAll(int limit) throws SQLException;
+    /**
+     * Updates or inserts a row.
+     * @param row The row
+     * @throws SQLException If a database error occurs
+     */
+    void save(@NonNull T row) throws SQLException;
+}
@@ -0,0 +1,111 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.Lang;
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.Database;
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+import com.tisawesomeness.minecord.util.StatementUtils;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores channels in the {@code channel} table.
+ */
+@RequiredArgsConstructor
+public class SQLiteChannelStore implements ChannelStore {
+
+    private static final String SQL_SELECT = "SELECT * FROM channel WHERE id = ?;";
+    private static final String SQL_SELECT_ALL = "SELECT * FROM channel LIMIT ?;";
+    private static final String SQL_SELECT_GUILD = "SELECT * FROM channel WHERE guild_id = ?;";
+    private static final String SQL_UPSERT =
+            "INSERT INTO channel (guild_id, banned, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET guild_id = excluded.guild_id, banned = excluded.banned, " +
+            "prefix = excluded.prefix, lang = excluded.lang, use_menu = excluded.use_menu;";
+
+    private final @NonNull Database db;
+    private final @NonNull ConnectionPool pool;
+
+    public @Nullable DbChannel load(long id) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
+        st.setLong(1, id);
+        ResultSet rs = st.executeQuery();
+        // The first next() call returns true if results exist
+        if (!rs.next()) {
+            return null;
+        }
+        return DbChannel.from(db, rs);
+    }
+
+    public List<DbChannel> loadInGuild(long guildId) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT_GUILD);
+        st.setLong(1, guildId);
+        ResultSet rs = st.executeQuery();
+        List<DbChannel> channels = new ArrayList<>();
+        while (rs.next()) {
+            channels.add(DbChannel.from(db, rs));
+        }
+        return channels;
+    }
+
+    public List<DbChannel> loadAll(int limit) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT_ALL);
+        st.setInt(1, limit);
+        ResultSet rs = st.executeQuery();
+        List<DbChannel> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(DbChannel.from(db, rs));
+        }
+        return rows;
+    }
+
+    public long[] loadIds() throws SQLException {
+        return SQLiteStorage.loadIds(pool, "channel");
+    }
+
+    public void save(@NonNull DbChannel channel) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        // Rows written by the write-behind queue don't know they are in the database
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        bind(st, channel);
+        st.executeUpdate();
+    }
+    /**
+     * Updates or inserts many channels at once.
+     * <br>The caller is responsible for the transaction.
+     * @param connect The connection to use
+     * @param channels The channels to write
+     * @throws SQLException If a database error occurs
+     */
+    static void upsertAll(@NonNull Connection connect, @NonNull Collection<DbChannel> channels)
+            throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        for (DbChannel channel : channels) {
+            bind(st, channel);
+            st.addBatch();
+        }
+        st.executeBatch();
+    }
+    private static void bind(PreparedStatement st, DbChannel channel) throws SQLException {
+        st.setLong(1, channel.getGuildId());
+        st.setBoolean(2, channel.isBanned());
+        StatementUtils.setOptionalString(st, 3, channel.getPrefix());
+        StatementUtils.setOptionalString(st, 4, channel.getLang().map(Lang::getCode));
+        StatementUtils.setOptionalBoolean(st, 5, channel.getUseMenu());
+        st.setLong(6, channel.getId());
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Stores command stats in the {@code command} and {@code command_usage} tables.
+ */
+@RequiredArgsConstructor
+public class SQLiteCommandStatsStore implements CommandStatsStore {
+
+    // Adds to the existing count, or inserts a new row if the command has never been used
+    private static final String UPSERT_SQL =
+            "INSERT INTO command (id, uses) VALUES (?, ?)\n" +
+            "ON CONFLICT (id) DO UPDATE SET uses = uses + excluded.uses;";
+    private static final String USAGE_UPSERT_SQL =
+            "INSERT INTO command_usage (command, result, resolution, bucket, uses) VALUES (?, ?, ?, ?, ?)\n" +
+            "ON CONFLICT (resolution, bucket, command, result) DO UPDATE SET uses = uses + excluded.uses;";
+    // Combines every bucket of one resolution before the cutoff into buckets of a larger resolution
+    private static final String USAGE_ROLLUP_SQL =
+            "INSERT INTO command_usage (command, result, resolution, bucket, uses)\n" +
+            "SELECT command, result, ?, bucket - bucket % ?, SUM(uses) FROM command_usage\n" +
+            "WHERE resolution = ? AND bucket < ?\n" +
+            "GROUP BY command, result, bucket - bucket % ?\n" +
+            "ON CONFLICT (resolution, bucket, command, result) DO UPDATE SET uses = uses + excluded.uses;";
+    private static final String USAGE_DELETE_SQL = "DELETE FROM command_usage WHERE resolution = ? AND bucket < ?;";
+    private static final String USAGE_SELECT_SQL =
+            "SELECT command, result, bucket, uses FROM command_usage\n" +
+            "WHERE resolution = ? AND bucket >= ? AND bucket < ?;";
+
+    private final @NonNull ConnectionPool pool;
+
+    /**
+     * Queries the database for the number of times each command has been used.
+     * @return A Multiset of strings where each key is a command ID and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    public Multiset<String> getCommandUses() throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup Statement st = connect.createStatement();
+        ResultSet rs = st.executeQuery(
+                "SELECT * FROM command;"
+        );
+        Multiset<String> commandUses = HashMultiset.create();
+        while (rs.next()) {
+            commandUses.add(rs.getString("id"), rs.getInt("uses"));
+        }
+        return ImmutableMultiset.copyOf(commandUses);
+    }
+
+    /**
+     * Adds the provided uses to the running count in the database.
+     * <br>This does not clear the input.
+     * @param commandUses A Multiset of strings where each key is a command ID and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    public void pushCommandUses(Multiset<String> commandUses) throws SQLException {
+        if (commandUses.isEmpty()) {
+            return;
+        }
+        @Cleanup Connection connect = pool.getConnection();
+        pushCommandUses(connect, commandUses);
+    }
+    /**
+     * Adds the provided uses to the running count with a single batched upsert in one transaction.
+     * @param connect The connection to use
+     * @param commandUses A Multiset of strings where each key is a command ID and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    static void pushCommandUses(Connection connect, Multiset<String> commandUses) throws SQLException {
+        connect.setAutoCommit(false);
+        try {
+            @Cleanup PreparedStatement st = connect.prepareStatement(UPSERT_SQL);
+            for (Multiset.Entry<String> entry : commandUses.entrySet()) {
+                st.setString(1, entry.getElement());
+                st.setInt(2, entry.getCount());
+                st.addBatch();
+            }
+            st.executeBatch();
+            connect.commit();
+        } catch (SQLException ex) {
+            connect.rollback();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds the provided results to the minute buckets of the usage history.
+     * <br>This does not clear the input.
+     * @param results A Multiset where each key is a command result in a minute bucket
+     *                and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    public void pushUsageHistory(Multiset<UsageKey> results) throws SQLException {
+        if (results.isEmpty()) {
+            return;
+        }
+        @Cleanup Connection connect = pool.getConnection();
+        connect.setAutoCommit(false);
+        try {
+            @Cleanup PreparedStatement st = connect.prepareStatement(USAGE_UPSERT_SQL);
+            for (Multiset.Entry<UsageKey> entry : results.entrySet()) {
+                UsageKey key = entry.getElement();
+                st.setString(1, key.getCommand());
+                st.setString(2, key.getResult());
+                st.setInt(3, UsageResolution.MINUTE.getSeconds());
+                st.setLong(4, UsageResolution.MINUTE.floor(key.getBucket()));
+                st.setInt(5, entry.getCount());
+                st.addBatch();
+            }
+            st.executeBatch();
+            connect.commit();
+        } catch (SQLException ex) {
+            connect.rollback();
+            throw ex;
+        }
+    }
+
+    /**
+     * Rolls old minute buckets into hour buckets, old hour buckets into day buckets, and deletes old day buckets.
+     * <br>Only whole hours and days are rolled up, so a bucket is never split.
+     * @param now The current time in epoch seconds
+     * @param minuteRetention How long to keep minute buckets in seconds
+     * @param hourRetention How long to keep hour buckets in seconds
+     * @param dayRetention How long to keep day buckets in seconds
+     * @throws SQLException When a database error occurs
+     */
+    public void rollupUsageHistory(long now, long minuteRetention, long hourRetention, long dayRetention)
+            throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        connect.setAutoCommit(false);
+        try {
+            long minuteCutoff = UsageResolution.HOUR.floor(now - minuteRetention);
+            rollup(connect, UsageResolution.MINUTE, UsageResolution.HOUR, minuteCutoff);
+            long hourCutoff = UsageResolution.DAY.floor(now - hourRetention);
+            rollup(connect, UsageResolution.HOUR, UsageResolution.DAY, hourCutoff);
+            delete(connect, UsageResolution.DAY, now - dayRetention);
+            connect.commit();
+        } catch (SQLException ex) {
+            connect.rollback();
+            throw ex;
+        }
+    }
+    private static void rollup(Connection connect, UsageResolution from, UsageResolution to, long cutoff)
+            throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(USAGE_ROLLUP_SQL);
+        st.setInt(1, to.getSeconds());
+        st.setInt(2, to.getSeconds());
+        st.setInt(3, from.getSeconds());
+        st.setLong(4, cutoff);
+        st.setInt(5, to.getSeconds());
+        st.executeUpdate();
+        delete(connect, from, cutoff);
+    }
+    private static void delete(Connection connect, UsageResolution resolution, long cutoff) throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(USAGE_DELETE_SQL);
+        st.setInt(1, resolution.getSeconds());
+        st.setLong(2, cutoff);
+        st.executeUpdate();
+    }
+
+    /**
+     * Queries the usage history in a range of time.
+     * <br>Older usage may only be available in hour or day buckets,
+     * so every bucket is rounded down to the given resolution.
+     * @param from The start of the range in epoch seconds, inclusive
+     * @param to The end of the range in epoch seconds, exclusive
+     * @param resolution The size of the returned buckets
+     * @return A Multiset where each key is a command result in a bucket and its count is the number of uses
+     * @throws SQLException When a database error occurs
+     */
+    public Multiset<UsageKey> getUsageHistory(long from, long to, UsageResolution resolution) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(USAGE_SELECT_SQL);
+        Multiset<UsageKey> usage = HashMultiset.create();
+        for (UsageResolution r : UsageResolution.values()) {
+            st.setInt(1, r.getSeconds());
+            st.setLong(2, r.floor(from));
+            st.setLong(3, to);
+            ResultSet rs = st.executeQuery();
+            while (rs.next()) {
+                UsageKey key = new UsageKey(rs.getString("command"), rs.getString("result"), rs.getLong("bucket"));
+                usage.add(key.roundTo(resolution), rs.getInt("uses"));
+            }
+            rs.close();
+        }
+        return ImmutableMultiset.copyOf(usage);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.Lang;
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.Database;
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.util.StatementUtils;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores guilds in the {@code guild} table.
+ */
+@RequiredArgsConstructor
+public class SQLiteGuildStore implements GuildStore {
+
+    private static final String SQL_SELECT = "SELECT * FROM guild WHERE id = ?;";
+    private static final String SQL_SELECT_ALL = "SELECT * FROM guild LIMIT ?;";
+    private static final String SQL_UPSERT =
+            "INSERT INTO guild (banned, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET banned = excluded.banned, prefix = excluded.prefix, " +
+            "lang = excluded.lang, use_menu = excluded.use_menu;";
+
+    private final @NonNull Database db;
+    private final @NonNull ConnectionPool pool;
+
+    public @Nullable DbGuild load(long id) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
+        st.setLong(1, id);
+        ResultSet rs = st.executeQuery();
+        // The first next() call returns true if results exist
+        if (!rs.next()) {
+            return null;
+        }
+        return DbGuild.from(db, rs);
+    }
+
+    public List<DbGuild> loadAll(int limit) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT_ALL);
+        st.setInt(1, limit);
+        ResultSet rs = st.executeQuery();
+        List<DbGuild> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(DbGuild.from(db, rs));
+        }
+        return rows;
+    }
+
+    public long[] loadIds() throws SQLException {
+        return SQLiteStorage.loadIds(pool, "guild");
+    }
+
+    public void save(@NonNull DbGuild guild) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        // Rows written by the write-behind queue don't know they are in the database
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        bind(st, guild);
+        st.executeUpdate();
+    }
+    /**
+     * Updates or inserts many guilds at once.
+     * <br>The caller is responsible for the transaction.
+     * @param connect The connection to use
+     * @param guilds The guilds to write
+     * @throws SQLException If a database error occurs
+     */
+    static void upsertAll(@NonNull Connection connect, @NonNull Collection<DbGuild> guilds)
+            throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        for (DbGuild guild : guilds) {
+            bind(st, guild);
+            st.addBatch();
+        }
+        st.executeBatch();
+    }
+    private static void bind(PreparedStatement st, DbGuild guild) throws SQLException {
+        st.setBoolean(1, guild.isBanned());
+        StatementUtils.setOptionalString(st, 2, guild.getPrefix());
+        StatementUtils.setOptionalString(st, 3, guild.getLang().map(Lang::getCode));
+        StatementUtils.setOptionalBoolean(st, 4, guild.getUseMenu());
+        st.setLong(5, guild.getId());
+    }
+
+}
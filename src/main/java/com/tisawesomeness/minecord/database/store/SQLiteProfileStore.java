@@ -0,0 +1,67 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.dao.ProfileEntry;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Stores Mojang profile lookups in the {@code profile_name} and {@code profile_history} tables.
+ */
+@RequiredArgsConstructor
+public class SQLiteProfileStore implements ProfileStore {
+
+    private static final String SQL_SELECT_UUID = "SELECT uuid, fetched_at FROM profile_name WHERE name = ?;";
+    private static final String SQL_UPSERT_UUID =
+            "INSERT INTO profile_name (name, uuid, fetched_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (name) DO UPDATE SET uuid = excluded.uuid, fetched_at = excluded.fetched_at;";
+    private static final String SQL_SELECT_HISTORY =
+            "SELECT history, fetched_at FROM profile_history WHERE uuid = ?;";
+    private static final String SQL_UPSERT_HISTORY =
+            "INSERT INTO profile_history (uuid, history, fetched_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (uuid) DO UPDATE SET history = excluded.history, fetched_at = excluded.fetched_at;";
+
+    private final @NonNull ConnectionPool pool;
+
+    public @Nullable ProfileEntry loadUUID(@NonNull String key) throws SQLException {
+        return load(SQL_SELECT_UUID, key, "uuid");
+    }
+    public void saveUUID(@NonNull String key, @NonNull ProfileEntry entry) throws SQLException {
+        save(SQL_UPSERT_UUID, key, entry);
+    }
+
+    public @Nullable ProfileEntry loadHistory(@NonNull String uuid) throws SQLException {
+        return load(SQL_SELECT_HISTORY, uuid, "history");
+    }
+    public void saveHistory(@NonNull String uuid, @NonNull ProfileEntry entry) throws SQLException {
+        save(SQL_UPSERT_HISTORY, uuid, entry);
+    }
+
+    private @Nullable ProfileEntry load(String sql, String key, String column) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(sql);
+        st.setString(1, key);
+        ResultSet rs = st.executeQuery();
+        if (!rs.next()) {
+            return null;
+        }
+        return new ProfileEntry(rs.getString(column), rs.getLong("fetched_at"));
+    }
+    private void save(String sql, String key, ProfileEntry entry) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(sql);
+        st.setString(1, key);
+        st.setString(2, entry.getValue());
+        st.setLong(3, entry.getFetchedAt());
+        st.executeUpdate();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.Database;
+import com.tisawesomeness.minecord.database.Migrator;
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.database.dao.DbUser;
+
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Stores everything in a SQLite database file.
+ */
+public class SQLiteStorage implements Storage {
+
+    private final ConnectionPool pool;
+    @Getter private final SQLiteGuildStore guilds;
+    @Getter private final SQLiteChannelStore channels;
+    @Getter private final SQLiteUserStore users;
+    @Getter private final SQLiteCommandStatsStore commandStats;
+    @Getter private final SQLiteProfileStore profiles;
+
+    /**
+     * Sets up the connection pool and migrates the database to the latest version.
+     * @param db The database that loaded rows belong to
+     * @param config The config with the path to the database and the pool settings
+     * @throws SQLException If creating the database or a migration fails
+     * @throws IllegalStateException If the database is newer than the bot or a migration script changed
+     */
+    public SQLiteStorage(@NonNull Database db, @NonNull DatabaseConfig config) throws SQLException {
+        pool = new ConnectionPool(config);
+        try (Connection connect = pool.getConnection()) {
+            new Migrator().migrate(connect);
+        } catch (SQLException | RuntimeException ex) {
+            pool.close();
+            throw ex;
+        }
+        guilds = new SQLiteGuildStore(db, pool);
+        channels = new SQLiteChannelStore(db, pool);
+        users = new SQLiteUserStore(db, pool);
+        commandStats = new SQLiteCommandStatsStore(pool);
+        profiles = new SQLiteProfileStore(pool);
+    }
+
+    public void saveAll(@NonNull Collection<DbGuild> guildBatch, @NonNull Collection<DbChannel> channelBatch,
+                        @NonNull Collection<DbUser> userBatch) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        connect.setAutoCommit(false);
+        try {
+            SQLiteGuildStore.upsertAll(connect, guildBatch);
+            SQLiteChannelStore.upsertAll(connect, channelBatch);
+            SQLiteUserStore.upsertAll(connect, userBatch);
+            connect.commit();
+        } catch (SQLException ex) {
+            connect.rollback();
+            throw ex;
+        }
+    }
+
+    /**
+     * Closes the connection pool.
+     * Any connections still in use are closed once they are returned.
+     */
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Reads every ID in a table.
+     * @param pool The pool to get a connection from
+     * @param table The name of the table, which must have an {@code id} column
+     * @return Every ID in the table
+     * @throws SQLException If a database error occurs
+     */
+    static long[] loadIds(ConnectionPool pool, String table) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup Statement st = connect.createStatement();
+        ResultSet rs = st.executeQuery(String.format("SELECT id FROM %s;", table));
+        long[] ids = new long[64];
+        int size = 0;
+        while (rs.next()) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = rs.getLong("id");
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+}
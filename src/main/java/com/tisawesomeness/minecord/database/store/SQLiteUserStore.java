@@ -0,0 +1,98 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.Lang;
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.Database;
+import com.tisawesomeness.minecord.database.dao.DbUser;
+import com.tisawesomeness.minecord.util.StatementUtils;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores users in the {@code user} table.
+ */
+@RequiredArgsConstructor
+public class SQLiteUserStore implements UserStore {
+
+    private static final String SQL_SELECT = "SELECT * FROM user WHERE id = ?;";
+    private static final String SQL_SELECT_ALL = "SELECT * FROM user LIMIT ?;";
+    private static final String SQL_UPSERT =
+            "INSERT INTO user (banned, elevated, prefix, lang, use_menu, id) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET banned = excluded.banned, elevated = excluded.elevated, " +
+            "prefix = excluded.prefix, lang = excluded.lang, use_menu = excluded.use_menu;";
+
+    private final @NonNull Database db;
+    private final @NonNull ConnectionPool pool;
+
+    public @Nullable DbUser load(long id) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT);
+        st.setLong(1, id);
+        ResultSet rs = st.executeQuery();
+        // The first next() call returns true if results exist
+        if (!rs.next()) {
+            return null;
+        }
+        return DbUser.from(db, rs);
+    }
+
+    public List<DbUser> loadAll(int limit) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_SELECT_ALL);
+        st.setInt(1, limit);
+        ResultSet rs = st.executeQuery();
+        List<DbUser> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(DbUser.from(db, rs));
+        }
+        return rows;
+    }
+
+    public long[] loadIds() throws SQLException {
+        return SQLiteStorage.loadIds(pool, "user");
+    }
+
+    public void save(@NonNull DbUser user) throws SQLException {
+        @Cleanup Connection connect = pool.getConnection();
+        // Rows written by the write-behind queue don't know they are in the database
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        bind(st, user);
+        st.executeUpdate();
+    }
+    /**
+     * Updates or inserts many users at once.
+     * <br>The caller is responsible for the transaction.
+     * @param connect The connection to use
+     * @param users The users to write
+     * @throws SQLException If a database error occurs
+     */
+    static void upsertAll(@NonNull Connection connect, @NonNull Collection<DbUser> users)
+            throws SQLException {
+        @Cleanup PreparedStatement st = connect.prepareStatement(SQL_UPSERT);
+        for (DbUser user : users) {
+            bind(st, user);
+            st.addBatch();
+        }
+        st.executeBatch();
+    }
+    private static void bind(PreparedStatement st, DbUser user) throws SQLException {
+        st.setBoolean(1, user.isBanned());
+        st.setBoolean(2, user.isElevated());
+        StatementUtils.setOptionalString(st, 3, user.getPrefix());
+        StatementUtils.setOptionalString(st, 4, user.getLang().map(Lang::getCode));
+        StatementUtils.setOptionalBoolean(st, 5, user.getUseMenu());
+        st.setLong(6, user.getId());
+    }
+
+}
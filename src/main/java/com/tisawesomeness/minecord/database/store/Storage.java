@@ -0,0 +1,59 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.Database;
+import com.tisawesomeness.minecord.database.dao.DbChannel;
+import com.tisawesomeness.minecord.database.dao.DbGuild;
+import com.tisawesomeness.minecord.database.dao.DbUser;
+
+import lombok.NonNull;
+
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * A storage backend for the database, providing a store for each table.
+ */
+public interface Storage {
+
+    /**
+     * Opens the backend chosen in the config.
+     * @param db The database that rows loaded from the backend belong to
+     * @param config The database config
+     * @return The storage, ready to use
+     * @throws SQLException If the backend could not be opened or set up
+     */
+    static Storage open(@NonNull Database db, @NonNull DatabaseConfig config) throws SQLException {
+        switch (config.getStorage()) {
+            case SQLITE:
+                return new SQLiteStorage(db, config);
+            case MEMORY:
+                return new MemoryStorage();
+            default:
+                throw new AssertionError("Unknown storage type " + config.getStorage());
+        }
+    }
+
+    GuildStore getGuilds();
+    ChannelStore getChannels();
+    UserStore getUsers();
+    CommandStatsStore getCommandStats();
+    ProfileStore getProfiles();
+
+    /**
+     * Updates or inserts many rows at once, all or nothing if the backend supports transactions.
+     * <br>Used to flush the {@link com.tisawesomeness.minecord.database.WriteBehindQueue}.
+     * @param guilds The guilds to write
+     * @param channels The channels to write
+     * @param users The users to write
+     * @throws SQLException If a database error occurs
+     */
+    void saveAll(@NonNull Collection<DbGuild> guilds, @NonNull Collection<DbChannel> channels,
+                 @NonNull Collection<DbUser> users) throws SQLException;
+
+    /**
+     * Closes the backend. Nothing can be read or written after this.
+     */
+    void close();
+
+}
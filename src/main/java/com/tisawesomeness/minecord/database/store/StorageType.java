@@ -0,0 +1,15 @@
+package com.tisawesomeness.minecord.database.store;
+
+/**
+ * The storage backends that can be chosen in the config.
+ */
+public enum StorageType {
+    /**
+     * A SQLite database file, the default.
+     */
+    SQLITE,
+    /**
+     * Everything is kept in memory and lost on shutdown, for tests and benchmarks.
+     */
+    MEMORY
+}
@@ -0,0 +1,8 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.DbUser;
+
+/**
+ * Stores the {@code user} table.
+ */
+public interface UserStore extends RowStore<DbUser> {}
@@ -0,0 +1,6 @@
+/**
+ * The storage backends behind the {@link com.tisawesomeness.minecord.database.DatabaseCache}.
+ * <br>Each backend implements {@link com.tisawesomeness.minecord.database.store.Storage},
+ * and nothing outside this package should depend on a specific backend.
+ */
+package com.tisawesomeness.minecord.database.store;
@@ -1,5 +1,7 @@
 package com.tisawesomeness.minecord.debug;
 
+import com.tisawesomeness.minecord.database.AbsentCounter;
+
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.NonNull;
 
@@ -23,7 +25,36 @@ public abstract class CacheDebugOption implements DebugOption {
                 String.format("Load Failures: `%s/%s %.2f%%`\n", stats.loadFailureCount(), stats.loadCount(), 100*stats.loadFailureRate()) +
                 String.format("Eviction Count: `%s`\n", stats.evictionCount()) +
                 String.format("Average Load Penalty: `%.3fms`\n", stats.averageLoadPenalty() / MILLION) +
-                String.format("Total Load Time: `%sms`", stats.totalLoadTime() / MILLION);
+                String.format("Total Load Time: `%sms`", stats.totalLoadTime() / MILLION) +
+                getExtraStats(extra);
+    }
+    /**
+     * Adds more lines to {@link #debug(String)} for stats that Caffeine does not track.
+     * @return A string starting with a newline, or empty
+     */
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        return "";
+    }
+    /**
+     * Formats the counters for lookups of rows that are not in the database.
+     * @param counter The counter from the database cache
+     * @return A string starting with a newline
+     */
+    protected static @NonNull String formatAbsent(@NonNull AbsentCounter counter) {
+        long lookups = counter.getLookupCount();
+        double rate = lookups == 0 ? 1.0 : (double) counter.getHitCount() / lookups;
+        return String.format("\nAbsent Hits: `%s/%s %.2f%%`", counter.getHitCount(), lookups, 100*rate);
+    }
+    /**
+     * Formats the number of cache misses that were served from the database instead of an external API.
+     * @param storedHits The number of misses served from the database
+     * @param stats The stats of the in-memory cache
+     * @return A string starting with a newline
+     */
+    protected static @NonNull String formatStored(long storedHits, @NonNull CacheStats stats) {
+        long loads = stats.loadCount();
+        double rate = loads == 0 ? 1.0 : (double) storedHits / loads;
+        return String.format("\nStored Hits: `%s/%s %.2f%%`", storedHits, loads, 100*rate);
     }
     /**
      * @return The cache stats to be used in {@link #debug(String)}.
@@ -14,6 +14,9 @@ public class ChannelCacheDebugOption extends CacheDebugOption {
     public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
         return Optional.of(cache.getChannelStats());
     }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        return formatAbsent(cache.getAbsentChannels());
+    }
     public @NonNull String getName() {
         return "channelCache";
     }
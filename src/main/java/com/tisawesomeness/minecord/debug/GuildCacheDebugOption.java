@@ -14,6 +14,9 @@ public class GuildCacheDebugOption extends CacheDebugOption {
     public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
         return Optional.of(cache.getGuildStats());
     }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        return formatAbsent(cache.getAbsentGuilds());
+    }
     public @NonNull String getName() {
         return "guildCache";
     }
@@ -0,0 +1,28 @@
+package com.tisawesomeness.minecord.debug;
+
+import com.tisawesomeness.minecord.database.DatabaseCache;
+import com.tisawesomeness.minecord.database.IdSet;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class IdSetDebugOption implements DebugOption {
+    private final @NonNull DatabaseCache cache;
+    public @NonNull String getName() {
+        return "idSets";
+    }
+    public @NonNull String debug(@NonNull String extra) {
+        return "**ID Sets**\n" +
+                format("Guilds", cache.getGuildIds()) + "\n" +
+                format("Channels", cache.getChannelIds()) + "\n" +
+                format("Users", cache.getUserIds());
+    }
+    private static String format(String name, IdSet ids) {
+        long queried = ids.getSkipCount() + ids.getFalsePositiveCount();
+        double fpRate = queried == 0 ? 0 : (double) ids.getFalsePositiveCount() / queried;
+        return String.format("%s: `%s IDs (%s KB)` Skipped: `%s` False Positives: `%s %.2f%%`",
+                name, ids.size(), ids.size() * Long.BYTES / 1024, ids.getSkipCount(),
+                ids.getFalsePositiveCount(), 100*fpRate);
+    }
+}
@@ -0,0 +1,23 @@
+package com.tisawesomeness.minecord.debug;
+
+import com.tisawesomeness.minecord.database.ProfileCache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class NameHistoryCacheDebugOption extends CacheDebugOption {
+    private final @NonNull ProfileCache cache;
+    public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
+        return Optional.of(cache.getHistoryStats());
+    }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        return formatStored(cache.getStoredHistoryHits(), cache.getHistoryStats());
+    }
+    public @NonNull String getName() {
+        return "nameHistoryCache";
+    }
+}
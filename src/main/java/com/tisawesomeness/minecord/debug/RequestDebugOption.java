@@ -0,0 +1,27 @@
+package com.tisawesomeness.minecord.debug;
+
+import com.tisawesomeness.minecord.util.RequestUtils;
+import com.tisawesomeness.minecord.util.type.SingleFlight;
+
+import lombok.NonNull;
+
+import java.util.Map;
+
+public class RequestDebugOption implements DebugOption {
+    public @NonNull String getName() {
+        return "requests";
+    }
+    public @NonNull String debug(@NonNull String extra) {
+        StringBuilder sb = new StringBuilder("**Request Coalescing**");
+        for (Map.Entry<String, SingleFlight<?, ?>> entry : RequestUtils.getFlights().entrySet()) {
+            sb.append("\n").append(format(entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+    private static String format(String name, SingleFlight<?, ?> flight) {
+        long calls = flight.getCallCount();
+        double rate = calls == 0 ? 0 : (double) flight.getSharedCount() / calls;
+        return String.format("%s: Saved: `%s/%s %.2f%%` In Flight: `%s`",
+                name, flight.getSharedCount(), calls, 100*rate, flight.getInFlightCount());
+    }
+}
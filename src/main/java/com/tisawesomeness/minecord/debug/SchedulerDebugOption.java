@@ -0,0 +1,21 @@
+package com.tisawesomeness.minecord.debug;
+
+import com.tisawesomeness.minecord.command.CommandExecutor;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Debugs the queue depth and running commands of each module's scheduler.
+ */
+@RequiredArgsConstructor
+public class SchedulerDebugOption implements DebugOption {
+    private final @NonNull CommandExecutor executor;
+    public @NonNull String getName() {
+        return "scheduler";
+    }
+    public @NonNull String debug(@NonNull String extra) {
+        String debug = executor.debugSchedulers(extra);
+        return debug.isEmpty() ? "N/A" : debug;
+    }
+}
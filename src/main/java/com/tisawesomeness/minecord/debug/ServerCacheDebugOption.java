@@ -0,0 +1,31 @@
+package com.tisawesomeness.minecord.debug;
+
+import br.com.azalim.mcserverping.MCPing;
+import com.tisawesomeness.minecord.server.ServerStatusCache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ServerCacheDebugOption extends CacheDebugOption {
+    private final @NonNull ServerStatusCache cache;
+    public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
+        return Optional.of(cache.getStatusStats());
+    }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        String favicons = formatHits("Favicon", cache.getFaviconStats());
+        return favicons + MCPing.getSrvCacheStats()
+                .map(stats -> formatHits("SRV", stats))
+                .orElse("");
+    }
+    private static String formatHits(String name, CacheStats stats) {
+        long hits = stats.hitCount();
+        return String.format("\n%s Hits: `%s/%s %.2f%%`", name, hits, stats.requestCount(), 100*stats.hitRate());
+    }
+    public @NonNull String getName() {
+        return "serverCache";
+    }
+}
@@ -14,6 +14,9 @@ public class UserCacheDebugOption extends CacheDebugOption {
     public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
         return Optional.of(cache.getUserStats());
     }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        return formatAbsent(cache.getAbsentUsers());
+    }
     public @NonNull String getName() {
         return "userCache";
     }
@@ -0,0 +1,29 @@
+package com.tisawesomeness.minecord.debug;
+
+import com.tisawesomeness.minecord.database.ProfileCache;
+import com.tisawesomeness.minecord.database.UUIDBatcher;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UuidCacheDebugOption extends CacheDebugOption {
+    private final @NonNull ProfileCache cache;
+    public @NonNull Optional<CacheStats> getCacheStats(@NonNull String extra) {
+        return Optional.of(cache.getUUIDStats());
+    }
+    protected @NonNull String getExtraStats(@NonNull String extra) {
+        UUIDBatcher batcher = cache.getBatcher();
+        long lookups = batcher.getLookupCount();
+        double perRequest = batcher.getRequestCount() == 0 ? 0 : (double) lookups / batcher.getRequestCount();
+        return formatStored(cache.getStoredUUIDHits(), cache.getUUIDStats()) +
+                String.format("\nBatched Lookups: `%s in %s requests, %.2f per request`",
+                        lookups, batcher.getRequestCount(), perRequest);
+    }
+    public @NonNull String getName() {
+        return "uuidCache";
+    }
+}
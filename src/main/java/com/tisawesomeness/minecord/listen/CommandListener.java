@@ -2,6 +2,7 @@ package com.tisawesomeness.minecord.listen;
 
 import com.tisawesomeness.minecord.Bot;
 import com.tisawesomeness.minecord.Lang;
+import com.tisawesomeness.minecord.command.ArgumentView;
 import com.tisawesomeness.minecord.command.Command;
 import com.tisawesomeness.minecord.command.CommandContext;
 import com.tisawesomeness.minecord.command.CommandExecutor;
@@ -9,8 +10,9 @@ import com.tisawesomeness.minecord.command.CommandRegistry;
 import com.tisawesomeness.minecord.config.serial.Config;
 import com.tisawesomeness.minecord.config.serial.FlagConfig;
 import com.tisawesomeness.minecord.database.DatabaseCache;
-import com.tisawesomeness.minecord.database.dao.CommandStats;
+import com.tisawesomeness.minecord.database.ResolvedSettings;
 import com.tisawesomeness.minecord.database.dao.DbUser;
+import com.tisawesomeness.minecord.database.store.CommandStatsStore;
 import com.tisawesomeness.minecord.setting.SettingRegistry;
 import com.tisawesomeness.minecord.util.MessageUtils;
 
@@ -20,12 +22,10 @@ import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.ChannelType;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.SelfUser;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 public class CommandListener extends ListenerAdapter {
@@ -37,7 +37,7 @@ public class CommandListener extends ListenerAdapter {
 
     public CommandListener(
             @NonNull Bot bot, @NonNull Config config,
-            @NonNull CommandRegistry registry, @NonNull CommandStats commandStats) {
+            @NonNull CommandRegistry registry, @NonNull CommandStatsStore commandStats) {
         this.bot = bot;
         this.config = config;
         this.registry = registry;
@@ -47,60 +47,60 @@ public class CommandListener extends ListenerAdapter {
     @Override
     public void onMessageReceived(MessageReceivedEvent e) {
         Message m = e.getMessage();
+        User a = m.getAuthor();
+        if (a.isBot()) {
+            return;
+        }
         DatabaseCache cache = bot.getDatabaseCache();
 
-        // Get the settings needed before command execution
+        // Get the settings needed to detect a command
         String prefix;
         Lang lang;
+        ResolvedSettings rs = null;
+        DbUser dbUser = null;
 
         SettingRegistry settings = bot.getSettings();
         if (e.isFromType(ChannelType.TEXT)) {
-            long cid = e.getTextChannel().getIdLong();
-            long gid = e.getGuild().getIdLong();
-            prefix = settings.prefix.getEffective(cache, cid, gid);
-            lang = settings.lang.getEffective(cache, cid, gid);
-            Member sm = e.getGuild().getSelfMember();
-            // No permissions or guild banned? Don't send message
-            if (!sm.hasPermission(e.getTextChannel(), Permission.MESSAGE_WRITE) ||
-                    cache.getGuild(gid).isBanned()) {
-                return;
-            }
+            rs = cache.getSettings(e.getTextChannel().getIdLong(), e.getGuild().getIdLong(), settings);
+            prefix = rs.getPrefix();
+            lang = rs.getLang();
         } else if (e.isFromType(ChannelType.PRIVATE)) {
-            DbUser dbUser = cache.getUser(e.getAuthor().getIdLong());
+            dbUser = cache.getUser(a.getIdLong());
             prefix = settings.prefix.getEffective(dbUser);
             lang = settings.lang.getEffective(dbUser);
         } else {
             return;
         }
 
-        // Check if message can be acted upon
-        User a = m.getAuthor();
-        DbUser dbUser = cache.getUser(a.getIdLong());
-        if (a.isBot() || dbUser.isBanned()) {
-            return;
-        }
-
-        // If the message is a valid command
-        SelfUser su = e.getJDA().getSelfUser();
+        // Most messages aren't commands, so check that before doing anything else
+        String content = m.getContentRaw();
+        long selfId = e.getJDA().getSelfUser().getIdLong();
         FlagConfig fc = config.getFlagConfig();
-        String[] content = MessageUtils.getContent(m, prefix, su, fc.isRespondToMentions());
-        if (content == null) {
+        int nameStart = MessageUtils.findCommandStart(content, prefix, selfId, fc.isRespondToMentions());
+        if (nameStart == -1) {
             return;
         }
-        // Extract name and argument list
-        String name = content[0];
-        if (name.isEmpty()) {
-            return; //If there is a space after prefix, it's not a command
-        }
-        String[] args = Arrays.copyOfRange(content, 1, content.length);
-
         // Get command info if the command has been registered
-        Optional<Command> cmdOpt = registry.getCommand(name, lang);
+        Optional<Command> cmdOpt = registry.findCommand(content, nameStart, lang);
         if (!cmdOpt.isPresent()) {
             return;
         }
         Command cmd = cmdOpt.get();
 
+        // Check if message can be acted upon
+        if (rs != null) {
+            Member sm = e.getGuild().getSelfMember();
+            // No permissions or guild banned? Don't send message
+            if (!sm.hasPermission(e.getTextChannel(), Permission.MESSAGE_WRITE) || rs.isGuildBanned()) {
+                return;
+            }
+            dbUser = cache.getUser(a.getIdLong());
+        }
+        if (dbUser.isBanned()) {
+            return;
+        }
+        ArgumentView args = new ArgumentView(content, MessageUtils.findNameEnd(content, nameStart));
+
         // Check for elevation
         boolean isElevated = dbUser.isElevated();
 
@@ -0,0 +1,231 @@
+package com.tisawesomeness.minecord.server;
+
+import com.tisawesomeness.minecord.util.RequestUtils;
+
+import lombok.NonNull;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checks servers against the list of servers blocked by Mojang.
+ * <br>Mojang publishes the SHA-1 hashes of blocked addresses, which may contain wildcards
+ * such as {@code *.example.com} or {@code 192.168.*}.
+ * <br>The hashes are kept as raw bytes in an open-addressing table, which is replaced all at once on refresh,
+ * so lookups never wait for a refresh and never see a half-built table.
+ * Lookups hash each candidate address with a reused digest and don't allocate.
+ */
+public class BlockedServerIndex {
+
+    private static final String URL = "https://sessionserver.mojang.com/blockedservers";
+    private static final int HASH_LENGTH = 20;
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    private volatile Table table = new Table(0);
+    private volatile long lastUpdated;
+
+    /**
+     * Downloads the latest list of blocked servers from Mojang, replacing the current list.
+     * @return Whether the list was downloaded, if false the current list is kept
+     */
+    public boolean refresh() {
+        String body = RequestUtils.getPlain(URL);
+        if (body == null) {
+            return false;
+        }
+        update(body);
+        return true;
+    }
+    /**
+     * Replaces the current list of blocked servers.
+     * @param blockedServers The SHA-1 hex hashes of blocked addresses, one per line. Invalid lines are ignored.
+     */
+    public void update(@NonNull String blockedServers) {
+        String[] lines = blockedServers.split("\n");
+        Table newTable = new Table(lines.length);
+        byte[] hash = new byte[HASH_LENGTH];
+        for (String line : lines) {
+            if (decodeHex(line.trim(), hash)) {
+                newTable.add(hash);
+            }
+        }
+        table = newTable;
+        lastUpdated = System.currentTimeMillis();
+    }
+    private static boolean decodeHex(String hex, byte[] out) {
+        if (hex.length() != 2 * HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high == -1 || low == -1) {
+                return false;
+            }
+            out[i] = (byte) (high << 4 | low);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a server is blocked by Mojang, either directly or by a wildcard.
+     * @param server The hostname or IP of the server without the port, case-insensitive.
+     *               Addresses that are not ASCII are never blocked.
+     * @param ip Whether the server is an IPv4 address, which is matched by prefix instead of by suffix
+     * @return Whether the server is blocked
+     */
+    public boolean isBlocked(@NonNull String server, boolean ip) {
+        for (int i = 0; i < server.length(); i++) {
+            if (server.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        Table t = table;
+        Hasher hasher = HASHER.get();
+        if (t.contains(hasher.hash("", server, 0, server.length(), ""))) {
+            return true;
+        }
+        if (ip) {
+            // 1.2.3.4 --> 1.2.3.*, 1.2.*, 1.*
+            int dot = server.lastIndexOf('.');
+            while (dot > 0) {
+                if (t.contains(hasher.hash("", server, 0, dot, ".*"))) {
+                    return true;
+                }
+                dot = server.lastIndexOf('.', dot - 1);
+            }
+        } else {
+            // mc.example.com --> *.example.com, *.com
+            int dot = server.indexOf('.');
+            while (dot != -1 && dot < server.length() - 1) {
+                if (t.contains(hasher.hash("*", server, dot, server.length(), ""))) {
+                    return true;
+                }
+                dot = server.indexOf('.', dot + 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of hashes in the current list
+     */
+    public int size() {
+        return table.size;
+    }
+    /**
+     * @return The time the list was last replaced in epoch milliseconds, or 0 if it never was
+     */
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Hashes addresses for a single thread, reusing the digest and output buffer.
+     */
+    private static class Hasher {
+        private final MessageDigest md;
+        private final byte[] out = new byte[HASH_LENGTH];
+
+        private Hasher() {
+            try {
+                md = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new AssertionError("Every JVM supports SHA-1", ex);
+            }
+        }
+
+        /**
+         * Hashes {@code prefix + lowercase(str.substring(start, end)) + suffix}.
+         * @return The hash, which is overwritten by the next call
+         */
+        private byte[] hash(String prefix, String str, int start, int end, String suffix) {
+            update(prefix, 0, prefix.length());
+            update(str, start, end);
+            update(suffix, 0, suffix.length());
+            try {
+                md.digest(out, 0, HASH_LENGTH);
+            } catch (DigestException ex) {
+                throw new AssertionError(ex);
+            }
+            return out;
+        }
+        private void update(String str, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = str.charAt(i);
+                md.update((byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c));
+            }
+        }
+    }
+
+    /**
+     * An immutable set of hashes once built, using linear probing.
+     * <br>Each hash takes three longs: the first 8 bytes, the next 8 bytes,
+     * and the last 4 bytes with a marker bit so an empty slot is all zeroes.
+     */
+    private static class Table {
+        private static final long OCCUPIED = 1L << 32;
+
+        private final long[] slots;
+        private final int mask;
+        private int size;
+
+        private Table(int expectedSize) {
+            // At most half full, so probes stay short
+            int capacity = Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1;
+            slots = new long[capacity * 3];
+            mask = capacity - 1;
+        }
+
+        private void add(byte[] hash) {
+            long a = readLong(hash, 0);
+            long b = readLong(hash, 8);
+            long c = readInt(hash) | OCCUPIED;
+            int i = index(a);
+            while (slots[3 * i + 2] != 0) {
+                if (slots[3 * i] == a && slots[3 * i + 1] == b && slots[3 * i + 2] == c) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[3 * i] = a;
+            slots[3 * i + 1] = b;
+            slots[3 * i + 2] = c;
+            size++;
+        }
+        private boolean contains(byte[] hash) {
+            long a = readLong(hash, 0);
+            long b = readLong(hash, 8);
+            long c = readInt(hash) | OCCUPIED;
+            int i = index(a);
+            while (slots[3 * i + 2] != 0) {
+                if (slots[3 * i] == a && slots[3 * i + 1] == b && slots[3 * i + 2] == c) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+        // SHA-1 output is already uniformly distributed
+        private int index(long a) {
+            return (int) a & mask;
+        }
+
+        private static long readLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                value = value << 8 | (bytes[i] & 0xFF);
+            }
+            return value;
+        }
+        private static long readInt(byte[] bytes) {
+            long value = 0;
+            for (int i = 16; i < HASH_LENGTH; i++) {
+                value = value << 8 | (bytes[i] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+}
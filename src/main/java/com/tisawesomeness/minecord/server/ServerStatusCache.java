@@ -0,0 +1,166 @@
+package com.tisawesomeness.minecord.server;
+
+import br.com.azalim.mcserverping.MCPing;
+import br.com.azalim.mcserverping.MCPingOptions;
+import br.com.azalim.mcserverping.MCPingResponse;
+import br.com.azalim.mcserverping.MCPingUtil;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches server pings, since popular servers are pinged constantly.
+ * <br>A status is fresh for {@link #REFRESH} seconds. After that, the stale status is still returned right away,
+ * and a single ping runs in the background to replace it. A status that could not be refreshed
+ * for {@link #EXPIRE} seconds is thrown out, so the next lookup waits for a new ping.
+ * <br>Failed pings are not cached.
+ * <br>Decoded favicons are cached separately, since a server sends the same favicon on every ping.
+ */
+public class ServerStatusCache {
+
+    /**
+     * How long a status is fresh, in seconds
+     */
+    public static final long REFRESH = 30;
+    /**
+     * How long a stale status can be used while it is refreshed, in seconds
+     */
+    public static final long EXPIRE = TimeUnit.MINUTES.toSeconds(5);
+    private static final int MAX_SIZE = 10_000;
+    private static final long MAX_FAVICON_WEIGHT = 32 * 1024 * 1024;
+
+    private final AsyncLoadingCache<Address, MCPingResponse> statuses;
+    // Base64 favicon --> decoded PNG, or empty if it was invalid
+    private final Cache<String, Optional<byte[]>> favicons = Caffeine.newBuilder()
+            .maximumWeight(MAX_FAVICON_WEIGHT)
+            .weigher((String favicon, Optional<byte[]> data) -> favicon.length() + data.map(b -> b.length).orElse(0))
+            .recordStats()
+            .build();
+
+    /**
+     * Creates an empty cache that pings servers with {@link MCPing}.
+     */
+    public ServerStatusCache() {
+        this(MCPing::getPingAsync, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+    /**
+     * Creates an empty cache.
+     * @param pinger Starts pinging a server
+     * @param ticker The time source
+     * @param executor Runs background refreshes
+     */
+    ServerStatusCache(@NonNull Function<MCPingOptions, CompletableFuture<MCPingResponse>> pinger,
+                      @NonNull Ticker ticker, @NonNull Executor executor) {
+        statuses = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .ticker(ticker)
+                .executor(executor)
+                .refreshAfterWrite(REFRESH, TimeUnit.SECONDS)
+                .expireAfterWrite(EXPIRE, TimeUnit.SECONDS)
+                .recordStats()
+                .buildAsync((address, ignore) -> pinger.apply(MCPingOptions.builder()
+                        .hostname(address.getHostname())
+                        .port(address.getPort())
+                        // A custom port is likely shared by the Bedrock server, if there is one
+                        .bedrockPort(address.getPort() == MCPingUtil.DEFAULT_PORT
+                                ? MCPingUtil.DEFAULT_BEDROCK_PORT : address.getPort())
+                        .build()));
+    }
+
+    /**
+     * Gets the status of a server, blocking until it is pinged if there is no status in the cache.
+     * <br>Concurrent lookups of the same server wait for the same ping.
+     * @param hostname The hostname or IP of the server, case-insensitive
+     * @param port The port of the server
+     * @return The status, which is shared with other callers and should not be modified
+     * @throws IOException If the server could not be pinged
+     */
+    public @NonNull MCPingResponse getStatus(@NonNull String hostname, int port) throws IOException {
+        try {
+            return getStatusAsync(hostname, port).get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while pinging server.");
+        }
+    }
+    /**
+     * Gets the status of a server.
+     * @param hostname The hostname or IP of the server, case-insensitive
+     * @param port The port of the server
+     * @return A future with the status, which is shared with other callers and should not be modified
+     */
+    public @NonNull CompletableFuture<MCPingResponse> getStatusAsync(@NonNull String hostname, int port) {
+        return statuses.get(new Address(normalize(hostname), port));
+    }
+    private static String normalize(String hostname) {
+        String lower = hostname.toLowerCase();
+        return lower.endsWith(".") ? lower.substring(0, lower.length() - 1) : lower;
+    }
+
+    /**
+     * Decodes the favicon a server sent.
+     * @param favicon The favicon from {@link MCPingResponse#getFavicon()}, a Base64 PNG data URI
+     * @return The PNG, or empty if the favicon is invalid.
+     * The array is shared with other callers and should not be modified.
+     */
+    public @NonNull Optional<byte[]> getFavicon(@NonNull String favicon) {
+        return favicons.get(favicon, ServerStatusCache::decode);
+    }
+    private static Optional<byte[]> decode(String favicon) {
+        String data = favicon.replace("\n", "");
+        int comma = data.indexOf(',');
+        if (comma == -1) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Base64.getDecoder().decode(data.substring(comma + 1)));
+        } catch (IllegalArgumentException ex) {
+            ex.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return The stats of the status cache
+     */
+    public @NonNull CacheStats getStatusStats() {
+        return statuses.synchronous().stats();
+    }
+    /**
+     * @return The stats of the favicon cache
+     */
+    public @NonNull CacheStats getFaviconStats() {
+        return favicons.stats();
+    }
+
+    @Value
+    private static class Address {
+        @NonNull String hostname;
+        int port;
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * This package looks up the status of Minecraft servers.
+ * <br>Use {@link com.tisawesomeness.minecord.server.ServerStatusCache} to ping a server.
+ */
+package com.tisawesomeness.minecord.server;
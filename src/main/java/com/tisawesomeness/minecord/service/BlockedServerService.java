@@ -0,0 +1,28 @@
+package com.tisawesomeness.minecord.service;
+
+import com.tisawesomeness.minecord.server.BlockedServerIndex;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the list of servers blocked by Mojang once every hour, retrying every minute if it fails.
+ */
+@RequiredArgsConstructor
+public class BlockedServerService extends Service {
+    private static final long INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final @NonNull BlockedServerIndex index;
+
+    public void schedule(ScheduledExecutorService exe) {
+        exe.scheduleWithFixedDelay(this::run, 0, 1, TimeUnit.MINUTES);
+    }
+    private void run() {
+        if (System.currentTimeMillis() - index.getLastUpdated() >= INTERVAL) {
+            index.refresh();
+        }
+    }
+}
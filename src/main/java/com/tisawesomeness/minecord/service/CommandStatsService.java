@@ -11,14 +11,20 @@ import java.util.concurrent.TimeUnit;
 
 @RequiredArgsConstructor
 public class CommandStatsService extends Service {
+    private static final int ROLLUP_INTERVAL = 60;
+
     private final @NonNull CommandExecutor executor;
     private final @NonNull CommandConfig cc;
 
     public void schedule(ScheduledExecutorService exe) {
         int interval = cc.getPushUsesInterval();
         exe.scheduleAtFixedRate(this::run, interval, interval, TimeUnit.SECONDS);
+        exe.scheduleAtFixedRate(this::rollup, ROLLUP_INTERVAL, ROLLUP_INTERVAL, TimeUnit.MINUTES);
     }
     private void run() {
         executor.pushUses();
     }
+    private void rollup() {
+        executor.rollupUsageHistory();
+    }
 }
@@ -0,0 +1,28 @@
+package com.tisawesomeness.minecord.service;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.WriteBehindQueue;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class WriteBehindService extends Service {
+    private final @NonNull WriteBehindQueue queue;
+    private final @NonNull DatabaseConfig dc;
+
+    @Override
+    public boolean shouldRun() {
+        return queue.isEnabled();
+    }
+    public void schedule(ScheduledExecutorService exe) {
+        int interval = dc.getWriteBehindInterval();
+        exe.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    private void run() {
+        queue.flush();
+    }
+}
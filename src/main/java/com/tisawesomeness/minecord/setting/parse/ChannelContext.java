@@ -51,7 +51,7 @@ public class ChannelContext extends SettingContext {
         if (!ctx.e.isFromGuild()) {
             return ctx.warn(String.format("`%ssettings channel` cannot be used in DMs.", ctx.prefix));
         }
-        if (currentArg >= ctx.args.length) {
+        if (currentArg >= ctx.getArgs().length) {
             return displayCurrentChannelSettingsIfQuery();
         }
         return displayOrParseChannel();
@@ -67,7 +67,7 @@ public class ChannelContext extends SettingContext {
         return displaySettings(title, s -> s.getDisplay(channel));
     }
     private Result displayOrParseChannel() {
-        String channelArg = ctx.args[currentArg];
+        String channelArg = ctx.getArgs()[currentArg];
         Either<String, TextChannel> maybeChannel = getChannel(channelArg);
         if (!maybeChannel.isRight()) {
             String msg = maybeChannel.getLeft();
@@ -120,13 +120,13 @@ public class ChannelContext extends SettingContext {
     }
 
     private Result parseAdmin() {
-        if (currentArg >= ctx.args.length) {
+        if (currentArg >= ctx.getArgs().length) {
             return ctx.invalidArgs("You must specify a channel id.");
         }
         return displayOrParseChannelId();
     }
     private Result displayOrParseChannelId() {
-        String channelArg = ctx.args[currentArg];
+        String channelArg = ctx.getArgs()[currentArg];
         Either<String, Long> maybeCid = getChannelId(channelArg);
         if (!maybeCid.isRight()) {
             return ctx.invalidArgs(maybeCid.getLeft());
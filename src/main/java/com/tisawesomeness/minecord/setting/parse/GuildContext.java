@@ -41,8 +41,8 @@ public class GuildContext extends SettingContext {
     }
 
     private Result parseGuildId() {
-        if (currentArg < ctx.args.length) {
-            String guildArg = ctx.args[currentArg];
+        if (currentArg < ctx.getArgs().length) {
+            String guildArg = ctx.getArgs()[currentArg];
             if (!DiscordUtils.isDiscordId(guildArg)) {
                 return ctx.invalidArgs("Not a valid guild id.");
             }
@@ -48,7 +48,7 @@ public class ListSubcommand {
         return listSettings("All Channel Overrides", ctx.e.getGuild().getIdLong());
     }
     private Result parseAdminList() {
-        if (currentArg < ctx.args.length) {
+        if (currentArg < ctx.getArgs().length) {
             return parseGuildAndList();
         } else if (!ctx.e.isFromGuild()) {
             return ctx.warn(String.format(
@@ -58,7 +58,7 @@ public class ListSubcommand {
     }
 
     private Result parseGuildAndList() {
-        String guildArg = ctx.args[currentArg];
+        String guildArg = ctx.getArgs()[currentArg];
         if (!DiscordUtils.isDiscordId(guildArg)) {
             return ctx.invalidArgs("Not a valid guild id.");
         }
@@ -26,7 +26,7 @@ public class SettingCommandParser extends SettingCommandHandler {
      * @return The result of this command
      */
     public Result parse() {
-        if (ctx.args.length == 0) {
+        if (ctx.getArgs().length == 0) {
             if (type == SettingCommandType.QUERY) {
                 ctx.triggerCooldown();
                 return displaySettings("Currently Active Settings", s -> s.getDisplay(ctx));
@@ -37,7 +37,7 @@ public class SettingCommandParser extends SettingCommandHandler {
     }
 
     private Result parseAdminArg() {
-        String[] args = ctx.args;
+        String[] args = ctx.getArgs();
         if ("admin".equalsIgnoreCase(args[0])) {
             return parseAdminContextIfAble(args);
         }
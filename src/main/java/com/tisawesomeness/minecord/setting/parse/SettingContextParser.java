@@ -39,7 +39,7 @@ public class SettingContextParser extends SettingCommandHandler {
      * @return The result of this command
      */
     public Result parse() {
-        String contextArg = ctx.args[currentArg];
+        String contextArg = ctx.getArgs()[currentArg];
         currentArg++;
         if (type == SettingCommandType.QUERY) {
             if ("list".equalsIgnoreCase(contextArg)) {
@@ -76,7 +76,7 @@ public class SettingContextParser extends SettingCommandHandler {
     }
 
     private Result parseChannelAndDisplay() {
-        String contextArg = ctx.args[currentArg];
+        String contextArg = ctx.getArgs()[currentArg];
         if (DiscordUtils.isDiscordId(contextArg)) {
             return displayChannelIdSettings(contextArg);
         }
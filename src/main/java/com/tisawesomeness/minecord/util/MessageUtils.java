@@ -1,15 +1,14 @@
 package com.tisawesomeness.minecord.util;
 
-import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.SelfUser;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 public final class MessageUtils {
 
+    // Discord IDs fit in a long, which has at most 19 digits
+    private static final int MAX_ID_DIGITS = 19;
+
     /**
      * Parses boolean arguments.
      * @param search The string array to search through.
@@ -30,17 +29,71 @@ public final class MessageUtils {
     }
 
     /**
-     * Gets the command-useful content of a message, keeping the name and arguments and purging the prefix and mention.
+     * Finds where the command name starts in a message, without allocating.
+     * <br>A message is addressed to the bot if it starts with the prefix, or a mention of the bot followed by whitespace.
+     * @param content The raw content of the message
+     * @param prefix The prefix used in the current channel
+     * @param selfId The user ID of the bot
+     * @param respondToMentions Whether a mention of the bot can be used instead of the prefix
+     * @return The index of the first character of the command name, or -1 if the message is not addressed to the bot
+     */
+    public static int findCommandStart(String content, String prefix, long selfId, boolean respondToMentions) {
+        if (content.startsWith(prefix)) {
+            return prefix.length();
+        }
+        if (respondToMentions) {
+            int mentionEnd = findMentionEnd(content, selfId);
+            if (mentionEnd != -1 && mentionEnd < content.length() && isSeparator(content.charAt(mentionEnd))) {
+                return mentionEnd + 1;
+            }
+        }
+        return -1;
+    }
+    // Matches <@id> or <@!id> at the start of the content, returning the index after the closing bracket
+    private static int findMentionEnd(String content, long selfId) {
+        if (!content.startsWith("<@")) {
+            return -1;
+        }
+        int i = 2;
+        if (i < content.length() && content.charAt(i) == '!') {
+            i++;
+        }
+        int digitsStart = i;
+        long id = 0;
+        while (i < content.length() && '0' <= content.charAt(i) && content.charAt(i) <= '9') {
+            if (i - digitsStart >= MAX_ID_DIGITS) {
+                return -1;
+            }
+            id = id * 10 + (content.charAt(i) - '0');
+            i++;
+        }
+        if (i == digitsStart || i >= content.length() || content.charAt(i) != '>' || id != selfId) {
+            return -1;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Finds where the command name ends in a message.
+     * @param content The raw content of the message
+     * @param nameStart The index of the first character of the command name
+     * @return The index right after the command name, where the arguments start
      */
-    public static String[] getContent(Message m, String prefix, SelfUser su, boolean respondToMentions) {
-        String content = m.getContentRaw();
-        if (m.getContentRaw().startsWith(prefix)) {
-            return content.replaceFirst(Pattern.quote(prefix), "").split(" ");
-        } else if (respondToMentions && content.replaceFirst("@!", "@").startsWith(su.getAsMention())) {
-            String[] args = content.split(" ");
-            return Arrays.copyOfRange(args, 1, args.length);
+    public static int findNameEnd(String content, int nameStart) {
+        int nameEnd = nameStart;
+        while (nameEnd < content.length() && !isSeparator(content.charAt(nameEnd))) {
+            nameEnd++;
         }
-        return null;
+        return nameEnd;
+    }
+
+    /**
+     * Checks if a character separates a command name from its arguments, or two arguments.
+     * @param c The character
+     * @return True if the character is whitespace
+     */
+    public static boolean isSeparator(char c) {
+        return Character.isWhitespace(c);
     }
 
     public static String dateErrorString(String prefix, String cmd) {
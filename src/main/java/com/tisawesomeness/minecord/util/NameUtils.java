@@ -40,7 +40,7 @@ public final class NameUtils {
      * @param uuid A UUID with or without dashes
      */
     public static String getName(String uuid) {
-        String url = "https://api.mojang.com/user/profiles/" + uuid + "/names";
+        String url = getHistoryURL(uuid);
         String request = RequestUtils.get(url);
         if (request == null) {
             return null;
@@ -64,7 +64,7 @@ public final class NameUtils {
     }
 
     private static String getUUIDInternal(String query) {
-        String url = "https://api.mojang.com/users/profiles/minecraft/" + query;
+        String url = getUUIDURL(query);
         String request = RequestUtils.get(url);
         if (request == null) {
             return null;
@@ -80,6 +80,22 @@ public final class NameUtils {
         return response.getString("id");
     }
 
+    /**
+     * Gets the Mojang API URL that looks up the UUID of a player
+     * @param query A playername, optionally followed by {@code ?at=} and a Unix timestamp
+     */
+    public static String getUUIDURL(String query) {
+        return "https://api.mojang.com/users/profiles/minecraft/" + query;
+    }
+
+    /**
+     * Gets the Mojang API URL that looks up the name history of a player
+     * @param uuid A UUID without dashes
+     */
+    public static String getHistoryURL(String uuid) {
+        return "https://api.mojang.com/user/profiles/" + uuid + "/names";
+    }
+
     /**
      * Adds dashes to a UUID
      */
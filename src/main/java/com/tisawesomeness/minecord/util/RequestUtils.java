@@ -1,6 +1,19 @@
 package com.tisawesomeness.minecord.util;
 
-import lombok.Cleanup;
+import com.tisawesomeness.minecord.util.type.HttpResult;
+import com.tisawesomeness.minecord.util.type.SingleFlight;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
@@ -11,35 +24,68 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class RequestUtils {
 
     private static final String charset = StandardCharsets.UTF_8.name();
-    private static final String jsonType = "application/json";
-    private static final String plainType = "text/plain";
+    private static final MediaType jsonType = MediaType.parse("application/json; charset=utf-8");
+    private static final MediaType plainType = MediaType.parse("text/plain; charset=utf-8");
     private static final String browserAgent = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.11 (KHTML, like Gecko) Chrome/23.0.1271.95 Safari/537.11";
 
-    private static String get(URLConnection conn, String type) throws IOException {
-        InputStream response = conn.getInputStream();
-        @Cleanup Scanner scanner = new Scanner(response);
-        return scanner.hasNext() ? scanner.useDelimiter("\\A").next() : "";
+    private static final int CONNECT_TIMEOUT = 5;
+    private static final int READ_TIMEOUT = 10;
+    private static final int MAX_REQUESTS = 64;
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+    private static final int MAX_IDLE_CONNECTIONS = 16;
+    private static final int KEEP_ALIVE = 5;
+
+    /**
+     * The client used for every request, sharing a connection pool and dispatcher threads.
+     * <br>OkHttp asks for gzip and decompresses responses on its own, and uses HTTP/2 when the server supports it.
+     * <br>Redirects are not followed, so a moved resource is treated as missing.
+     */
+    private static final OkHttpClient client = buildClient();
+    private static OkHttpClient buildClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .writeTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .followRedirects(false)
+                .followSslRedirects(false)
+                .build();
     }
 
+    // Concurrent identical requests share one response instead of each hitting the API, see the requests debug option
+    private static final SingleFlight<String, String> bodyFlights = new SingleFlight<>();
+    private static final SingleFlight<String, Optional<HttpResult>> statusFlights = new SingleFlight<>();
+    private static final SingleFlight<String, Boolean> checkFlights = new SingleFlight<>();
+    private static final SingleFlight<String, byte[]> imageFlights = new SingleFlight<>();
+
     /**
      * Performs an HTTP GET request.
      *
      * @param url The request URL.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String get(String url) {
         return get(url, null);
@@ -49,7 +95,7 @@ public final class RequestUtils {
      * Performs an HTTP GET request.
      *
      * @param url The request URL.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String getPlain(String url) {
         return getPlain(url, null);
@@ -60,18 +106,10 @@ public final class RequestUtils {
      *
      * @param url  The request URL.
      * @param auth The content of the Authorization header.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String get(String url, String auth) {
-        if (checkURL(url)) {
-            try {
-                URLConnection conn = open(url, auth, jsonType);
-                return get(conn, jsonType);
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
-        }
-        return null;
+        return getBody(url, auth, jsonType);
     }
 
     /**
@@ -79,16 +117,34 @@ public final class RequestUtils {
      *
      * @param url  The request URL.
      * @param auth The content of the Authorization header.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String getPlain(String url, String auth) {
-        try {
-            URLConnection conn = open(url, auth, plainType);
-            return get(conn, plainType);
-        } catch (IOException ex) {
+        return getBody(url, auth, plainType);
+    }
+    private static String getBody(String url, String auth, MediaType contentType) {
+        Supplier<String> request = () -> execute(() -> buildGet(url, auth, contentType));
+        // Requests with credentials are never shared, since the response may depend on who asked
+        return auth == null ? bodyFlights.run(contentType + " " + url, request) : request.get();
+    }
+
+    /**
+     * Performs an HTTP GET request, keeping the status code so a missing resource can be told apart from an outage.
+     *
+     * @param url The request URL.
+     * @return The status code and body of the response, or empty if the request could not be made.
+     */
+    public static Optional<HttpResult> getWithStatus(String url) {
+        return statusFlights.run(url, () -> fetchWithStatus(url));
+    }
+    private static Optional<HttpResult> fetchWithStatus(String url) {
+        try (Response response = client.newCall(buildGet(url, null, jsonType)).execute()) {
+            ResponseBody body = response.body();
+            return Optional.of(new HttpResult(response.code(), body == null ? "" : body.string()));
+        } catch (IOException | IllegalArgumentException ex) {
             ex.printStackTrace();
         }
-        return null;
+        return Optional.empty();
     }
 
     /**
@@ -96,7 +152,7 @@ public final class RequestUtils {
      *
      * @param url   The request URL.
      * @param query The request payload, in string form.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String post(String url, String query) {
         return post(url, query, null);
@@ -108,28 +164,120 @@ public final class RequestUtils {
      * @param url   The request URL.
      * @param query The request payload, in string form.
      * @param auth  The content of the Authorization header.
-     * @return The response of the request in string form.
+     * @return The response of the request in string form, or null if the request failed.
      */
     public static String post(String url, String query, String auth) {
-        try {
-            URLConnection conn = open(url, auth, jsonType);
-            @Cleanup OutputStream output = conn.getOutputStream();
-            output.write(query.getBytes(charset));
-            return get(conn, jsonType);
-        } catch (IOException ex) {
+        return execute(() -> buildPost(url, query, auth));
+    }
+
+    /**
+     * Performs an HTTP GET request without blocking.
+     *
+     * @param url The request URL.
+     * @return A future with the response of the request in string form, or null if the request failed.
+     */
+    public static CompletableFuture<String> getAsync(String url) {
+        return getAsync(url, null);
+    }
+
+    /**
+     * Performs an HTTP GET request without blocking.
+     *
+     * @param url  The request URL.
+     * @param auth The content of the Authorization header.
+     * @return A future with the response of the request in string form, or null if the request failed.
+     */
+    public static CompletableFuture<String> getAsync(String url, String auth) {
+        Supplier<CompletableFuture<String>> request =
+                () -> enqueue(() -> buildGet(url, auth, jsonType), RequestUtils::readBody, null);
+        return auth == null ? bodyFlights.runAsync(jsonType + " " + url, request) : request.get();
+    }
+
+    /**
+     * Performs an HTTP POST request without blocking.
+     *
+     * @param url   The request URL.
+     * @param query The request payload, in string form.
+     * @return A future with the response of the request in string form, or null if the request failed.
+     */
+    public static CompletableFuture<String> postAsync(String url, String query) {
+        return enqueue(() -> buildPost(url, query, null), RequestUtils::readBody, null);
+    }
+
+    private static Request buildGet(String url, String auth, MediaType contentType) {
+        return build(url, auth, contentType).get().build();
+    }
+    private static Request buildPost(String url, String query, String auth) {
+        return build(url, auth, jsonType).post(RequestBody.create(jsonType, query)).build();
+    }
+    private static Request.Builder build(String url, String auth, MediaType contentType) {
+        Request.Builder builder = new Request.Builder()
+                .url(url)
+                .header("Accept-Charset", charset)
+                .header("Content-Type", contentType.toString());
+        if (auth != null)
+            builder.header("Authorization", auth);
+        return builder;
+    }
+
+    /**
+     * Sends a request and waits for the response.
+     * @param request Builds the request, which throws {@link IllegalArgumentException} if the URL is malformed
+     * @return The response body, or null if the request failed
+     */
+    private static String execute(Supplier<Request> request) {
+        try (Response response = client.newCall(request.get()).execute()) {
+            return readBody(response);
+        } catch (IOException | IllegalArgumentException ex) {
             ex.printStackTrace();
         }
         return null;
     }
+    private static String readBody(Response response) throws IOException {
+        // Mojang answers unknown players with 204 No Content, so anything but 200 counts as a failure
+        if (response.code() != HttpURLConnection.HTTP_OK) {
+            return null;
+        }
+        ResponseBody body = response.body();
+        return body == null ? "" : body.string();
+    }
 
-    private static URLConnection open(String url, String auth, String contentType) throws IOException {
-        URLConnection conn = new URL(url).openConnection();
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Accept-Charset", charset);
-        conn.setRequestProperty("Content-Type", contentType);
-        if (auth != null)
-            conn.setRequestProperty("Authorization", auth);
-        return conn;
+    /**
+     * Sends a request on the shared dispatcher.
+     * @param builder Builds the request, which throws {@link IllegalArgumentException} if the URL is malformed
+     * @param reader Reads the response, which is closed afterwards
+     * @param failure The value to complete with if the request fails
+     * @param <T> The type of the result
+     * @return A future that completes on a dispatcher thread, or right away if the request could not be built
+     */
+    private static <T> CompletableFuture<T> enqueue(Supplier<Request> builder, ResponseReader<T> reader, T failure) {
+        Request request;
+        try {
+            request = builder.get();
+        } catch (IllegalArgumentException ex) {
+            ex.printStackTrace();
+            return CompletableFuture.completedFuture(failure);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            public void onFailure(Call call, IOException ex) {
+                ex.printStackTrace();
+                future.complete(failure);
+            }
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    future.complete(reader.read(r));
+                } catch (IOException | RuntimeException ex) {
+                    ex.printStackTrace();
+                    future.complete(failure);
+                }
+            }
+        });
+        return future;
+    }
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Response response) throws IOException;
     }
 
     /**
@@ -150,25 +298,106 @@ public final class RequestUtils {
      * @return True if the URL exists, false if it doesn't or an error occured.
      */
     public static boolean checkURL(String url, boolean fakeUserAgent) {
-        try {
-            HttpURLConnection.setFollowRedirects(false);
-            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-            con.setRequestMethod("HEAD");
-            if (fakeUserAgent) {
-                con.setRequestProperty("User-Agent", browserAgent);
-            }
-            return con.getResponseCode() == HttpURLConnection.HTTP_OK;
+        return checkFlights.run(checkKey(url, fakeUserAgent), () -> check(url, fakeUserAgent));
+    }
+    private static boolean check(String url, boolean fakeUserAgent) {
+        try (Response response = client.newCall(buildHead(url, fakeUserAgent)).execute()) {
+            return response.code() == HttpURLConnection.HTTP_OK;
         } catch (Exception ex) {
             ex.printStackTrace();
             return false;
         }
     }
 
+    /**
+     * Checks if a URL exists and can respond to an HTTP request without blocking.
+     *
+     * @param url             The URL to check.
+     * @param fakeUserAgent If true, pretends to be a browser
+     * @return A future that is true if the URL exists, false if it doesn't or an error occured.
+     */
+    public static CompletableFuture<Boolean> checkURLAsync(String url, boolean fakeUserAgent) {
+        return checkFlights.runAsync(checkKey(url, fakeUserAgent), () -> enqueue(() -> buildHead(url, fakeUserAgent),
+                response -> response.code() == HttpURLConnection.HTTP_OK, false));
+    }
+    private static String checkKey(String url, boolean fakeUserAgent) {
+        return fakeUserAgent + " " + url;
+    }
+
+    private static Request buildHead(String url, boolean fakeUserAgent) {
+        Request.Builder builder = new Request.Builder().url(url).head();
+        if (fakeUserAgent) {
+            builder.header("User-Agent", browserAgent);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Downloads an image and converts it to PNG.
+     *
+     * @param url The URL of the image.
+     * @return A stream of the image in PNG format.
+     * @throws IOException If the request failed or the response was not an image.
+     */
     public static InputStream downloadImage(String url) throws IOException {
-        BufferedImage image = ImageIO.read(new URL(url));
+        try {
+            // Every caller gets their own stream over the shared bytes
+            return new ByteArrayInputStream(imageFlights.run(url, () -> downloadPNG(url)));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+    private static byte[] downloadPNG(String url) {
+        try {
+            return convertToPNG(url);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    private static byte[] convertToPNG(String url) throws IOException {
+        Request request;
+        try {
+            request = new Request.Builder().url(url).get().build();
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(url + " is not a valid URL", ex);
+        }
+        BufferedImage image;
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException(String.format("Downloading %s failed with status %d", url, response.code()));
+            }
+            // Read straight from the connection instead of buffering the whole response first
+            image = ImageIO.read(body.byteStream());
+        }
+        if (image == null) {
+            throw new IOException(url + " is not an image");
+        }
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         ImageIO.write(image, "png", os);
-        return new ByteArrayInputStream(os.toByteArray());
+        return os.toByteArray();
+    }
+
+    /**
+     * Gets the request coalescing stats, used for debugging.
+     * @return A map from the type of request to the {@link SingleFlight} that coalesces it
+     */
+    public static Map<String, SingleFlight<?, ?>> getFlights() {
+        Map<String, SingleFlight<?, ?>> flights = new LinkedHashMap<>();
+        flights.put("get", bodyFlights);
+        flights.put("getWithStatus", statusFlights);
+        flights.put("checkURL", checkFlights);
+        flights.put("downloadImage", imageFlights);
+        return flights;
+    }
+
+    /**
+     * Releases the idle connections and dispatcher threads of the shared client.
+     * <br>Only call this when shutting down, since no more requests can be made asynchronously afterwards.
+     */
+    public static void shutdown() {
+        client.connectionPool().evictAll();
+        client.dispatcher().executorService().shutdown();
     }
 
     /**
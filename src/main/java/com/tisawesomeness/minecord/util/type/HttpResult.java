@@ -0,0 +1,19 @@
+package com.tisawesomeness.minecord.util.type;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * The status code and body of an HTTP response.
+ */
+@Value
+public class HttpResult {
+    /**
+     * The HTTP status code
+     */
+    int code;
+    /**
+     * The response body, empty if there was none
+     */
+    @NonNull String body;
+}
@@ -0,0 +1,122 @@
+package com.tisawesomeness.minecord.util.type;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Makes concurrent calls with the same key share a single execution and its result.
+ * <br>The first caller for a key runs the action, and any caller that arrives while it is running
+ * waits for that result instead of running the action again.
+ * Once the action finishes, the next call for the key runs it again, so nothing is cached.
+ * <br>Results are shared between callers, so they should be immutable.
+ * @param <K> The type of the key
+ * @param <V> The type of the result
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Runs an action, or waits for the result of the same action if it is already running.
+     * @param key The key identifying the action
+     * @param action The action, run on the calling thread if no other caller is running it
+     * @return The result of the action, which may be shared with other callers
+     * @throws RuntimeException If the action threw, the exception is rethrown to every caller that shared it
+     */
+    public V run(@NonNull K key, @NonNull Supplier<V> action) {
+        calls.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            shared.increment();
+            return join(existing);
+        }
+        try {
+            V value = action.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            // Callers should see the same exception as the caller that ran the action
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Starts an asynchronous action, or shares the future of the same action if it is already running.
+     * <br>Calls to {@link #run(Object, Supplier)} with the same key share the result as well.
+     * @param key The key identifying the action
+     * @param action Starts the action and returns its future
+     * @return A future with the result of the action, which may be shared with other callers
+     */
+    public CompletableFuture<V> runAsync(@NonNull K key, @NonNull Supplier<CompletableFuture<V>> action) {
+        calls.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            shared.increment();
+            return copy(existing);
+        }
+        try {
+            action.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, future);
+                if (ex == null) {
+                    future.complete(value);
+                } else {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+        return copy(future);
+    }
+    // Each caller gets their own future, so one caller completing or cancelling it doesn't affect the others
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> future) {
+        return future.thenApply(value -> value);
+    }
+
+    /**
+     * @return The number of calls, including calls that shared a result
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+    /**
+     * @return The number of calls that shared the result of another call instead of running the action
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+    /**
+     * @return The number of actions running right now
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+}
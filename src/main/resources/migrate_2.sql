@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS command_usage (
+    command    TEXT(32) NOT NULL,
+    result     TEXT(16) NOT NULL,
+    resolution INT(5) NOT NULL,
+    bucket     BIGINT(20) NOT NULL,
+    uses       INT(13) NOT NULL DEFAULT 0,
+    PRIMARY KEY (resolution, bucket, command, result)
+);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS channel_guild_id ON channel (guild_id);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS profile_name (
+    name       TEXT(40) PRIMARY KEY NOT NULL,
+    uuid       TEXT(32),
+    fetched_at BIGINT(20) NOT NULL
+);
+CREATE TABLE IF NOT EXISTS profile_history (
+    uuid       TEXT(32) PRIMARY KEY NOT NULL,
+    history    TEXT,
+    fetched_at BIGINT(20) NOT NULL
+);
@@ -0,0 +1,43 @@
+package br.com.azalim.mcserverping;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LegacyPingTest {
+
+    @Test
+    @DisplayName("A 1.4 to 1.6 kick reason is parsed into a status")
+    public void testParse() throws IOException {
+        String kick = MCPingUtil.COLOR_CHAR + "1\u000074\u00001.6.2\u0000A §aColored§r Server\u00001\u000020";
+        MCPingResponse response = MCPing.parse(LegacyPing.parse(kick), 0);
+        assertThat(response.getDescription().getText()).isEqualTo("A §aColored§r Server");
+        assertThat(response.getPlayers().getOnline()).isEqualTo(1);
+        assertThat(response.getPlayers().getMax()).isEqualTo(20);
+        assertThat(response.getVersion().getName()).isEqualTo("1.6.2");
+        assertThat(response.getVersion().getProtocol()).isEqualTo(74);
+    }
+
+    @Test
+    @DisplayName("A pre-1.4 kick reason is parsed into a status, even if the MOTD has color codes")
+    public void testParseOld() throws IOException {
+        String kick = "An §cOld§r Server§3§8";
+        MCPingResponse response = MCPing.parse(LegacyPing.parse(kick), 0);
+        assertThat(response.getDescription().getText()).isEqualTo("An §cOld§r Server");
+        assertThat(response.getPlayers().getOnline()).isEqualTo(3);
+        assertThat(response.getPlayers().getMax()).isEqualTo(8);
+        assertThat(response.getVersion().getName()).isEqualTo(LegacyPing.UNKNOWN_VERSION);
+    }
+
+    @Test
+    @DisplayName("A kick reason that isn't a status fails")
+    public void testParseInvalid() {
+        assertThatThrownBy(() -> LegacyPing.parse("You are banned from this server!"))
+                .isInstanceOf(IOException.class);
+    }
+
+}
@@ -0,0 +1,395 @@
+package br.com.azalim.mcserverping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PingEngineTest {
+
+    private static final String STATUS = "{\"description\":\"A Minecraft Server\","
+            + "\"players\":{\"max\":20,\"online\":3},\"version\":{\"name\":\"1.16.4\",\"protocol\":754}}";
+    private static final String LEGACY_KICK = MCPingUtil.COLOR_CHAR
+            + "1\u0000127\u00001.6.4\u0000A Legacy Server\u00005\u000010";
+    private static final String HOSTNAME = "mc.example.com";
+    private static final String BEDROCK_ID = "MCPE;A Bedrock Server;422;1.16.201;2;10;"
+            + "1234;world;Survival;1;19132;19133;";
+
+    private ServerSocket server;
+    private ExecutorService exe;
+    private PingEngine engine;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        exe = Executors.newCachedThreadPool();
+        // No nameserver, so localhost is pinged without an SRV lookup
+        engine = new PingEngine(null);
+    }
+    @AfterEach
+    public void tearDown() throws IOException {
+        engine.close();
+        exe.shutdownNow();
+        server.close();
+    }
+
+    private MCPingOptions options(int timeout) {
+        return options("127.0.0.1", timeout);
+    }
+    private MCPingOptions options(String hostname, int timeout) {
+        return MCPingOptions.builder()
+                .hostname(hostname)
+                .port(server.getLocalPort())
+                .protocols(EnumSet.of(PingProtocol.MODERN))
+                .timeout(timeout)
+                .build();
+    }
+    private MCPingOptions options(int timeout, int bedrockPort) {
+        return MCPingOptions.builder()
+                .hostname("127.0.0.1")
+                .port(server.getLocalPort())
+                .bedrockPort(bedrockPort)
+                .timeout(timeout)
+                .build();
+    }
+
+    // Accepts connections and answers each with the status and a pong, like a real server
+    private void serve() {
+        exe.submit(() -> {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                exe.submit(() -> answer(socket));
+            }
+            return null;
+        });
+    }
+    private static Void answer(Socket socket) throws IOException {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(s.getInputStream());
+             DataOutputStream out = new DataOutputStream(s.getOutputStream())) {
+            // Handshake, then status request
+            in.readFully(new byte[MCPingUtil.readVarInt(in)]);
+            in.readFully(new byte[MCPingUtil.readVarInt(in)]);
+
+            byte[] json = STATUS.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream packet = new DataOutputStream(bytes);
+            MCPingUtil.writeVarInt(packet, MCPingUtil.PACKET_STATUSREQUEST);
+            MCPingUtil.writeVarInt(packet, json.length);
+            packet.write(json);
+            MCPingUtil.writeVarInt(out, bytes.size());
+            // Split in two, so the client has to wait for the rest
+            byte[] data = bytes.toByteArray();
+            out.write(data, 0, data.length / 2);
+            out.flush();
+            out.write(data, data.length / 2, data.length - data.length / 2);
+
+            // Ping is echoed back as the pong
+            byte[] ping = new byte[MCPingUtil.readVarInt(in)];
+            in.readFully(ping);
+            MCPingUtil.writeVarInt(out, ping.length);
+            out.write(ping);
+        }
+        return null;
+    }
+
+    // Answers the legacy ping like a 1.6 server, which drops the modern handshake as an unknown packet
+    private void serveLegacy() {
+        exe.submit(() -> {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                exe.submit(() -> answerLegacy(socket));
+            }
+            return null;
+        });
+    }
+    private static Void answerLegacy(Socket socket) throws IOException {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(s.getInputStream());
+             DataOutputStream out = new DataOutputStream(s.getOutputStream())) {
+            if (in.readUnsignedByte() != 0xFE) {
+                return null;
+            }
+            out.writeByte(0xFF);
+            out.writeShort(LEGACY_KICK.length());
+            out.writeChars(LEGACY_KICK);
+        }
+        return null;
+    }
+
+    // Answers like a real server, but only after a delay longer than the grace period
+    private void serveSlowly() {
+        exe.submit(() -> {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                exe.submit(() -> {
+                    Thread.sleep(PingEngine.GRACE + 500);
+                    return answer(socket);
+                });
+            }
+            return null;
+        });
+    }
+
+    // Answers every unconnected ping with a pong, like a Bedrock server
+    private DatagramSocket serveBedrock() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        exe.submit(() -> {
+            byte[] buf = new byte[1024];
+            while (!socket.isClosed()) {
+                DatagramPacket request = new DatagramPacket(buf, buf.length);
+                socket.receive(request);
+                byte[] id = BEDROCK_ID.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer pong = ByteBuffer.allocate(1 + 8 + 8 + BedrockPing.MAGIC.length + 2 + id.length)
+                        .put((byte) 0x1C)
+                        .putLong(ByteBuffer.wrap(buf, 1, 8).getLong())
+                        .putLong(42)
+                        .put(BedrockPing.MAGIC)
+                        .putShort((short) id.length)
+                        .put(id);
+                socket.send(new DatagramPacket(pong.array(), pong.capacity(), request.getSocketAddress()));
+            }
+            return null;
+        });
+        return socket;
+    }
+
+    // Answers A queries for HOSTNAME with the loopback address, and every other name doesn't exist
+    private DatagramSocket serveDns() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Name known = Name.fromString(HOSTNAME, Name.root);
+        InetAddress loopback = InetAddress.getByAddress(new byte[]{127, 0, 0, 1});
+        exe.submit(() -> {
+            byte[] buf = new byte[512];
+            while (!socket.isClosed()) {
+                DatagramPacket request = new DatagramPacket(buf, buf.length);
+                socket.receive(request);
+                Message query = new Message(Arrays.copyOf(buf, request.getLength()));
+                Record question = query.getQuestion();
+                Message response = new Message(query.getHeader().getID());
+                response.getHeader().setFlag(Flags.QR);
+                response.addRecord(question, Section.QUESTION);
+                if (!question.getName().equals(known)) {
+                    response.getHeader().setRcode(Rcode.NXDOMAIN);
+                } else if (question.getType() == Type.A) {
+                    response.addRecord(new ARecord(known, DClass.IN, 60, loopback), Section.ANSWER);
+                }
+                byte[] wire = response.toWire();
+                socket.send(new DatagramPacket(wire, wire.length, request.getSocketAddress()));
+            }
+            return null;
+        });
+        return socket;
+    }
+    private static InetSocketAddress addressOf(DatagramSocket socket) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+    }
+
+    @Test
+    @DisplayName("A ping completes with the parsed status")
+    public void testPing() {
+        serve();
+        MCPingResponse response = engine.ping(options(5000)).join();
+        assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+        assertThat(response.getPlayers().getOnline()).isEqualTo(3);
+        assertThat(response.getVersion().getProtocol()).isEqualTo(754);
+        assertThat(response.getPingProtocol()).isEqualTo(PingProtocol.MODERN);
+    }
+
+    @Test
+    @DisplayName("Many pings at once all complete")
+    public void testConcurrent() {
+        serve();
+        List<CompletableFuture<MCPingResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(engine.ping(options(5000)));
+        }
+        for (CompletableFuture<MCPingResponse> future : futures) {
+            assertThat(future.join().getVersion().getName()).isEqualTo("1.16.4");
+        }
+    }
+
+    @Test
+    @DisplayName("A server that never answers fails the ping once the deadline passes")
+    public void testTimeout() {
+        // Connections are accepted by the OS backlog, but nothing is ever sent back
+        long start = System.currentTimeMillis();
+        assertThatThrownBy(() -> engine.ping(options(200)).join())
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+    }
+
+    @Test
+    @DisplayName("A server that closes the connection early fails the ping")
+    public void testClosed() {
+        exe.submit(() -> {
+            server.accept().close();
+            return null;
+        });
+        assertThatThrownBy(() -> engine.ping(options(5000)).join())
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("A legacy server is detected without waiting for the modern ping to time out")
+    public void testLegacy() {
+        serveLegacy();
+        long start = System.currentTimeMillis();
+        MCPingOptions options = MCPingOptions.builder()
+                .hostname("127.0.0.1")
+                .port(server.getLocalPort())
+                .protocols(EnumSet.of(PingProtocol.MODERN, PingProtocol.LEGACY))
+                .timeout(10000)
+                .build();
+        MCPingResponse response = engine.ping(options).join();
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        assertThat(response.getPingProtocol()).isEqualTo(PingProtocol.LEGACY);
+        assertThat(response.getDescription().getText()).isEqualTo("A Legacy Server");
+        assertThat(response.getPlayers().getOnline()).isEqualTo(5);
+        assertThat(response.getPlayers().getMax()).isEqualTo(10);
+        assertThat(response.getVersion().getName()).isEqualTo("1.6.4");
+        assertThat(response.getVersion().getProtocol()).isEqualTo(127);
+    }
+
+    @Test
+    @DisplayName("A Bedrock server is detected when nothing listens on the Java port")
+    public void testBedrock() throws IOException {
+        // Connections to the Java port are refused right away
+        server.close();
+        try (DatagramSocket bedrock = serveBedrock()) {
+            MCPingResponse response = engine.ping(options(5000, bedrock.getLocalPort())).join();
+            assertThat(response.getPingProtocol()).isEqualTo(PingProtocol.BEDROCK);
+            assertThat(response.getDescription().getText()).isEqualTo("A Bedrock Server");
+            assertThat(response.getPlayers().getOnline()).isEqualTo(2);
+            assertThat(response.getVersion().getName()).isEqualTo("1.16.201");
+            assertThat(response.getVersion().getProtocol()).isEqualTo(422);
+        }
+    }
+
+    @Test
+    @DisplayName("The modern ping is preferred when a server answers more than one protocol")
+    public void testPreferModern() throws IOException {
+        serve();
+        try (DatagramSocket bedrock = serveBedrock()) {
+            MCPingResponse response = engine.ping(options(5000, bedrock.getLocalPort())).join();
+            assertThat(response.getPingProtocol()).isEqualTo(PingProtocol.MODERN);
+            assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+        }
+    }
+
+    @Test
+    @DisplayName("A modern ping that connected is waited for past the grace period, even if Bedrock answered first")
+    public void testSlowModern() throws IOException {
+        serveSlowly();
+        try (DatagramSocket bedrock = serveBedrock()) {
+            MCPingResponse response = engine.ping(options(5000, bedrock.getLocalPort())).join();
+            assertThat(response.getPingProtocol()).isEqualTo(PingProtocol.MODERN);
+            assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+        }
+    }
+
+    @Test
+    @DisplayName("A ping fails with the modern error when no protocol answers")
+    public void testNoProtocol() throws IOException {
+        server.close();
+        try (DatagramSocket bedrock = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            assertThatThrownBy(() -> engine.ping(options(200, bedrock.getLocalPort())).join())
+                    .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("A ping to a port out of range fails without stopping later pings")
+    public void testInvalidPort() {
+        serve();
+        MCPingOptions invalid = MCPingOptions.builder()
+                .hostname("127.0.0.1")
+                .port(70000)
+                .protocols(EnumSet.of(PingProtocol.MODERN))
+                .timeout(5000)
+                .build();
+        assertThatThrownBy(() -> engine.ping(invalid).join())
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        MCPingResponse response = engine.ping(options(5000)).join();
+        assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+    }
+
+    @Test
+    @DisplayName("A hostname is resolved through the nameserver")
+    public void testDnsLookup() throws IOException {
+        serve();
+        try (DatagramSocket dns = serveDns()) {
+            PingEngine dnsEngine = new PingEngine(addressOf(dns));
+            try {
+                MCPingResponse response = dnsEngine.ping(options(HOSTNAME, 5000)).join();
+                assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+            } finally {
+                dnsEngine.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A hostname the nameserver doesn't know falls back to the JVM resolver")
+    public void testDnsFallback() throws IOException {
+        serve();
+        try (DatagramSocket dns = serveDns()) {
+            PingEngine dnsEngine = new PingEngine(addressOf(dns));
+            try {
+                MCPingResponse response = dnsEngine.ping(options("localhost", 5000)).join();
+                assertThat(response.getDescription().getText()).isEqualTo("A Minecraft Server");
+            } finally {
+                dnsEngine.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A nameserver that never answers fails the ping once the deadline passes")
+    public void testDnsTimeout() throws IOException {
+        serve();
+        try (DatagramSocket dns = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            PingEngine dnsEngine = new PingEngine(addressOf(dns));
+            try {
+                assertThatThrownBy(() -> dnsEngine.ping(options(HOSTNAME, 200)).join())
+                        .hasCauseInstanceOf(SocketTimeoutException.class);
+            } finally {
+                dnsEngine.close();
+            }
+        }
+    }
+
+}
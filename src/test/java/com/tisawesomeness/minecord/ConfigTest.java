@@ -2,8 +2,13 @@ package com.tisawesomeness.minecord;
 
 import com.tisawesomeness.minecord.config.ConfigReader;
 import com.tisawesomeness.minecord.config.serial.Config;
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.util.RequestUtils;
+import com.tisawesomeness.minecord.util.type.Verification;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -25,4 +30,25 @@ public class ConfigTest {
         assertThat(config).isNotNull();
     }
 
+    @Test
+    @DisplayName("Config without an executor section is invalid instead of throwing")
+    public void testMissingExecutor() throws JsonProcessingException {
+        ObjectMapper mapper = ConfigReader.buildMapper();
+        ObjectNode tree = (ObjectNode) mapper.readTree(RequestUtils.loadResource("config.yml"));
+        tree.remove("executor");
+        Verification v = mapper.treeToValue(tree, Config.class).verify();
+        assertThat(v.isValid()).isFalse();
+        assertThat(v.getErrors()).anyMatch(s -> s.contains("executor"));
+    }
+
+    @Test
+    @DisplayName("Database section with only a path uses the old SQLite defaults")
+    public void testOldDatabaseConfig() throws JsonProcessingException {
+        DatabaseConfig dbConfig = ConfigReader.buildMapper().readValue("path: \"./minecord.db\"", DatabaseConfig.class);
+        assertThat(dbConfig.verify().isValid()).isTrue();
+        assertThat(dbConfig.getMaxConnections()).isPositive();
+        assertThat(dbConfig.getJournalMode()).isEqualTo("DELETE");
+        assertThat(dbConfig.isWriteBehind()).isFalse();
+    }
+
 }
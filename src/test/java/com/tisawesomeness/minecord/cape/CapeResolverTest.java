@@ -0,0 +1,68 @@
+package com.tisawesomeness.minecord.cape;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapeResolverTest {
+
+    private static final String UUID = "853c80ef3c3749fdaa49938b674adae6";
+
+    private final AtomicInteger probes = new AtomicInteger();
+    private CapeResolver resolver;
+
+    private void create(Set<CapeProvider> withCape, Set<CapeProvider> neverAnswer) {
+        resolver = new CapeResolver((provider, uuid, name) -> {
+            probes.incrementAndGet();
+            if (neverAnswer.contains(provider)) {
+                return new CompletableFuture<>();
+            }
+            Optional<Cape> cape = Optional.of(new Cape(provider, provider + "/" + name, null));
+            return CompletableFuture.completedFuture(withCape.contains(provider) ? cape : Optional.empty());
+        }, 100);
+    }
+    @AfterEach
+    public void tearDown() {
+        resolver.close();
+    }
+
+    @Test
+    @DisplayName("Capes from every provider are combined in order and cached")
+    public void testCombined() {
+        create(EnumSet.of(CapeProvider.MINECRAFTCAPES, CapeProvider.MINECRAFT), EnumSet.noneOf(CapeProvider.class));
+        List<Cape> capes = resolver.resolve(UUID, "jeb_");
+        assertThat(capes).extracting(Cape::getProvider)
+                .containsExactly(CapeProvider.MINECRAFT, CapeProvider.MINECRAFTCAPES);
+        assertThat(resolver.resolve(UUID, "JEB_")).isEqualTo(capes);
+        assertThat(probes).hasValue(CapeProvider.values().length);
+    }
+
+    @Test
+    @DisplayName("A player without capes is cached")
+    public void testNoCapes() {
+        create(EnumSet.noneOf(CapeProvider.class), EnumSet.noneOf(CapeProvider.class));
+        assertThat(resolver.resolve(UUID, "jeb_")).isEmpty();
+        assertThat(resolver.resolve(UUID, "jeb_")).isEmpty();
+        assertThat(probes).hasValue(CapeProvider.values().length);
+    }
+
+    @Test
+    @DisplayName("A provider that misses the deadline is left out and the result is not cached")
+    public void testDeadline() {
+        create(EnumSet.of(CapeProvider.OPTIFINE), EnumSet.of(CapeProvider.LABYMOD));
+        assertThat(resolver.resolve(UUID, "jeb_")).extracting(Cape::getProvider)
+                .containsExactly(CapeProvider.OPTIFINE);
+        resolver.resolve(UUID, "jeb_");
+        assertThat(probes).hasValue(2 * CapeProvider.values().length);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.tisawesomeness.minecord.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ArgumentViewTest {
+
+    @Test
+    @DisplayName("Arguments are split by any amount of whitespace")
+    public void testSplit() {
+        ArgumentView args = new ArgumentView("&server  hypixel.net\t25565 ", 7);
+        assertThat(args.toArray()).containsExactly("hypixel.net", "25565");
+    }
+    @ParameterizedTest(name = "{index} ==> {0} has no arguments")
+    @ValueSource(strings = {"&help", "&help ", "&help \n "})
+    @DisplayName("A command with nothing after it has no arguments")
+    public void testEmpty(String content) {
+        ArgumentView args = new ArgumentView(content, 5);
+        assertThat(args.isEmpty()).isTrue();
+        assertThat(args.slice(0)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Quoted arguments count as one argument with the quotes removed")
+    public void testQuoted() {
+        ArgumentView args = new ArgumentView("&recipe \"golden apple\" 2", 7);
+        assertThat(args.toArray()).containsExactly("golden apple", "2");
+    }
+    @Test
+    @DisplayName("An unclosed quote is a normal character")
+    public void testUnclosedQuote() {
+        ArgumentView args = new ArgumentView("&item \"golden apple", 5);
+        assertThat(args.toArray()).containsExactly("\"golden", "apple");
+    }
+
+    @Test
+    @DisplayName("Slices keep the original spacing and quotes")
+    public void testSlice() {
+        ArgumentView args = new ArgumentView("&item a  \"b c\"  d", 5);
+        assertThat(args.slice(0)).isEqualTo("a  \"b c\"  d");
+        assertThat(args.slice(1, 2)).isEqualTo("\"b c\"");
+        assertThat(args.slice(1, 10)).isEqualTo("\"b c\"  d");
+        assertThat(args.slice(3)).isEmpty();
+    }
+    @Test
+    @DisplayName("Joins use single spaces and remove quotes")
+    public void testJoin() {
+        ArgumentView args = new ArgumentView("&item a  \"b c\"  d", 5);
+        assertThat(args.join(0)).isEqualTo("a b c d");
+        assertThat(args.join(1, 2)).isEqualTo("b c");
+        assertThat(args.join(1, 10)).isEqualTo("b c d");
+        assertThat(args.join(3)).isEmpty();
+    }
+    @Test
+    @DisplayName("Getting an argument out of bounds throws")
+    public void testOutOfBounds() {
+        ArgumentView args = new ArgumentView("&item a", 5);
+        assertThatThrownBy(() -> args.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.tisawesomeness.minecord.command;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FairSchedulerTest {
+
+    private static final long GUILD_A = 1L;
+    private static final long GUILD_B = 2L;
+
+    private ManualExecutor executor;
+    private List<String> order;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new ManualExecutor();
+        order = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Tasks from a busy key do not starve other keys")
+    public void testRoundRobin() {
+        FairScheduler scheduler = new FairScheduler(executor, 1, 10, 1);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a2"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a3"));
+        scheduler.submit(GUILD_B, 1, () -> order.add("b1"));
+        executor.runAll();
+        assertThat(order).containsExactly("a1", "b1", "a2", "a3");
+    }
+
+    @Test
+    @DisplayName("A key with a higher weight runs more tasks each turn")
+    public void testWeight() {
+        FairScheduler scheduler = new FairScheduler(executor, 1, 10, 2);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_B, 2, () -> order.add("b1"));
+        scheduler.submit(GUILD_B, 2, () -> order.add("b2"));
+        scheduler.submit(GUILD_B, 2, () -> order.add("b3"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a2"));
+        executor.runAll();
+        assertThat(order).containsExactly("a1", "b1", "b2", "a2", "b3");
+    }
+
+    @Test
+    @DisplayName("A key cannot run more tasks at once than the key concurrency")
+    public void testKeyConcurrency() {
+        FairScheduler scheduler = new FairScheduler(executor, 4, 10, 1);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a2"));
+        scheduler.submit(GUILD_B, 1, () -> order.add("b1"));
+        assertThat(scheduler.getRunning()).isEqualTo(2);
+        assertThat(scheduler.getQueued()).isEqualTo(1);
+        executor.runAll();
+        assertThat(order).containsExactlyInAnyOrder("a1", "a2", "b1");
+        assertThat(scheduler.getRunning()).isZero();
+        assertThat(scheduler.getActiveKeys()).isZero();
+    }
+
+    @Test
+    @DisplayName("Submitting to a full queue is rejected")
+    public void testFullQueue() {
+        FairScheduler scheduler = new FairScheduler(executor, 1, 1, 1);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a2"));
+        assertThatThrownBy(() -> scheduler.submit(GUILD_B, 1, () -> order.add("b1")))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(scheduler.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Shutting down rejects new tasks but runs queued ones before terminating")
+    public void testShutdown() {
+        FairScheduler scheduler = new FairScheduler(executor, 1, 10, 1);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_B, 1, () -> order.add("b1"));
+        scheduler.shutdown(() -> order.add("terminated"));
+        assertThatThrownBy(() -> scheduler.submit(GUILD_A, 1, () -> order.add("a2")))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(order).isEmpty();
+        executor.runAll();
+        assertThat(order).containsExactly("a1", "b1", "terminated");
+    }
+
+    @Test
+    @DisplayName("Shutting down an idle scheduler terminates immediately")
+    public void testShutdownIdle() {
+        FairScheduler scheduler = new FairScheduler(executor, 1, 10, 1);
+        scheduler.shutdown(() -> order.add("terminated"));
+        assertThat(order).containsExactly("terminated");
+    }
+
+    @Test
+    @DisplayName("Tasks the executor refuses are counted instead of blocking the queue")
+    public void testExecutorRejects() {
+        Executor refusing = task -> {
+            throw new RejectedExecutionException("refused");
+        };
+        FairScheduler scheduler = new FairScheduler(refusing, 1, 10, 1);
+        scheduler.submit(GUILD_A, 1, () -> order.add("a1"));
+        scheduler.submit(GUILD_A, 1, () -> order.add("a2"));
+        assertThat(order).isEmpty();
+        assertThat(scheduler.getRejected()).isEqualTo(2);
+        assertThat(scheduler.getQueued()).isZero();
+        assertThat(scheduler.getActiveKeys()).isZero();
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+        private void runAll() {
+            while (!pending.isEmpty()) {
+                pending.poll().run();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.store.StorageType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConnectionPoolTest {
+
+    private Path dir;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("minecord-pool");
+        String path = dir.resolve("minecord.db").toString();
+        DatabaseConfig config = new DatabaseConfig(StorageType.SQLITE, path, 1, 5000, 8,
+                "DELETE", "NORMAL", 2000, 0L, false, 1000, 0);
+        pool = new ConnectionPool(config);
+        try (Connection connect = pool.getConnection(); Statement st = connect.createStatement()) {
+            st.executeUpdate("CREATE TABLE item (id INTEGER PRIMARY KEY, parent INTEGER);");
+            st.executeUpdate("INSERT INTO item VALUES (1, 0), (2, 1), (3, 1), (4, 2);");
+        }
+    }
+    @AfterEach
+    public void tearDown() throws IOException {
+        pool.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path p : files) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    @DisplayName("The same query can be used again while its first statement is still open")
+    public void testNestedStatement() throws SQLException {
+        String sql = "SELECT id FROM item WHERE parent = ? ORDER BY id;";
+        int before = pool.getPrepared();
+        int grandchildren = 0;
+        try (Connection connect = pool.getConnection()) {
+            PreparedStatement outer = connect.prepareStatement(sql);
+            outer.setInt(1, 1);
+            ResultSet children = outer.executeQuery();
+            while (children.next()) {
+                PreparedStatement inner = connect.prepareStatement(sql);
+                inner.setInt(1, children.getInt("id"));
+                ResultSet rs = inner.executeQuery();
+                while (rs.next()) {
+                    grandchildren++;
+                }
+                inner.close();
+            }
+            outer.close();
+        }
+        assertThat(grandchildren).isEqualTo(1);
+        // The outer statement is cached, and each nested one is compiled on its own
+        assertThat(pool.getPrepared() - before).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A cached statement is reused once it is closed")
+    public void testStatementReused() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM item WHERE parent = ?;";
+        int before = pool.getPrepared();
+        try (Connection connect = pool.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                PreparedStatement st = connect.prepareStatement(sql);
+                st.setInt(1, 1);
+                ResultSet rs = st.executeQuery();
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(2);
+                st.close();
+            }
+        }
+        assertThat(pool.getPrepared() - before).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A borrowed connection can't be unwrapped to the physical connection")
+    public void testUnwrap() throws SQLException {
+        try (Connection connect = pool.getConnection()) {
+            assertThat(connect.isWrapperFor(SQLiteConnection.class)).isFalse();
+            assertThat(connect.unwrap(Connection.class)).isSameAs(connect);
+            assertThatThrownBy(() -> connect.unwrap(SQLiteConnection.class))
+                    .isInstanceOf(SQLException.class);
+        }
+    }
+
+}
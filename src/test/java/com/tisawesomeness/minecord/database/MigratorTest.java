@@ -0,0 +1,126 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.store.StorageType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MigratorTest {
+
+    private Path dir;
+    private ConnectionPool pool;
+    private Migrator migrator;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("minecord-migrate");
+        String path = dir.resolve("minecord.db").toString();
+        DatabaseConfig config = new DatabaseConfig(StorageType.SQLITE, path, 1, 5000, 8,
+                "DELETE", "NORMAL", 2000, 0L, false, 1000, 0);
+        pool = new ConnectionPool(config);
+        migrator = new Migrator();
+    }
+    @AfterEach
+    public void tearDown() throws IOException {
+        pool.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path p : files) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    @DisplayName("A new database is created and migrated to the latest version")
+    public void testCreate() throws SQLException {
+        Migrator.Plan before = plan();
+        assertThat(before.getCurrentVersion()).isZero();
+        assertThat(before.getPending()).hasSize(migrator.getLatestVersion() - 1);
+        assertThat(migrate()).isEqualTo(migrator.getLatestVersion() - 1);
+        assertThat(queryInt("SELECT version FROM minecord;")).isEqualTo(migrator.getLatestVersion());
+        assertThat(queryInt("SELECT COUNT(*) FROM migration;")).isEqualTo(migrator.getLatestVersion() - 1);
+    }
+
+    @Test
+    @DisplayName("Migrating an up-to-date database does nothing")
+    public void testIdempotent() throws SQLException {
+        migrate();
+        assertThat(migrate()).isZero();
+        Migrator.Plan plan = plan();
+        assertThat(plan.getPending()).isEmpty();
+        assertThat(plan.isValid()).isTrue();
+    }
+
+    @Test
+    @DisplayName("A migration script that changed after it was applied is rejected")
+    public void testChecksumMismatch() throws SQLException {
+        migrate();
+        execute("UPDATE migration SET checksum = 'changed';");
+        assertThat(plan().getMismatches()).isNotEmpty();
+        assertThat(plan().isValid()).isFalse();
+        assertThatThrownBy(this::migrate).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("A database newer than the bot is rejected")
+    public void testTooNew() throws SQLException {
+        migrate();
+        execute("UPDATE minecord SET version = " + (migrator.getLatestVersion() + 1) + ";");
+        assertThat(plan().isValid()).isFalse();
+        assertThatThrownBy(this::migrate).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("A plan can be made with a read-only connection")
+    public void testReadOnlyPlan() throws SQLException {
+        migrate();
+        SQLiteConfig readOnly = new SQLiteConfig();
+        readOnly.setReadOnly(true);
+        try (Connection connect = readOnly.createConnection("jdbc:sqlite:" + dir.resolve("minecord.db"))) {
+            Migrator.Plan plan = migrator.plan(connect);
+            assertThat(plan.getCurrentVersion()).isEqualTo(migrator.getLatestVersion());
+            assertThat(plan.isValid()).isTrue();
+        }
+    }
+
+    private Migrator.Plan plan() throws SQLException {
+        try (Connection connect = pool.getConnection()) {
+            return migrator.plan(connect);
+        }
+    }
+    private int migrate() throws SQLException {
+        try (Connection connect = pool.getConnection()) {
+            return migrator.migrate(connect);
+        }
+    }
+    private int queryInt(String sql) throws SQLException {
+        try (Connection connect = pool.getConnection(); Statement st = connect.createStatement()) {
+            ResultSet rs = st.executeQuery(sql);
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+    private void execute(String sql) throws SQLException {
+        try (Connection connect = pool.getConnection(); Statement st = connect.createStatement()) {
+            st.executeUpdate(sql);
+        }
+    }
+
+}
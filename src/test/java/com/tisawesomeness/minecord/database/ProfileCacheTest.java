@@ -0,0 +1,150 @@
+package com.tisawesomeness.minecord.database;
+
+import com.tisawesomeness.minecord.database.dao.ProfileEntry;
+import com.tisawesomeness.minecord.database.store.MemoryProfileStore;
+import com.tisawesomeness.minecord.util.NameUtils;
+import com.tisawesomeness.minecord.util.type.HttpResult;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProfileCacheTest {
+
+    private static final String UUID = "069a79f444e94726a5befca90e38aaf5";
+    private static final String OTHER_UUID = "853c80ef3c3749fdaa49938b674adae6";
+
+    private MemoryProfileStore store;
+    private Map<String, HttpResult> responses;
+    private Map<String, Integer> requests;
+    // Lowercase name --> UUID, returned by the bulk endpoint
+    private Map<String, String> players;
+    private AtomicInteger batches;
+    private volatile boolean mojangUp;
+    private ProfileCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        store = new MemoryProfileStore();
+        responses = new HashMap<>();
+        requests = new HashMap<>();
+        players = new HashMap<>();
+        batches = new AtomicInteger();
+        mojangUp = true;
+        UUIDBatcher batcher = new UUIDBatcher(this::postBatch, 1);
+        cache = new ProfileCache(store, true, url -> {
+            requests.merge(url, 1, Integer::sum);
+            return Optional.ofNullable(responses.get(url));
+        }, batcher);
+    }
+    @AfterEach
+    public void tearDown() {
+        cache.close();
+    }
+    private CompletableFuture<String> postBatch(String json) {
+        batches.incrementAndGet();
+        if (!mojangUp) {
+            return CompletableFuture.completedFuture(null);
+        }
+        JSONArray profiles = new JSONArray();
+        JSONArray names = new JSONArray(json);
+        for (int i = 0; i < names.length(); i++) {
+            String uuid = players.get(names.getString(i));
+            if (uuid != null) {
+                profiles.put(new JSONObject().put("id", uuid).put("name", names.getString(i)));
+            }
+        }
+        return CompletableFuture.completedFuture(profiles.toString());
+    }
+
+    @Test
+    @DisplayName("A UUID is fetched once, then served from memory regardless of case")
+    public void testUUID() {
+        players.put("notch", UUID);
+        assertThat(cache.getUUID("Notch")).isEqualTo(UUID);
+        assertThat(cache.getUUID("notch")).isEqualTo(UUID);
+        assertThat(batches).hasValue(1);
+        assertThat(store.loadUUID("notch")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("A player that does not exist is cached")
+    public void testMissing() {
+        assertThat(cache.getUUID("nobody")).isNull();
+        assertThat(cache.getUUID("nobody")).isNull();
+        assertThat(batches).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("A failed request is not cached")
+    public void testFailure() {
+        players.put("notch", UUID);
+        mojangUp = false;
+        assertThat(cache.getUUID("notch")).isNull();
+        mojangUp = true;
+        assertThat(cache.getUUID("notch")).isEqualTo(UUID);
+        assertThat(batches).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("A fresh entry in the store is used instead of Mojang, a stale one is refetched")
+    public void testStore() {
+        long now = System.currentTimeMillis();
+        store.saveUUID("notch", new ProfileEntry(UUID, now));
+        store.saveUUID("jeb_", new ProfileEntry(UUID, now - TimeUnit.DAYS.toMillis(1)));
+        players.put("jeb_", OTHER_UUID);
+
+        assertThat(cache.getUUID("notch")).isEqualTo(UUID);
+        assertThat(cache.getUUID("jeb_")).isEqualTo(OTHER_UUID);
+        assertThat(batches).hasValue(1);
+        assertThat(cache.getStoredUUIDHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Lookups at a timestamp are sent on their own, and a failed request is not cached")
+    public void testTimestamp() {
+        String url = NameUtils.getUUIDURL("notch?at=0");
+        assertThat(cache.getUUID("Notch", 0)).isNull();
+        responses.put(url, new HttpResult(200, "{\"id\":\"" + UUID + "\"}"));
+        assertThat(cache.getUUID("Notch", 0)).isEqualTo(UUID);
+        assertThat(cache.getUUID("notch", 0)).isEqualTo(UUID);
+        assertThat(requests).containsEntry(url, 2);
+        assertThat(batches).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("A response that isn't valid JSON fails the lookup and is not cached")
+    public void testInvalidJSON() {
+        String url = NameUtils.getUUIDURL("notch?at=0");
+        responses.put(url, new HttpResult(200, "<html>Rate limited</html>"));
+        assertThat(cache.getUUID("notch", 0)).isNull();
+        responses.put(NameUtils.getHistoryURL(UUID), new HttpResult(200, "[]"));
+        assertThat(cache.getName(UUID)).isNull();
+        responses.put(url, new HttpResult(200, "{\"id\":\"" + UUID + "\"}"));
+        assertThat(cache.getUUID("notch", 0)).isEqualTo(UUID);
+        assertThat(requests).containsEntry(url, 2);
+    }
+
+    @Test
+    @DisplayName("The current name is the last name in the history")
+    public void testName() {
+        String history = "[{\"name\":\"Old\"},{\"name\":\"Notch\",\"changedToAt\":1414059749000}]";
+        responses.put(NameUtils.getHistoryURL(UUID), new HttpResult(200, history));
+        assertThat(cache.getName(NameUtils.formatUUID(UUID))).isEqualTo("Notch");
+        assertThat(cache.getHistory(UUID)).isEqualTo(history);
+        assertThat(requests).containsEntry(NameUtils.getHistoryURL(UUID), 1);
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.tisawesomeness.minecord.database;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UUIDBatcherTest {
+
+    private static final String NOTCH = "069a79f444e94726a5befca90e38aaf5";
+
+    private final List<String> payloads = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<String>> responses = new CopyOnWriteArrayList<>();
+    private UUIDBatcher batcher;
+
+    private UUIDBatcher create(long window) {
+        batcher = new UUIDBatcher(json -> {
+            payloads.add(json);
+            CompletableFuture<String> response = new CompletableFuture<>();
+            responses.add(response);
+            return response;
+        }, window);
+        return batcher;
+    }
+    @AfterEach
+    public void tearDown() {
+        batcher.close();
+    }
+
+    @Test
+    @DisplayName("Names in the same window are sent in one request and each caller gets their own answer")
+    public void testBatch() {
+        create(10);
+        CompletableFuture<Optional<String>> notch = batcher.resolve("Notch");
+        CompletableFuture<Optional<String>> nobody = batcher.resolve("nobody");
+        CompletableFuture<Optional<String>> again = batcher.resolve("notch");
+        while (responses.isEmpty()) {
+            Thread.yield();
+        }
+        assertThat(payloads).containsExactly("[\"notch\",\"nobody\"]");
+        responses.get(0).complete("[{\"id\":\"" + NOTCH + "\",\"name\":\"Notch\"}]");
+
+        assertThat(notch.join()).contains(NOTCH);
+        assertThat(again.join()).contains(NOTCH);
+        assertThat(nobody.join()).isEmpty();
+        assertThat(batcher.getLookupCount()).isEqualTo(3);
+        assertThat(batcher.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A full batch is sent without waiting for the window")
+    public void testFull() {
+        create(60_000);
+        List<CompletableFuture<Optional<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < UUIDBatcher.MAX_BATCH_SIZE + 1; i++) {
+            futures.add(batcher.resolve("player" + i));
+        }
+        assertThat(payloads).hasSize(1);
+        assertThat(new JSONArray(payloads.get(0)).length()).isEqualTo(UUIDBatcher.MAX_BATCH_SIZE);
+        responses.get(0).complete("[]");
+        assertThat(futures.get(0).join()).isEmpty();
+        assertThat(futures.get(UUIDBatcher.MAX_BATCH_SIZE)).isNotDone();
+    }
+
+    @Test
+    @DisplayName("A failed request fails every name in the batch")
+    public void testFailure() {
+        create(60_000);
+        List<CompletableFuture<Optional<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < UUIDBatcher.MAX_BATCH_SIZE; i++) {
+            futures.add(batcher.resolve("player" + i));
+        }
+        responses.get(0).complete(null);
+        for (CompletableFuture<Optional<String>> future : futures) {
+            assertThatThrownBy(future::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Only valid playernames can be batched")
+    public void testCanBatch() {
+        create(10);
+        assertThat(UUIDBatcher.canBatch("jeb_")).isTrue();
+        assertThat(UUIDBatcher.canBatch("notch?at=0")).isFalse();
+        assertThat(UUIDBatcher.canBatch("ThisNameIsWayTooLong")).isFalse();
+    }
+
+}
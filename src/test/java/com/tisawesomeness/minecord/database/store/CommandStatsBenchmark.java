@@ -0,0 +1,136 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares pushing command uses with one upsert batch against the old update-then-insert statements.
+ * <br>Run with {@code ./gradlew test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CommandStatsBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    private static final String OLD_UPDATE_SQL = "UPDATE command SET uses = uses + ? WHERE id = ?;";
+    private static final String OLD_INSERT_SQL =
+            "INSERT INTO command (id, uses)\n" +
+            "SELECT ?, ?\n" +
+            "WHERE NOT EXISTS (\n" +
+            "    SELECT 1 FROM command WHERE id = ?\n" +
+            ");";
+
+    private Path file;
+    private Connection connect;
+
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("minecord-bench", ".db");
+        connect = DriverManager.getConnection("jdbc:sqlite:" + file);
+        try (Statement st = connect.createStatement()) {
+            st.execute("PRAGMA journal_mode = WAL;");
+            st.execute("PRAGMA synchronous = NORMAL;");
+        }
+    }
+    @AfterEach
+    public void tearDown() throws IOException, SQLException {
+        connect.close();
+        Files.deleteIfExists(file);
+    }
+
+    @ParameterizedTest(name = "{index} ==> {0} command IDs")
+    @ValueSource(ints = {100, 1000})
+    @DisplayName("Time pushing uses with update then insert, and with a batched upsert")
+    public void benchmarkPush(int ids) throws SQLException {
+        Multiset<String> uses = HashMultiset.create();
+        for (int i = 0; i < ids; i++) {
+            uses.add("command" + i, i % 7 + 1);
+        }
+
+        resetTable();
+        double oldMs = time(() -> pushOld(uses));
+        long oldTotal = totalUses();
+        resetTable();
+        double newMs = time(() -> SQLiteCommandStatsStore.pushCommandUses(connect, uses));
+        long newTotal = totalUses();
+
+        System.out.printf("%d IDs: update+insert %.3fms, upsert batch %.3fms (%.1fx)%n",
+                ids, oldMs, newMs, oldMs / newMs);
+        assertThat(newTotal).isEqualTo(oldTotal);
+    }
+
+    private double time(SQLRunnable push) throws SQLException {
+        for (int i = 0; i < WARMUP; i++) {
+            push.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            push.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    // The implementation before upserts, kept to compare against
+    private void pushOld(Multiset<String> commandUses) throws SQLException {
+        connect.setAutoCommit(false);
+        try (PreparedStatement updateSt = connect.prepareStatement(OLD_UPDATE_SQL);
+             PreparedStatement insertSt = connect.prepareStatement(OLD_INSERT_SQL)) {
+            for (Multiset.Entry<String> entry : commandUses.entrySet()) {
+                String id = entry.getElement();
+                int uses = entry.getCount();
+                updateSt.setInt(1, uses);
+                updateSt.setString(2, id);
+                updateSt.executeUpdate();
+                insertSt.setString(1, id);
+                insertSt.setInt(2, uses);
+                insertSt.setString(3, id);
+                insertSt.executeUpdate();
+            }
+            connect.commit();
+        } catch (SQLException ex) {
+            connect.rollback();
+            throw ex;
+        }
+    }
+
+    private void resetTable() throws SQLException {
+        connect.setAutoCommit(true);
+        try (Statement st = connect.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS command;");
+            st.execute("CREATE TABLE command (id TEXT(32) PRIMARY KEY NOT NULL, uses INT(13) NOT NULL DEFAULT 0);");
+        }
+    }
+    private long totalUses() throws SQLException {
+        connect.setAutoCommit(true);
+        try (Statement st = connect.createStatement();
+             ResultSet rs = st.executeQuery("SELECT SUM(uses) FROM command;")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SQLRunnable {
+        void run() throws SQLException;
+    }
+
+}
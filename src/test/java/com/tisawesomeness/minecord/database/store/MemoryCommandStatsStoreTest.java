@@ -0,0 +1,55 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.database.dao.UsageKey;
+import com.tisawesomeness.minecord.database.dao.UsageResolution;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemoryCommandStatsStoreTest {
+
+    private static final long DAY = UsageResolution.DAY.getSeconds();
+    private static final long NOW = 10 * DAY + 5000;
+
+    private MemoryCommandStatsStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new MemoryCommandStatsStore();
+    }
+
+    @Test
+    @DisplayName("Pushing command uses adds to the running count")
+    public void testCommandUses() {
+        Multiset<String> uses = HashMultiset.create();
+        uses.add("ping", 5);
+        store.pushCommandUses(uses);
+        store.pushCommandUses(uses);
+        assertThat(store.getCommandUses().count("ping")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Old minute buckets are rolled up while recent ones are kept")
+    public void testRollup() {
+        Multiset<UsageKey> history = HashMultiset.create();
+        history.add(new UsageKey("ping", "SUCCESS", NOW - 70), 3);
+        history.add(new UsageKey("ping", "SUCCESS", NOW - 3 * DAY), 2);
+        history.add(new UsageKey("ping", "SUCCESS", NOW - 3 * DAY + 61), 4);
+        store.pushUsageHistory(history);
+        store.rollupUsageHistory(NOW, 2 * DAY, DAY, 730 * DAY);
+
+        Multiset<UsageKey> days = store.getUsageHistory(0, NOW + 1, UsageResolution.DAY);
+        long oldDay = UsageResolution.DAY.floor(NOW - 3 * DAY);
+        assertThat(days.count(new UsageKey("ping", "SUCCESS", oldDay))).isEqualTo(6);
+        Multiset<UsageKey> minutes = store.getUsageHistory(NOW - 3600, NOW + 1, UsageResolution.MINUTE);
+        long recentMinute = UsageResolution.MINUTE.floor(NOW - 70);
+        assertThat(minutes).containsOnly(new UsageKey("ping", "SUCCESS", recentMinute));
+        assertThat(minutes.count(new UsageKey("ping", "SUCCESS", recentMinute))).isEqualTo(3);
+    }
+
+}
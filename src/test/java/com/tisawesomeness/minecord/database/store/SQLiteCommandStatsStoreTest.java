@@ -0,0 +1,78 @@
+package com.tisawesomeness.minecord.database.store;
+
+import com.tisawesomeness.minecord.config.serial.DatabaseConfig;
+import com.tisawesomeness.minecord.database.ConnectionPool;
+import com.tisawesomeness.minecord.database.Migrator;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SQLiteCommandStatsStoreTest {
+
+    private Path dir;
+    private ConnectionPool pool;
+    private SQLiteCommandStatsStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("minecord-stats");
+        String path = dir.resolve("minecord.db").toString();
+        DatabaseConfig config = new DatabaseConfig(StorageType.SQLITE, path, 1, 5000, 8,
+                "DELETE", "NORMAL", 2000, 0L, false, 1000, 0);
+        pool = new ConnectionPool(config);
+        try (Connection connect = pool.getConnection()) {
+            new Migrator().migrate(connect);
+        }
+        store = new SQLiteCommandStatsStore(pool);
+    }
+    @AfterEach
+    public void tearDown() throws IOException {
+        pool.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path p : files) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    @DisplayName("Pushing command uses inserts new commands and adds to existing ones")
+    public void testCommandUses() throws SQLException {
+        Multiset<String> uses = HashMultiset.create();
+        for (int i = 0; i < 1000; i++) {
+            uses.add("command" + i, i % 7 + 1);
+        }
+        store.pushCommandUses(uses);
+        assertThat(store.getCommandUses()).isEqualTo(uses);
+
+        store.pushCommandUses(uses);
+        Multiset<String> pushed = store.getCommandUses();
+        assertThat(pushed.size()).isEqualTo(2 * uses.size());
+        assertThat(pushed.count("command6")).isEqualTo(14);
+    }
+
+    @Test
+    @DisplayName("Pushing no uses leaves the counts alone")
+    public void testEmpty() throws SQLException {
+        Multiset<String> uses = HashMultiset.create();
+        uses.add("ping", 3);
+        store.pushCommandUses(uses);
+        store.pushCommandUses(HashMultiset.create());
+        assertThat(store.getCommandUses()).isEqualTo(uses);
+    }
+
+}
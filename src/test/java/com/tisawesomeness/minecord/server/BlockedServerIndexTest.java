@@ -0,0 +1,80 @@
+package com.tisawesomeness.minecord.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlockedServerIndexTest {
+
+    private BlockedServerIndex index;
+
+    @BeforeEach
+    public void setUp() throws NoSuchAlgorithmException {
+        index = new BlockedServerIndex();
+        index.update(String.join("\n",
+                sha1("blocked.example.com"),
+                sha1("*.wildcard.net"),
+                sha1("10.0.*"),
+                sha1("192.168.1.1"),
+                "not a hash"));
+    }
+    private static String sha1(String str) throws NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-1").digest(str.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Invalid lines are skipped")
+    public void testSize() {
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.getLastUpdated()).isPositive();
+    }
+
+    @Test
+    @DisplayName("An exact address is blocked regardless of case")
+    public void testExact() {
+        assertThat(index.isBlocked("blocked.example.com", false)).isTrue();
+        assertThat(index.isBlocked("Blocked.Example.COM", false)).isTrue();
+        assertThat(index.isBlocked("example.com", false)).isFalse();
+        assertThat(index.isBlocked("192.168.1.1", true)).isTrue();
+        assertThat(index.isBlocked("192.168.1.2", true)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A wildcard domain blocks every subdomain")
+    public void testDomainWildcard() {
+        assertThat(index.isBlocked("mc.wildcard.net", false)).isTrue();
+        assertThat(index.isBlocked("a.b.wildcard.net", false)).isTrue();
+        assertThat(index.isBlocked("wildcard.net", false)).isFalse();
+        assertThat(index.isBlocked("wildcard.net.", false)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A wildcard IP blocks every address with the prefix")
+    public void testIpWildcard() {
+        assertThat(index.isBlocked("10.0.5.5", true)).isTrue();
+        assertThat(index.isBlocked("10.1.5.5", true)).isFalse();
+        // Domains are not matched by prefix
+        assertThat(index.isBlocked("10.0.example.com", false)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Updating replaces the whole list")
+    public void testUpdate() throws NoSuchAlgorithmException {
+        index.update(sha1("other.example.com") + "\n");
+        assertThat(index.isBlocked("blocked.example.com", false)).isFalse();
+        assertThat(index.isBlocked("other.example.com", false)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.tisawesomeness.minecord.server;
+
+import br.com.azalim.mcserverping.MCPingOptions;
+import br.com.azalim.mcserverping.MCPingResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ServerStatusCacheTest {
+
+    private List<MCPingOptions> pings;
+    private List<CompletableFuture<MCPingResponse>> responses;
+    private AtomicLong time;
+    private ServerStatusCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        pings = new ArrayList<>();
+        responses = new ArrayList<>();
+        time = new AtomicLong();
+        cache = new ServerStatusCache(this::ping, time::get, Runnable::run);
+    }
+    // Each ping stays in progress until the test completes it
+    private CompletableFuture<MCPingResponse> ping(MCPingOptions options) {
+        pings.add(options);
+        CompletableFuture<MCPingResponse> future = new CompletableFuture<>();
+        responses.add(future);
+        return future;
+    }
+    private static MCPingResponse response(long ping) {
+        MCPingResponse response = new MCPingResponse();
+        response.setPing(ping);
+        return response;
+    }
+    private void advance(long seconds) {
+        time.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    @DisplayName("Lookups of the same server share one ping, regardless of case")
+    public void testShared() throws IOException {
+        CompletableFuture<MCPingResponse> first = cache.getStatusAsync("Hypixel.net", 25565);
+        CompletableFuture<MCPingResponse> second = cache.getStatusAsync("hypixel.net.", 25565);
+        responses.get(0).complete(response(1));
+        assertThat(first.join().getPing()).isEqualTo(1);
+        assertThat(second.join().getPing()).isEqualTo(1);
+        assertThat(cache.getStatus("hypixel.net", 25565).getPing()).isEqualTo(1);
+        assertThat(pings).hasSize(1);
+        assertThat(pings.get(0).getHostname()).isEqualTo("hypixel.net");
+    }
+
+    @Test
+    @DisplayName("Different ports are different servers")
+    public void testPort() {
+        cache.getStatusAsync("hypixel.net", 25565);
+        cache.getStatusAsync("hypixel.net", 25566);
+        assertThat(pings).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("A stale status is returned right away while a single refresh runs")
+    public void testStale() {
+        cache.getStatusAsync("hypixel.net", 25565);
+        responses.get(0).complete(response(1));
+
+        advance(ServerStatusCache.REFRESH + 1);
+        assertThat(cache.getStatusAsync("hypixel.net", 25565).join().getPing()).isEqualTo(1);
+        assertThat(cache.getStatusAsync("hypixel.net", 25565).join().getPing()).isEqualTo(1);
+        assertThat(pings).hasSize(2);
+
+        responses.get(1).complete(response(2));
+        assertThat(cache.getStatusAsync("hypixel.net", 25565).join().getPing()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A status past the expiry is not returned")
+    public void testExpired() {
+        cache.getStatusAsync("hypixel.net", 25565);
+        responses.get(0).complete(response(1));
+
+        advance(ServerStatusCache.EXPIRE + 1);
+        CompletableFuture<MCPingResponse> future = cache.getStatusAsync("hypixel.net", 25565);
+        assertThat(future).isNotDone();
+        responses.get(1).complete(response(2));
+        assertThat(future.join().getPing()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A failed ping is not cached")
+    public void testFailure() {
+        CompletableFuture<MCPingResponse> future = cache.getStatusAsync("hypixel.net", 25565);
+        responses.get(0).completeExceptionally(new IOException("unreachable"));
+        assertThatThrownBy(future::join).hasCauseInstanceOf(IOException.class);
+        cache.getStatusAsync("hypixel.net", 25565);
+        assertThat(pings).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("A favicon is decoded once, and an invalid favicon is empty")
+    public void testFavicon() {
+        byte[] png = "png".getBytes(StandardCharsets.UTF_8);
+        String favicon = "data:image/png;base64," + Base64.getEncoder().encodeToString(png);
+        assertThat(cache.getFavicon(favicon)).contains(png);
+        assertThat(cache.getFavicon(favicon)).contains(png);
+        assertThat(cache.getFaviconStats().hitCount()).isEqualTo(1);
+        assertThat(cache.getFavicon("data:image/png;base64,!!!")).isEmpty();
+        assertThat(cache.getFavicon("no comma")).isEmpty();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.tisawesomeness.minecord.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageUtilsTest {
+
+    private static final long SELF_ID = 347765748577468416L;
+
+    @Test
+    @DisplayName("Command name starts right after the prefix")
+    public void testPrefix() {
+        assertThat(MessageUtils.findCommandStart("&&help", "&&", SELF_ID, true)).isEqualTo(2);
+    }
+    @ParameterizedTest(name = "{index} ==> Mention {0} is detected")
+    @ValueSource(strings = {"<@347765748577468416> help", "<@!347765748577468416> help"})
+    @DisplayName("Command name starts after a mention of the bot and a space")
+    public void testMention(String content) {
+        int start = MessageUtils.findCommandStart(content, "&", SELF_ID, true);
+        assertThat(content.substring(start)).isEqualTo("help");
+    }
+    @ParameterizedTest(name = "{index} ==> {0} is not a command")
+    @ValueSource(strings = {
+            "help", "<@347765748577468416>", "<@347765748577468416>help", "<@123> help",
+            "<@> help", "<@!347765748577468416 help", "<@99999999999999999999999> help"
+    })
+    @DisplayName("Messages that are not addressed to the bot are ignored")
+    public void testNotCommand(String content) {
+        assertThat(MessageUtils.findCommandStart(content, "&", SELF_ID, true)).isEqualTo(-1);
+    }
+    @Test
+    @DisplayName("Mentions are ignored if responding to mentions is disabled")
+    public void testMentionDisabled() {
+        assertThat(MessageUtils.findCommandStart("<@347765748577468416> help", "&", SELF_ID, false)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("The command name ends at the first whitespace")
+    public void testFindNameEnd() {
+        assertThat(MessageUtils.findNameEnd("&server\thypixel.net", 1)).isEqualTo(7);
+    }
+    @ParameterizedTest(name = "{index} ==> {0} has a name ending at the end of the message")
+    @ValueSource(strings = {"&help", "<@347765748577468416> help"})
+    @DisplayName("A command with nothing after it ends at the end of the message")
+    public void testFindNameEndNoArgs(String content) {
+        int nameStart = content.length() - 4;
+        assertThat(MessageUtils.findNameEnd(content, nameStart)).isEqualTo(content.length());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.tisawesomeness.minecord.util.type;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private SingleFlight<String, String> flight;
+
+    @BeforeEach
+    public void setUp() {
+        flight = new SingleFlight<>();
+    }
+
+    @Test
+    @DisplayName("Concurrent calls with the same key run the action once and share the result")
+    public void testShared() throws InterruptedException, ExecutionException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService exe = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = exe.submit(() -> flight.run("key", () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            }));
+            started.await();
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(exe.submit(() -> flight.run("key", () -> {
+                    runs.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // Followers must be waiting before the leader finishes
+            while (flight.getSharedCount() < 3) {
+                Thread.yield();
+            }
+            release.countDown();
+            assertThat(leader.get()).isEqualTo("value");
+            for (Future<String> f : followers) {
+                assertThat(f.get()).isEqualTo("value");
+            }
+        } finally {
+            exe.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(flight.getCallCount()).isEqualTo(4);
+        assertThat(flight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Calls after the action finishes run it again")
+    public void testNotCached() {
+        AtomicInteger runs = new AtomicInteger();
+        flight.run("key", () -> String.valueOf(runs.incrementAndGet()));
+        assertThat(flight.run("key", () -> String.valueOf(runs.incrementAndGet()))).isEqualTo("2");
+        assertThat(flight.getSharedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("An exception is thrown to the caller and the key is released")
+    public void testException() {
+        assertThatThrownBy(() -> flight.run("key", () -> {
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(flight.getInFlightCount()).isZero();
+        assertThat(flight.run("key", () -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("Async calls share the running future, and each caller gets their own copy")
+    public void testAsync() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<String> first = flight.runAsync("key", () -> {
+            runs.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<String> second = flight.runAsync("key", () -> {
+            runs.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        second.cancel(false);
+        source.complete("value");
+        assertThat(first.join()).isEqualTo("value");
+        assertThat(runs).hasValue(1);
+        assertThat(flight.getInFlightCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}